@@ -0,0 +1,178 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.ibt.DeltaReader;
+import com.joffrey.iracing.irsdkjava.ibt.DeltaWriter;
+import com.joffrey.iracing.irsdkjava.ibt.IbtCursor;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.ibt.IbtWriter;
+import com.joffrey.iracing.irsdkjava.ibt.RecordingFormat;
+import com.joffrey.iracing.irsdkjava.ibt.RowWriter;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rows per second read from a recording of 4 KB rows, raw (.ibt) or as deltas. The size of the file is printed on setup.
+ * <p>
+ * LIVE rows look like the sim: the session time and 150 channels change every tick, 200 every second and the rest (car index
+ * arrays of absent cars, setup values, ...) never. NOISY rows change every word, the worst case of the delta format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaBenchmark {
+
+    private static final int ROWS     = 18000;
+    private static final int BUF_LEN  = 4096;
+    private static final int CHANNELS = (BUF_LEN - Double.BYTES) / Float.BYTES;
+
+    public enum Shape {
+        LIVE,
+        NOISY
+    }
+
+    @Param({"IBT", "DELTA"})
+    private RecordingFormat format;
+
+    @Param({"LIVE", "NOISY"})
+    private Shape shape;
+
+    private Path        file;
+    private IbtFile     ibtFile;
+    private IbtCursor   cursor;
+    private DeltaReader reader;
+    private FloatVar    channel;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("delta", format.getFileExtension());
+        Files.delete(file);
+        writeFile();
+        System.out.printf("%n%s %s: %d bytes for %d bytes of rows%n", format, shape, Files.size(file), (long) ROWS * BUF_LEN);
+        if (format == RecordingFormat.DELTA) {
+            reader = DeltaReader.open(file);
+            channel = reader.floatVar("Channels");
+        } else {
+            ibtFile = IbtFile.open(file);
+            cursor = ibtFile.cursor();
+            channel = ibtFile.floatVar("Channels");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+        if (ibtFile != null) {
+            ibtFile.close();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public float row() throws IOException {
+        TelemetryFrame frame;
+        if (reader != null) {
+            if (!reader.next()) {
+                reader.seek(0);
+            }
+            frame = reader.getFrame();
+        } else {
+            if (!cursor.next()) {
+                cursor.seek(0);
+            }
+            frame = cursor.getFrame();
+        }
+        return frame.getVarFloat(channel, 10);
+    }
+
+    private void writeFile() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Header.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, 2);
+        header.putInt(8, 60);
+        header.putInt(36, BUF_LEN);
+        ByteBuffer varHeaders = ByteBuffer.allocate(2 * VarHeader.VAR_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        putVarHeader(varHeaders, 0, 5, 0, 1, "SessionTime");
+        putVarHeader(varHeaders, VarHeader.VAR_HEADER_SIZE, 4, Double.BYTES, CHANNELS, "Channels");
+        ByteBuffer sessionInfo = ByteBuffer.wrap("---\n...\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        ByteBuffer row = ByteBuffer.allocate(BUF_LEN).order(ByteOrder.LITTLE_ENDIAN);
+        try (RowWriter writer = format == RecordingFormat.DELTA
+                                ? DeltaWriter.create(file, header, varHeaders, sessionInfo,
+                                                     DeltaWriter.DEFAULT_KEYFRAME_INTERVAL)
+                                : IbtWriter.create(file, header, varHeaders, sessionInfo)) {
+            for (int i = 0; i < ROWS; i++) {
+                row.clear();
+                row.putDouble(0, i / 60.0);
+                for (int c = 0; c < CHANNELS; c++) {
+                    float value = c;
+                    if (shape == Shape.NOISY || c < 150) {
+                        value = (float) Math.sin(i * 0.01 * (c + 1)) * 100.0F;
+                    } else if (c < 350) {
+                        value = (i / 60) * 0.5F + c;
+                    }
+                    row.putFloat(Double.BYTES + (c * Float.BYTES), value);
+                }
+                writer.write(row);
+            }
+        }
+    }
+
+    private static void putVarHeader(ByteBuffer varHeaders, int at, int type, int offset, int count, String name) {
+        varHeaders.putInt(at, type);
+        varHeaders.putInt(at + 4, offset);
+        varHeaders.putInt(at + 8, count);
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            varHeaders.put(at + 16 + i, bytes[i]);
+        }
+    }
+
+}
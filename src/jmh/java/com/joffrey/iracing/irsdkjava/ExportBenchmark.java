@@ -0,0 +1,149 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.export.TelemetryExporter;
+import com.joffrey.iracing.irsdkjava.export.TelemetryExporter.Format;
+import com.joffrey.iracing.irsdkjava.ibt.IbtCursor;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.ibt.IbtWriter;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rows per second exported from an .ibt file: SessionTime, 8 floats and a 4 entries int array per line, written to a stream
+ * that drops the bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportBenchmark {
+
+    private static final int      ROWS   = 36000;
+    private static final String[] FLOATS = {"Speed", "RPM", "Throttle", "Brake", "SteeringWheelAngle", "LatAccel", "LongAccel",
+                                            "FuelLevel"};
+
+    @Param({"CSV", "NDJSON"})
+    private Format format;
+
+    private Path              file;
+    private IbtFile           ibtFile;
+    private IbtCursor         cursor;
+    private TelemetryExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("export", ".ibt");
+        Files.delete(file);
+        writeFile();
+        ibtFile = IbtFile.open(file);
+        cursor = ibtFile.cursor();
+        List<String> varNames = new ArrayList<>(Arrays.asList("SessionTime", "CarIdxLap"));
+        varNames.addAll(Arrays.asList(FLOATS));
+        exporter = new TelemetryExporter(OutputStream.nullOutputStream(), format, varNames);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        exporter.close();
+        ibtFile.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long row() throws IOException {
+        if (!cursor.next()) {
+            cursor.seek(0);
+        }
+        exporter.write(cursor.getFrame());
+        return exporter.getRowCount();
+    }
+
+    private void writeFile() throws IOException {
+        int bufLen = Double.BYTES + (4 * Integer.BYTES) + (FLOATS.length * Float.BYTES);
+        ByteBuffer header = ByteBuffer.allocate(Header.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, 2);
+        header.putInt(8, 60);
+        header.putInt(36, bufLen);
+        ByteBuffer varHeaders = ByteBuffer.allocate((2 + FLOATS.length) * VarHeader.VAR_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        putVarHeader(varHeaders, 0, 5, 0, 1, "SessionTime");
+        putVarHeader(varHeaders, VarHeader.VAR_HEADER_SIZE, 2, 8, 4, "CarIdxLap");
+        for (int i = 0; i < FLOATS.length; i++) {
+            putVarHeader(varHeaders, (2 + i) * VarHeader.VAR_HEADER_SIZE, 4, 24 + (i * Float.BYTES), 1, FLOATS[i]);
+        }
+        ByteBuffer sessionInfo = ByteBuffer.wrap("---\n...\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        ByteBuffer row = ByteBuffer.allocate(bufLen).order(ByteOrder.LITTLE_ENDIAN);
+        try (IbtWriter writer = IbtWriter.create(file, header, varHeaders, sessionInfo)) {
+            for (int i = 0; i < ROWS; i++) {
+                row.clear();
+                row.putDouble(0, i / 60.0);
+                for (int car = 0; car < 4; car++) {
+                    row.putInt(8 + (car * Integer.BYTES), i / 5400);
+                }
+                for (int f = 0; f < FLOATS.length; f++) {
+                    row.putFloat(24 + (f * Float.BYTES), (float) Math.sin(i * 0.001 * (f + 1)) * 100.0F);
+                }
+                writer.write(row);
+            }
+        }
+    }
+
+    private static void putVarHeader(ByteBuffer varHeaders, int at, int type, int offset, int count, String name) {
+        varHeaders.putInt(at, type);
+        varHeaders.putInt(at + 4, offset);
+        varHeaders.putInt(at + 8, count);
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            varHeaders.put(at + 16 + i, bytes[i]);
+        }
+    }
+
+}
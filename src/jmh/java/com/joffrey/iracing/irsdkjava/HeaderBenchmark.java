@@ -0,0 +1,161 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.sun.jna.Memory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * One "tick" is what a service does on each interval: a status check followed by {@code varsPerTick} variable reads.
+ * <p>
+ * Run with {@code ./gradlew jmh}, the gc profiler reports the allocated bytes per tick ({@code gc.alloc.rate.norm}) and the
+ * number of JNA copies per tick is printed at the end of each trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderBenchmark {
+
+    private static final int NUM_BUF = 3;
+    private static final int BUF_LEN = 4096;
+
+    @Param({"1", "30"})
+    private int varsPerTick;
+
+    private CountingMemory memory;
+    private Header         header;
+    private long           ticks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        memory = new CountingMemory(Header.HEADER_SIZE + (NUM_BUF * BUF_LEN));
+        memory.clear();
+        memory.setInt(0, 2);                // ver
+        memory.setInt(4, 1);                // status: connected
+        memory.setInt(8, 60);               // tickRate
+        memory.setInt(32, NUM_BUF);         // numBuf
+        memory.setInt(36, BUF_LEN);         // bufLen
+        for (int i = 0; i < NUM_BUF; i++) {
+            memory.setInt((i * Header.VARBUF_SIZE) + 48, 100 + i);
+            memory.setInt((i * Header.VARBUF_SIZE) + 52, Header.HEADER_SIZE + (i * BUF_LEN));
+        }
+        header = new Header(memory);
+        memory.copies = 0;
+        ticks = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%d vars/tick: %.1f JNA copies per tick%n", varsPerTick, (double) memory.copies / ticks);
+    }
+
+    /**
+     * The read path before {@link HeaderSnapshot}: each var read walks the header again through the getters
+     */
+    @Benchmark
+    public void perGetterHeaderReads(Blackhole blackhole) {
+        ticks++;
+        blackhole.consume((legacyHeaderByteBuffer().getInt(4) & 1) > 0);
+        for (int i = 0; i < varsPerTick; i++) {
+            blackhole.consume(legacyLatestVarByteBuffer().getFloat(i * 4));
+        }
+    }
+
+    @Benchmark
+    public void snapshotPerTick(Blackhole blackhole) {
+        ticks++;
+        HeaderSnapshot snapshot = header.snapshot();
+        blackhole.consume(snapshot.isConnected());
+        for (int i = 0; i < varsPerTick; i++) {
+            blackhole.consume(header.getByteBuffer().getFloat(header.getLatestVarBufOffset(snapshot) + (i * 4)));
+        }
+    }
+
+    private ByteBuffer legacyHeaderByteBuffer() {
+        ByteBuffer headerByteBuffer = ByteBuffer.allocateDirect(Header.HEADER_SIZE);
+        headerByteBuffer.put(memory.getByteArray(0, Header.HEADER_SIZE));
+        headerByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        return headerByteBuffer;
+    }
+
+    private ByteBuffer legacyLatestVarByteBuffer() {
+        int latest = 0;
+        for (int i = 1; i < legacyHeaderByteBuffer().getInt(32); i++) {
+            if (memory.getInt((latest * Header.VARBUF_SIZE) + 48) < memory.getInt((i * Header.VARBUF_SIZE) + 48)) {
+                latest = i;
+            }
+        }
+        ByteBuffer varByteBuffer =
+                ByteBuffer.wrap(memory.getByteArray(memory.getInt((latest * Header.VARBUF_SIZE) + 52),
+                                                    legacyHeaderByteBuffer().getInt(36)));
+        varByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        return varByteBuffer;
+    }
+
+    /**
+     * Counts every read going through JNA
+     */
+    private static class CountingMemory extends Memory {
+
+        private long copies;
+
+        CountingMemory(long size) {
+            super(size);
+        }
+
+        @Override
+        public byte[] getByteArray(long offset, int arraySize) {
+            copies++;
+            return super.getByteArray(offset, arraySize);
+        }
+
+        @Override
+        public int getInt(long offset) {
+            copies++;
+            return super.getInt(offset);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.analytics.LapAggregator;
+import com.joffrey.iracing.irsdkjava.analytics.LapAggregator.Statistic;
+import com.joffrey.iracing.irsdkjava.analytics.LapAnalyzer;
+import com.joffrey.iracing.irsdkjava.analytics.LapStats;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnStore;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnarConverter;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.ibt.IbtIndex;
+import com.joffrey.iracing.irsdkjava.ibt.IbtWriter;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to compute per-lap stats over a synthetic .ibt file of {@code sizeInMb} (2GB by default, {@code -p sizeInMb=256} for a
+ * quick run) with 1 thread and with every core, a near linear scaling shows as a time divided by the number of cores. The
+ * values are read from the rows of the file or from its {@link ColumnStore} columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LapAnalyzerBenchmark {
+
+    private static final int BUF_LEN  = 4096;
+    // A 90s lap at 60 ticks per second
+    private static final int LAP_ROWS = 5400;
+
+    @Param({"2048"})
+    private int sizeInMb;
+
+    // 0 for every core
+    @Param({"1", "0"})
+    private int threads;
+
+    private Path         file;
+    private IbtFile      ibtFile;
+    private Path         directory;
+    private ColumnStore  columnStore;
+    private ForkJoinPool pool;
+    private LapAnalyzer  lapAnalyzer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("laps", ".ibt");
+        Files.delete(file);
+        writeFile();
+        ibtFile = IbtFile.open(file);
+        ibtFile.getIndex();
+        directory = Files.createTempDirectory("laps");
+        columnStore = new ColumnarConverter().convert(ibtFile, directory);
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        lapAnalyzer = new LapAnalyzer(pool, LapAnalyzer.DEFAULT_SPLIT_ROWS)
+                .register(LapAggregator.of("MinSpeed", "Speed", Statistic.MIN))
+                .register(LapAggregator.of("MaxSpeed", "Speed", Statistic.MAX))
+                .register(LapAggregator.of("FuelUsed", "FuelLevel", Statistic.USED))
+                .register(LapAggregator.of("AverageThrottle", "Throttle", Statistic.AVERAGE))
+                .register(LapAggregator.of("AverageLFtempCM", "LFtempCM", Statistic.AVERAGE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        ibtFile.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Paths.get(file + IbtIndex.FILE_EXTENSION));
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public List<LapStats> analyze() {
+        return lapAnalyzer.analyze(ibtFile);
+    }
+
+    @Benchmark
+    public List<LapStats> analyzeColumns() throws IOException {
+        return lapAnalyzer.analyze(ibtFile, columnStore);
+    }
+
+    /**
+     * SessionTime, SessionNum, Lap, then Speed, FuelLevel, Throttle and LFtempCM, the rest of the row is padding
+     */
+    private void writeFile() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Header.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, 2);
+        header.putInt(8, 60);
+        header.putInt(36, BUF_LEN);
+        String[] floats = {"Speed", "FuelLevel", "Throttle", "LFtempCM"};
+        ByteBuffer varHeaders = ByteBuffer.allocate((3 + floats.length) * VarHeader.VAR_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        putVarHeader(varHeaders, 0, 5, 0, "SessionTime");
+        putVarHeader(varHeaders, VarHeader.VAR_HEADER_SIZE, 2, 8, "SessionNum");
+        putVarHeader(varHeaders, 2 * VarHeader.VAR_HEADER_SIZE, 2, 12, "Lap");
+        for (int i = 0; i < floats.length; i++) {
+            putVarHeader(varHeaders, (3 + i) * VarHeader.VAR_HEADER_SIZE, 4, 16 + (i * Float.BYTES), floats[i]);
+        }
+        ByteBuffer sessionInfo = ByteBuffer.wrap("---\n...\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        long rows = ((long) sizeInMb << 20) / BUF_LEN;
+        ByteBuffer row = ByteBuffer.allocate(BUF_LEN).order(ByteOrder.LITTLE_ENDIAN);
+        try (IbtWriter writer = IbtWriter.create(file, header, varHeaders, sessionInfo)) {
+            for (int i = 0; i < rows; i++) {
+                row.clear();
+                row.putDouble(0, i / 60.0);
+                row.putInt(12, i / LAP_ROWS);
+                row.putFloat(16, 50.0F + (i % 200));
+                row.putFloat(20, 100.0F - (i / 1000.0F));
+                row.putFloat(24, (i % 60) / 60.0F);
+                row.putFloat(28, 80.0F + (i % 7));
+                writer.write(row);
+            }
+        }
+    }
+
+    private static void putVarHeader(ByteBuffer varHeaders, int at, int type, int offset, String name) {
+        varHeaders.putInt(at, type);
+        varHeaders.putInt(at + 4, offset);
+        varHeaders.putInt(at + 8, 1);
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            varHeaders.put(at + 16 + i, bytes[i]);
+        }
+    }
+
+}
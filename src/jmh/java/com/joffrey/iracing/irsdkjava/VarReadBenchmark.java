@@ -0,0 +1,109 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.sun.jna.Memory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One tick of {@code LapTimingService}: 8 per-car variables read for each of the 64 cars, either copying the var buffer on
+ * every read or reading straight from the mapped view.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarReadBenchmark {
+
+    private static final int NUM_BUF  = 3;
+    private static final int NUM_VARS = 8;
+    private static final int NUM_CARS = 64;
+
+    @Param({"4096", "16384"})
+    private int bufLen;
+
+    private Header header;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Memory memory = new Memory(Header.HEADER_SIZE + ((long) NUM_BUF * bufLen));
+        memory.clear();
+        memory.setInt(4, 1);                // status: connected
+        memory.setInt(32, NUM_BUF);         // numBuf
+        memory.setInt(36, bufLen);          // bufLen
+        for (int i = 0; i < NUM_BUF; i++) {
+            memory.setInt((i * Header.VARBUF_SIZE) + 48, 100 + i);
+            memory.setInt((i * Header.VARBUF_SIZE) + 52, Header.HEADER_SIZE + (i * bufLen));
+        }
+        header = new Header(memory);
+    }
+
+    @Benchmark
+    public float copyPerRead() {
+        HeaderSnapshot snapshot = header.snapshot();
+        float sum = 0;
+        for (int var = 0; var < NUM_VARS; var++) {
+            for (int carIdx = 0; carIdx < NUM_CARS; carIdx++) {
+                sum += header.getLatestVarByteBuffer(snapshot).getFloat(offsetOf(var, carIdx));
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float mappedView() {
+        HeaderSnapshot snapshot = header.snapshot();
+        ByteBuffer view = header.getByteBuffer();
+        int base = header.getLatestVarBufOffset(snapshot);
+        float sum = 0;
+        for (int var = 0; var < NUM_VARS; var++) {
+            for (int carIdx = 0; carIdx < NUM_CARS; carIdx++) {
+                sum += view.getFloat(base + offsetOf(var, carIdx));
+            }
+        }
+        return sum;
+    }
+
+    private static int offsetOf(int var, int carIdx) {
+        return (var * NUM_CARS + carIdx) * 4;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Connection time spent on the var header table: parsing every var header then resolving the names used by the services.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarTableBenchmark {
+
+    @Param({"300"})
+    private int numVars;
+
+    private ByteBuffer memory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        memory = ByteBuffer.allocateDirect(Header.HEADER_SIZE + (numVars * VarHeader.VAR_HEADER_SIZE))
+                           .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < numVars; i++) {
+            int at = Header.HEADER_SIZE + (i * VarHeader.VAR_HEADER_SIZE);
+            memory.putInt(at + 8, 1);
+            byte[] name = ("CarIdxVar" + i).getBytes(StandardCharsets.US_ASCII);
+            for (int c = 0; c < name.length; c++) {
+                memory.put(at + 16 + c, name[c]);
+            }
+        }
+    }
+
+    /**
+     * The parsing before {@link VarTable}: one copy and three regex cleaned strings per var header, kept in a map
+     */
+    @Benchmark
+    public int perVarHeaderCopy() {
+        Map<String, VarHeader> vars = new HashMap<>();
+        for (int i = 0; i < numVars; i++) {
+            ByteBuffer entry = memory.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            byte[] localBuffer = new byte[VarHeader.VAR_HEADER_SIZE];
+            entry.position(Header.HEADER_SIZE + (i * VarHeader.VAR_HEADER_SIZE));
+            entry.get(localBuffer);
+            VarHeader vh = new VarHeader();
+            vh.setName(new String(localBuffer, 16, 32).replaceAll("[\000]", ""));
+            vh.setDesc(new String(localBuffer, 48, 64).replaceAll("[\000]", ""));
+            vh.setUnit(new String(localBuffer, 112, 32).replaceAll("[\000]", ""));
+            vars.put(vh.getName(), vh);
+        }
+        return vars.size();
+    }
+
+    @Benchmark
+    public int bulkVarTable() {
+        return VarTable.parse(memory, Header.HEADER_SIZE, numVars).size();
+    }
+
+}
@@ -25,17 +25,26 @@ package com.joffrey.iracing.irsdkjava;
 
 import com.joffrey.iracing.irsdkjava.camera.CameraService;
 import com.joffrey.iracing.irsdkjava.camera.model.CameraPacket;
+import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
 import com.joffrey.iracing.irsdkjava.laptiming.LapTimingService;
 import com.joffrey.iracing.irsdkjava.laptiming.model.LapTimingData;
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.ReaderStats;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
 import com.joffrey.iracing.irsdkjava.model.defines.BroadcastMsg;
 import com.joffrey.iracing.irsdkjava.model.defines.Constant;
 import com.joffrey.iracing.irsdkjava.raceinfo.RaceInfoService;
 import com.joffrey.iracing.irsdkjava.raceinfo.model.RaceInfo;
 import com.joffrey.iracing.irsdkjava.telemetry.TelemetryService;
 import com.joffrey.iracing.irsdkjava.telemetry.model.TelemetryData;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.trackmaptracker.TrackmapTrackerService;
 import com.joffrey.iracing.irsdkjava.trackmaptracker.model.TrackmapTrackerDriver;
 import com.joffrey.iracing.irsdkjava.windows.WindowsService;
+import java.time.Duration;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -50,6 +59,10 @@ public class IRacingLibrary {
     private final TelemetryService       telemetryService;
     private final TrackmapTrackerService trackmapTrackerService;
     private final CameraService          cameraService;
+    private final TickSource             tickSource;
+    private final SdkStarter             sdkStarter;
+    private final FrameHistory           frameHistory;
+    private final FluxProperties         fluxProperties;
     private final WindowsService         windowsService;
 
     // Flux
@@ -73,6 +86,29 @@ public class IRacingLibrary {
         return cameraService.getCameraPacketFlux();
     }
 
+    public Flux<TelemetryFrame> getTelemetryFrames() {
+        return tickSource.getFrameFlux();
+    }
+
+    public Flux<VarTable> getVarTables() {
+        return sdkStarter.getVarTableFlux();
+    }
+
+    public Flux<ConnectionState> getConnectionStates() {
+        return sdkStarter.getConnectionStateFlux();
+    }
+
+    public Flux<ReaderStats> getReaderStats() {
+        return sdkStarter.getReaderStatsFlux(Duration.ofMillis(fluxProperties.getReaderStatsIntervalInMs()));
+    }
+
+    /**
+     * @return the last frames of the sim, read them by tick, session time or as columns of values
+     */
+    public FrameHistory getFrameHistory() {
+        return frameHistory;
+    }
+
     // Broadcast
     public void broadcastMsg(BroadcastMsg msg, int var1, int var2, int var3) {
         broadcastMsg(msg, var1, windowsService.MAKELONG(var2, var3));
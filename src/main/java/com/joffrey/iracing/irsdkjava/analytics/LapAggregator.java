@@ -0,0 +1,68 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.analytics;
+
+import lombok.Value;
+
+/**
+ * One value computed for each lap by a {@link LapAnalyzer}, from one entry of a numeric var
+ */
+@Value
+public class LapAggregator {
+
+    public enum Statistic {
+        MIN,
+        MAX,
+        AVERAGE,
+        FIRST,
+        LAST,
+        /**
+         * First minus last value of the lap, the fuel used from FuelLevel, ...
+         */
+        USED,
+        /**
+         * Last minus first value of the lap
+         */
+        DELTA
+    }
+
+    /**
+     * Key of the value in {@link LapStats#getValues()}
+     */
+    String    name;
+    String    varName;
+    int       entry;
+    Statistic statistic;
+
+    public static LapAggregator of(String name, String varName, Statistic statistic) {
+        return of(name, varName, 0, statistic);
+    }
+
+    /**
+     * @param entry the array index, 0 for a scalar
+     */
+    public static LapAggregator of(String name, String varName, int entry, Statistic statistic) {
+        return new LapAggregator(name, varName, entry, statistic);
+    }
+
+}
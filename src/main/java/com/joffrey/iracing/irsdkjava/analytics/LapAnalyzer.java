@@ -0,0 +1,397 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.analytics;
+
+import com.joffrey.iracing.irsdkjava.columnar.ColumnSchema.ColumnInfo;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnStore;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.ibt.IbtLap;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the registered {@link LapAggregator}s for each lap of .ibt files.
+ * <p>
+ * The laps come from the {@link IbtFile#getIndex() index} of each file. Every lap is a fork/join task, split in halves while it
+ * has more than {@code splitRows} rows, each task goes over its rows one aggregator at a time and the halves are merged in row
+ * order. Files, laps and halves all run in the same pool. Values are read straight from the mapped rows of the file, or from
+ * the contiguous columns of a {@link ColumnStore} converted from it.
+ * <pre>
+ * List&lt;LapStats&gt; laps = new LapAnalyzer().register(LapAggregator.of("MaxSpeed", "Speed", Statistic.MAX))
+ *                                           .register(LapAggregator.of("FuelUsed", "FuelLevel", Statistic.USED))
+ *                                           .analyze(ibtFile);
+ * </pre>
+ */
+public class LapAnalyzer {
+
+    public static final int DEFAULT_SPLIT_ROWS = 4096;
+
+    private final ForkJoinPool        pool;
+    private final int                 splitRows;
+    private final List<LapAggregator> aggregators = new ArrayList<>();
+
+    public LapAnalyzer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_ROWS);
+    }
+
+    /**
+     * @param pool      runs the files, laps and rows in parallel
+     * @param splitRows rows above which a task is split in two
+     */
+    public LapAnalyzer(ForkJoinPool pool, int splitRows) {
+        if (splitRows <= 0) {
+            throw new IllegalArgumentException("Invalid split size " + splitRows);
+        }
+        this.pool = pool;
+        this.splitRows = splitRows;
+    }
+
+    /**
+     * Compute one more value for each lap, to be called before analyzing
+     */
+    public LapAnalyzer register(LapAggregator aggregator) {
+        aggregators.add(aggregator);
+        return this;
+    }
+
+    /**
+     * @return stats of each lap of the file, in row order
+     */
+    public List<LapStats> analyze(IbtFile ibtFile) {
+        return pool.invoke(new FileTask(new Columns(ibtFile, aggregators, null)));
+    }
+
+    /**
+     * Same as {@link #analyze(IbtFile)}, the values read from the columns of the file converted by
+     * {@link com.joffrey.iracing.irsdkjava.columnar.ColumnarConverter}
+     *
+     * @return stats of each lap of the file, in row order
+     */
+    public List<LapStats> analyze(IbtFile ibtFile, ColumnStore columnStore) throws IOException {
+        if (columnStore.getRowCount() != ibtFile.getRowCount()) {
+            throw new IllegalArgumentException("Column store of " + columnStore.getRowCount() + " rows for "
+                                               + ibtFile.getRowCount() + " rows in " + ibtFile.getPath());
+        }
+        return pool.invoke(new FileTask(new Columns(ibtFile, aggregators, mapColumns(ibtFile, columnStore))));
+    }
+
+    /**
+     * @return stats of each lap of each file, by path of the file in the order of the list
+     */
+    public Map<Path, List<LapStats>> analyze(List<IbtFile> ibtFiles) {
+        List<FileTask> tasks = new ArrayList<>(ibtFiles.size());
+        for (IbtFile ibtFile : ibtFiles) {
+            tasks.add(new FileTask(new Columns(ibtFile, aggregators, null)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        Map<Path, List<LapStats>> stats = new LinkedHashMap<>();
+        for (int i = 0; i < ibtFiles.size(); i++) {
+            stats.put(ibtFiles.get(i).getPath(), tasks.get(i).join());
+        }
+        return stats;
+    }
+
+    /**
+     * @return the column entry of each aggregator, null for a var the converter skipped or the store doesn't have
+     */
+    private ByteBuffer[] mapColumns(IbtFile ibtFile, ColumnStore columnStore) throws IOException {
+        ByteBuffer[] stored = new ByteBuffer[aggregators.size()];
+        for (int i = 0; i < stored.length; i++) {
+            VarHeader varHeader = ibtFile.getVarTable().get(aggregators.get(i).getVarName());
+            ColumnInfo columnInfo = varHeader != null ? columnStore.getColumn(varHeader.getName()) : null;
+            int entry = aggregators.get(i).getEntry();
+            if (columnInfo != null && columnInfo.getType() == varHeader.getType() && entry >= 0
+                && entry < columnInfo.getCount()) {
+                stored[i] = columnStore.getValues(varHeader.getName(), entry);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * The aggregators bound to the var headers of one file, or to the columns converted from it
+     */
+    private static final class Columns {
+
+        private final IbtFile         ibtFile;
+        private final LapAggregator[] aggregators;
+        private final VarType[]       types;
+        private final int[]           offsets;
+        private final ByteBuffer[]    stored;
+        private final DoubleVar       sessionTime;
+
+        /**
+         * @param stored column entry of each aggregator, null to read the values from the rows of the file
+         */
+        private Columns(IbtFile ibtFile, List<LapAggregator> aggregators, ByteBuffer[] stored) {
+            this.ibtFile = ibtFile;
+            this.aggregators = aggregators.toArray(new LapAggregator[0]);
+            this.types = new VarType[this.aggregators.length];
+            this.offsets = new int[this.aggregators.length];
+            this.stored = stored;
+            this.sessionTime = ibtFile.doubleVar("SessionTime");
+            for (int i = 0; i < this.aggregators.length; i++) {
+                VarHeader varHeader = ibtFile.getVarTable().get(this.aggregators[i].getVarName());
+                int entry = this.aggregators[i].getEntry();
+                types[i] = varHeader != null ? VarType.get(varHeader.getType()) : null;
+                offsets[i] = -1;
+                if (types[i] != null && types[i] != VarType.irsdk_ETCount && entry >= 0 && entry < varHeader.getCount()) {
+                    offsets[i] = varHeader.getOffset() + (entry * getTypeBytes(types[i]));
+                }
+                if (stored != null && stored[i] == null) {
+                    offsets[i] = -1;
+                }
+            }
+        }
+
+        /**
+         * Add the values of one aggregator from firstRow to endRow excluded
+         */
+        private void accumulate(Accumulator accumulator, int index, int firstRow, int endRow) {
+            VarType type = types[index];
+            if (stored != null) {
+                ByteBuffer column = stored[index];
+                int size = getTypeBytes(type);
+                accumulator.first[index] = read(column, firstRow * size, type);
+                for (int row = firstRow; row < endRow; row++) {
+                    accumulator.add(index, read(column, row * size, type));
+                }
+            } else {
+                int offset = offsets[index];
+                accumulator.first[index] = read(ibtFile.getRowWindow(firstRow), ibtFile.getRowPosition(firstRow) + offset, type);
+                for (int row = firstRow; row < endRow; row++) {
+                    accumulator.add(index, read(ibtFile.getRowWindow(row), ibtFile.getRowPosition(row) + offset, type));
+                }
+            }
+        }
+
+        private static double read(ByteBuffer buffer, int position, VarType type) {
+            switch (type) {
+                case irsdk_double:
+                    return buffer.getDouble(position);
+                case irsdk_float:
+                    return buffer.getFloat(position);
+                case irsdk_int:
+                case irsdk_bitField:
+                    return buffer.getInt(position);
+                default:
+                    return buffer.get(position);
+            }
+        }
+
+        private static int getTypeBytes(VarType type) {
+            switch (type) {
+                case irsdk_double:
+                    return Double.BYTES;
+                case irsdk_int:
+                case irsdk_bitField:
+                case irsdk_float:
+                    return Integer.BYTES;
+                default:
+                    return Byte.BYTES;
+            }
+        }
+    }
+
+    /**
+     * Running values of each aggregator over consecutive rows
+     */
+    private static final class Accumulator {
+
+        private final double[] min;
+        private final double[] max;
+        private final double[] sum;
+        private final double[] first;
+        private final double[] last;
+        private       int      count;
+
+        private Accumulator(int size) {
+            min = new double[size];
+            max = new double[size];
+            sum = new double[size];
+            first = new double[size];
+            last = new double[size];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        /**
+         * Add the next value of one aggregator, {@link #first} is set by the caller
+         */
+        private void add(int index, double value) {
+            min[index] = Math.min(min[index], value);
+            max[index] = Math.max(max[index], value);
+            sum[index] += value;
+            last[index] = value;
+        }
+
+        /**
+         * @param next the rows right after the rows of this accumulator
+         */
+        private Accumulator merge(Accumulator next) {
+            if (next.count == 0) {
+                return this;
+            }
+            for (int i = 0; i < min.length; i++) {
+                min[i] = Math.min(min[i], next.min[i]);
+                max[i] = Math.max(max[i], next.max[i]);
+                sum[i] += next.sum[i];
+                if (count == 0) {
+                    first[i] = next.first[i];
+                }
+                last[i] = next.last[i];
+            }
+            count += next.count;
+            return this;
+        }
+
+        private double get(int index, LapAggregator.Statistic statistic) {
+            switch (statistic) {
+                case MIN:
+                    return min[index];
+                case MAX:
+                    return max[index];
+                case AVERAGE:
+                    return sum[index] / count;
+                case FIRST:
+                    return first[index];
+                case LAST:
+                    return last[index];
+                case USED:
+                    return first[index] - last[index];
+                case DELTA:
+                default:
+                    return last[index] - first[index];
+            }
+        }
+    }
+
+    /**
+     * Every lap of one file
+     */
+    private final class FileTask extends RecursiveTask<List<LapStats>> {
+
+        private final Columns columns;
+
+        private FileTask(Columns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        protected List<LapStats> compute() {
+            List<IbtLap> laps = columns.ibtFile.getIndex().getLaps();
+            List<RowsTask> tasks = new ArrayList<>(laps.size());
+            for (IbtLap lap : laps) {
+                tasks.add(new RowsTask(columns, lap.getFirstRow(), lap.getEndRow()));
+            }
+            invokeAll(tasks);
+            List<LapStats> stats = new ArrayList<>(laps.size());
+            for (int i = 0; i < laps.size(); i++) {
+                stats.add(toLapStats(laps.get(i), tasks.get(i).join()));
+            }
+            return stats;
+        }
+
+        private LapStats toLapStats(IbtLap lap, Accumulator accumulator) {
+            Map<String, Double> values = new HashMap<>();
+            for (int i = 0; i < columns.aggregators.length; i++) {
+                boolean valid = columns.offsets[i] >= 0 && accumulator.count > 0;
+                values.put(columns.aggregators[i].getName(),
+                           valid ? accumulator.get(i, columns.aggregators[i].getStatistic()) : Double.NaN);
+            }
+            return new LapStats(lap.getSessionNum(), lap.getLap(), lap.getFirstRow(), lap.getRowCount(), getLapTime(lap), values);
+        }
+
+        /**
+         * Up to the first row of the next lap, or one tick after the last row of the file
+         */
+        private double getLapTime(IbtLap lap) {
+            IbtFile ibtFile = columns.ibtFile;
+            double tickPeriod = 1.0 / Math.max(1, ibtFile.getHeader().getTickRate());
+            if (!columns.sessionTime.isBound()) {
+                return lap.getRowCount() * tickPeriod;
+            }
+            double start = ibtFile.getRow(lap.getFirstRow()).getVarDouble(columns.sessionTime);
+            if (lap.getEndRow() < ibtFile.getRowCount()) {
+                double end = ibtFile.getRow(lap.getEndRow()).getVarDouble(columns.sessionTime);
+                // The session time starts again in the next session
+                if (end >= start) {
+                    return end - start;
+                }
+            }
+            return ibtFile.getRow(lap.getEndRow() - 1).getVarDouble(columns.sessionTime) - start + tickPeriod;
+        }
+    }
+
+    /**
+     * Rows of one lap, split in halves down to {@code splitRows}
+     */
+    private final class RowsTask extends RecursiveTask<Accumulator> {
+
+        private final Columns columns;
+        private final int     firstRow;
+        private final int     endRow;
+
+        private RowsTask(Columns columns, int firstRow, int endRow) {
+            this.columns = columns;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (endRow - firstRow > splitRows) {
+                int middle = (firstRow + endRow) >>> 1;
+                RowsTask right = new RowsTask(columns, middle, endRow);
+                right.fork();
+                Accumulator left = new RowsTask(columns, firstRow, middle).compute();
+                return left.merge(right.join());
+            }
+            Accumulator accumulator = new Accumulator(columns.aggregators.length);
+            if (endRow > firstRow) {
+                // One aggregator at a time, each goes over a single column of the rows
+                for (int i = 0; i < columns.aggregators.length; i++) {
+                    if (columns.offsets[i] >= 0) {
+                        columns.accumulate(accumulator, i, firstRow, endRow);
+                    }
+                }
+                accumulator.count = endRow - firstRow;
+            }
+            return accumulator;
+        }
+    }
+
+}
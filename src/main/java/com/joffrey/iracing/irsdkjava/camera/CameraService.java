@@ -26,6 +26,7 @@ package com.joffrey.iracing.irsdkjava.camera;
 import com.joffrey.iracing.irsdkjava.camera.model.CameraPacket;
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import java.time.Duration;
 import org.springframework.stereotype.Service;
@@ -37,17 +38,19 @@ public class CameraService {
 
     private final FluxProperties fluxProperties;
     private final SdkStarter     sdkStarter;
+    private final TickSource     tickSource;
     private final YamlService    yamlService;
 
     private final Flux<CameraPacket> cameraPacketFlux;
 
-    public CameraService(FluxProperties fluxProperties, SdkStarter sdkStarter, YamlService yamlService) {
+    public CameraService(FluxProperties fluxProperties, SdkStarter sdkStarter, TickSource tickSource, YamlService yamlService) {
         this.fluxProperties = fluxProperties;
         this.sdkStarter = sdkStarter;
+        this.tickSource = tickSource;
         this.yamlService = yamlService;
         this.cameraPacketFlux =
-                Flux.interval(Duration.ofMillis(fluxProperties.getCameraIntervalInMs())).filter(aLong -> sdkStarter.isRunning())
-                    .flatMap(aLong -> loadCameraData());
+                tickSource.getFrameFlux(Duration.ofMillis(fluxProperties.getCameraIntervalInMs()))
+                    .flatMap(frame -> loadCameraData());
     }
 
     public Flux<CameraPacket> getCameraPacketFlux() {
@@ -0,0 +1,66 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.catalog;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * What the catalog keeps of one .ibt file: the disk header and a few fields of the session info
+ */
+@Value
+public class CatalogEntry {
+
+    public static final double NO_LAP_TIME = -1.0;
+
+    Path         path;
+    long         fileSize;
+    long         lastModified;
+    Instant      sessionStartDate;
+    int          recordCount;
+    int          lapCount;
+    /**
+     * Session time from the first to the last row, in seconds
+     */
+    double       duration;
+    String       trackName;
+    String       trackDisplayName;
+    String       driverName;
+    String       carName;
+    String       carClass;
+    /**
+     * Type of each session of the event (Practice, Qualify, Race, ...)
+     */
+    List<String> sessionTypes;
+    /**
+     * Fastest lap of the driver in the results of the sessions, {@link #NO_LAP_TIME} without results
+     */
+    double       bestLapTime;
+
+    public boolean hasBestLapTime() {
+        return bestLapTime > 0;
+    }
+
+}
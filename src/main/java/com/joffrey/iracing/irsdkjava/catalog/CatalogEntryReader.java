@@ -0,0 +1,215 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.catalog;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.joffrey.iracing.irsdkjava.ibt.IbtDiskHeader;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a {@link CatalogEntry} from the header of an .ibt file, the rows are never mapped.
+ * <p>
+ * The session info is streamed token by token and only the few fields of the catalog are kept, the other sections are skipped
+ * without building any object.
+ */
+final class CatalogEntryReader {
+
+    private static final YAMLFactory YAML_FACTORY = new YAMLFactory();
+
+    private final Map<String, String> driverNames      = new HashMap<>();
+    private final Map<String, String> carNames         = new HashMap<>();
+    private final Map<String, String> carClasses       = new HashMap<>();
+    private final List<String>        sessionTypes     = new ArrayList<>();
+    // Fastest time of each car over every session result
+    private final Map<String, Double> fastestTimes     = new HashMap<>();
+
+    private String trackName        = "";
+    private String trackDisplayName = "";
+    private String driverCarIdx     = "";
+
+    private CatalogEntryReader() {
+    }
+
+    static CatalogEntry read(Path path, long fileSize, long lastModified) throws IOException {
+        try (IbtFile ibtFile = IbtFile.open(path)) {
+            CatalogEntryReader reader = new CatalogEntryReader();
+            String sessionInfo = ibtFile.getSessionInfo();
+            int end = sessionInfo.indexOf("...");
+            reader.readSessionInfo(end < 0 ? sessionInfo : sessionInfo.substring(0, end + 3));
+
+            IbtDiskHeader diskHeader = ibtFile.getDiskHeader();
+            return new CatalogEntry(path, fileSize, lastModified, diskHeader.getSessionStartDate(), ibtFile.getRowCount(),
+                                    diskHeader.getSessionLapCount(),
+                                    Math.max(0, diskHeader.getSessionEndTime() - diskHeader.getSessionStartTime()),
+                                    reader.trackName, reader.trackDisplayName,
+                                    reader.driverNames.getOrDefault(reader.driverCarIdx, ""),
+                                    reader.carNames.getOrDefault(reader.driverCarIdx, ""),
+                                    reader.carClasses.getOrDefault(reader.driverCarIdx, ""), reader.sessionTypes,
+                                    reader.fastestTimes.getOrDefault(reader.driverCarIdx, CatalogEntry.NO_LAP_TIME));
+        }
+    }
+
+    private void readSessionInfo(String yaml) throws IOException {
+        try (JsonParser parser = YAML_FACTORY.createParser(yaml)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.getCurrentName();
+                parser.nextToken();
+                if ("WeekendInfo".equals(section)) {
+                    readWeekendInfo(parser);
+                } else if ("DriverInfo".equals(section)) {
+                    readDriverInfo(parser);
+                } else if ("SessionInfo".equals(section)) {
+                    readSessionInfo(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void readWeekendInfo(JsonParser parser) throws IOException {
+        Map<String, String> fields = readScalars(parser);
+        trackName = fields.getOrDefault("TrackName", "");
+        trackDisplayName = fields.getOrDefault("TrackDisplayName", "");
+    }
+
+    private void readDriverInfo(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("DriverCarIdx".equals(field)) {
+                driverCarIdx = parser.getValueAsString("");
+            } else if ("Drivers".equals(field)) {
+                for (Map<String, String> driver : readObjects(parser)) {
+                    String carIdx = driver.getOrDefault("CarIdx", "");
+                    driverNames.put(carIdx, driver.getOrDefault("UserName", ""));
+                    carNames.put(carIdx, driver.getOrDefault("CarScreenName", ""));
+                    carClasses.put(carIdx, driver.getOrDefault("CarClassShortName", ""));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readSessionInfo(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (!"Sessions".equals(field) || parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                readSession(parser);
+            }
+        }
+    }
+
+    private void readSession(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("SessionType".equals(field)) {
+                sessionTypes.add(parser.getValueAsString(""));
+            } else if ("ResultsPositions".equals(field)) {
+                for (Map<String, String> position : readObjects(parser)) {
+                    double time = parseTime(position.get("FastestTime"));
+                    if (time > 0) {
+                        fastestTimes.merge(position.getOrDefault("CarIdx", ""), time, Math::min);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * @return the scalar fields of the object at the current token, nested values are skipped
+     */
+    private static Map<String, String> readScalars(JsonParser parser) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return fields;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken().isScalarValue()) {
+                fields.put(field, parser.getValueAsString(""));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @return the scalar fields of each object of the array at the current token, empty if it's not an array
+     */
+    private static List<Map<String, String>> readObjects(JsonParser parser) throws IOException {
+        List<Map<String, String>> objects = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return objects;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                objects.add(readScalars(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return objects;
+    }
+
+    private static double parseTime(String value) {
+        try {
+            return value != null ? Double.parseDouble(value) : CatalogEntry.NO_LAP_TIME;
+        } catch (NumberFormatException e) {
+            return CatalogEntry.NO_LAP_TIME;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.catalog;
+
+import com.joffrey.iracing.irsdkjava.config.CatalogProperties;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * The {@link RecordingCatalog} of irsdkjava.config.catalog.directory, scanned once on a background thread at startup then on
+ * each call to {@link #scan()}.
+ * <pre>
+ * catalogService.find(entry -&gt; entry.getTrackName().startsWith("spa") &amp;&amp; entry.getCarClass().contains("GT3"));
+ * </pre>
+ */
+@Slf4j
+@Service
+public class CatalogService {
+
+    private final RecordingCatalog catalog;
+
+    public CatalogService(CatalogProperties catalogProperties) {
+        if (catalogProperties.getDirectory() == null || catalogProperties.getDirectory().isEmpty()) {
+            this.catalog = null;
+            return;
+        }
+        Path directory = Paths.get(catalogProperties.getDirectory());
+        Path file = catalogProperties.getFile() != null && !catalogProperties.getFile().isEmpty()
+                    ? Paths.get(catalogProperties.getFile()) : directory.resolve(RecordingCatalog.DEFAULT_FILE_NAME);
+        this.catalog = new RecordingCatalog(directory, file, ForkJoinPool.commonPool());
+        Thread thread = new Thread(this::scanQuietly, "irsdkjava-catalog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Read the files added or changed since the last scan
+     *
+     * @return number of files read, 0 when no directory is set
+     */
+    public int scan() throws IOException {
+        return catalog != null ? catalog.scan() : 0;
+    }
+
+    public List<CatalogEntry> getEntries() {
+        return catalog != null ? catalog.getEntries() : Collections.emptyList();
+    }
+
+    public List<CatalogEntry> find(Predicate<CatalogEntry> filter) {
+        return catalog != null ? catalog.find(filter) : Collections.emptyList();
+    }
+
+    private void scanQuietly() {
+        try {
+            int read = catalog.scan();
+            log.info("Catalog of {}: {} files, {} read", catalog.getDirectory(), catalog.getEntries().size(), read);
+        } catch (IOException e) {
+            log.warn("Can't scan {}: {}", catalog.getDirectory(), e.getMessage());
+        }
+    }
+
+}
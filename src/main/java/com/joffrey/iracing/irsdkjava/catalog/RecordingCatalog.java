@@ -0,0 +1,246 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catalog of the .ibt files of a directory tree, answered from memory and kept in one compact file.
+ * <p>
+ * {@link #scan()} walks the tree and only reads the files added or changed since the last scan (size and modification time),
+ * in parallel, each one from its header and session info. The catalog file is written again after each scan that changed
+ * something and loaded back on creation, so a restart only reads the new files.
+ */
+@Slf4j
+public class RecordingCatalog {
+
+    public static final String DEFAULT_FILE_NAME = ".irsdkjava-catalog";
+
+    private static final int MAGIC   = 0x49424343; // IBCC
+    private static final int VERSION = 1;
+
+    private final Path         directory;
+    private final Path         file;
+    private final ForkJoinPool pool;
+
+    private volatile List<CatalogEntry> entries = Collections.emptyList();
+
+    public RecordingCatalog(Path directory) {
+        this(directory, directory.resolve(DEFAULT_FILE_NAME), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param directory root of the .ibt files
+     * @param file      the catalog file, loaded if it exists
+     * @param pool      reads the changed files in parallel
+     */
+    public RecordingCatalog(Path directory, Path file, ForkJoinPool pool) {
+        this.directory = directory;
+        this.file = file;
+        this.pool = pool;
+        if (Files.isReadable(file)) {
+            try {
+                entries = load();
+            } catch (IOException e) {
+                log.warn("Can't read catalog {}, every file will be read again: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Add the new and changed files, drop the deleted ones
+     *
+     * @return number of files read
+     */
+    public synchronized int scan() throws IOException {
+        Map<Path, CatalogEntry> known = new HashMap<>();
+        for (CatalogEntry entry : entries) {
+            known.put(entry.getPath(), entry);
+        }
+        List<CatalogEntry> scanned = new ArrayList<>();
+        List<ForkJoinTask<CatalogEntry>> tasks = new ArrayList<>();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(path -> path.toString().endsWith(".ibt")).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Path path : files) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                continue;
+            }
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            CatalogEntry entry = known.get(path);
+            if (entry != null && entry.getFileSize() == size && entry.getLastModified() == lastModified) {
+                scanned.add(entry);
+            } else {
+                tasks.add(pool.submit(() -> readEntry(path, size, lastModified)));
+            }
+        }
+        for (ForkJoinTask<CatalogEntry> task : tasks) {
+            CatalogEntry entry = task.join();
+            if (entry != null) {
+                scanned.add(entry);
+            }
+        }
+        scanned.sort(Comparator.comparing(CatalogEntry::getSessionStartDate).thenComparing(CatalogEntry::getPath));
+        boolean changed = !tasks.isEmpty() || scanned.size() != entries.size();
+        entries = Collections.unmodifiableList(scanned);
+        if (changed) {
+            save();
+        }
+        log.debug("Catalog of {}: {} files, {} read", directory, scanned.size(), tasks.size());
+        return tasks.size();
+    }
+
+    /**
+     * @return every file of the last scan, by session start date
+     */
+    public List<CatalogEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the files matching the filter, by session start date
+     */
+    public List<CatalogEntry> find(Predicate<CatalogEntry> filter) {
+        return entries.stream().filter(filter).collect(Collectors.toList());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the entry, null if the file can't be read (a recording in progress, ...)
+     */
+    private static CatalogEntry readEntry(Path path, long size, long lastModified) {
+        try {
+            return CatalogEntryReader.read(path, size, lastModified);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Can't catalog {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<CatalogEntry> load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown catalog version");
+            }
+            int size = in.readInt();
+            List<CatalogEntry> loaded = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                loaded.add(readEntry(in));
+            }
+            return Collections.unmodifiableList(loaded);
+        }
+    }
+
+    /**
+     * Written next to the catalog file then moved over it, a crash never leaves a partial catalog
+     */
+    private void save() {
+        Path saving = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(saving)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (CatalogEntry entry : entries) {
+                    writeEntry(out, entry);
+                }
+            }
+            Files.move(saving, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Can't save catalog {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, CatalogEntry entry) throws IOException {
+        // Relative so the tree can be moved with its catalog
+        out.writeUTF(directory.relativize(entry.getPath()).toString());
+        out.writeLong(entry.getFileSize());
+        out.writeLong(entry.getLastModified());
+        out.writeLong(entry.getSessionStartDate().getEpochSecond());
+        out.writeInt(entry.getRecordCount());
+        out.writeInt(entry.getLapCount());
+        out.writeDouble(entry.getDuration());
+        out.writeUTF(entry.getTrackName());
+        out.writeUTF(entry.getTrackDisplayName());
+        out.writeUTF(entry.getDriverName());
+        out.writeUTF(entry.getCarName());
+        out.writeUTF(entry.getCarClass());
+        out.writeInt(entry.getSessionTypes().size());
+        for (String sessionType : entry.getSessionTypes()) {
+            out.writeUTF(sessionType);
+        }
+        out.writeDouble(entry.getBestLapTime());
+    }
+
+    private CatalogEntry readEntry(DataInputStream in) throws IOException {
+        Path path = directory.resolve(in.readUTF());
+        long fileSize = in.readLong();
+        long lastModified = in.readLong();
+        Instant sessionStartDate = Instant.ofEpochSecond(in.readLong());
+        int recordCount = in.readInt();
+        int lapCount = in.readInt();
+        double duration = in.readDouble();
+        String trackName = in.readUTF();
+        String trackDisplayName = in.readUTF();
+        String driverName = in.readUTF();
+        String carName = in.readUTF();
+        String carClass = in.readUTF();
+        List<String> sessionTypes = new ArrayList<>();
+        for (int count = in.readInt(); count > 0; count--) {
+            sessionTypes.add(in.readUTF());
+        }
+        return new CatalogEntry(path, fileSize, lastModified, sessionStartDate, recordCount, lapCount, duration, trackName,
+                                trackDisplayName, driverName, carName, carClass, sessionTypes, in.readDouble());
+    }
+
+}
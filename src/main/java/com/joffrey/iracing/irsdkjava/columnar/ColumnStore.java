@@ -0,0 +1,157 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.columnar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnSchema.ColumnInfo;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a directory written by {@link ColumnarConverter}, each entry of a var is mapped on its own as a primitive buffer.
+ * <p>
+ * <pre>
+ * FloatBuffer speed = ColumnStore.open(directory).getFloats("Speed", 0);
+ * </pre>
+ */
+public class ColumnStore {
+
+    public static final String SCHEMA_FILE           = "schema.yaml";
+    public static final String SESSION_INFO_FILE     = "session.yaml";
+    public static final String COLUMN_FILE_EXTENSION = ".col";
+
+    private final Path                    directory;
+    private final ColumnSchema            schema;
+    private final Map<String, ColumnInfo> columns = new LinkedHashMap<>();
+
+    private ColumnStore(Path directory, ColumnSchema schema) {
+        this.directory = directory;
+        this.schema = schema;
+        schema.getColumns().forEach(columnInfo -> columns.put(columnInfo.getName(), columnInfo));
+    }
+
+    public static ColumnStore open(Path directory) throws IOException {
+        ColumnSchema schema = new ObjectMapper(new YAMLFactory()).readValue(directory.resolve(SCHEMA_FILE).toFile(),
+                                                                            ColumnSchema.class);
+        if (schema.getVersion() != ColumnSchema.VERSION) {
+            throw new IOException("Unsupported column store version " + schema.getVersion() + " in " + directory);
+        }
+        return new ColumnStore(directory, schema);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public ColumnSchema getSchema() {
+        return schema;
+    }
+
+    public int getRowCount() {
+        return schema.getRowCount();
+    }
+
+    public Set<String> getColumnNames() {
+        return columns.keySet();
+    }
+
+    /**
+     * @return the column, null if the store has no var with this name
+     */
+    public ColumnInfo getColumn(String name) {
+        return columns.get(name);
+    }
+
+    public String getSessionInfo() throws IOException {
+        return new String(Files.readAllBytes(directory.resolve(SESSION_INFO_FILE)), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Map one entry of an irsdk_float var
+     */
+    public FloatBuffer getFloats(String name, int entry) throws IOException {
+        return map(name, entry, VarType.irsdk_float).asFloatBuffer();
+    }
+
+    /**
+     * Map one entry of an irsdk_double var
+     */
+    public DoubleBuffer getDoubles(String name, int entry) throws IOException {
+        return map(name, entry, VarType.irsdk_double).asDoubleBuffer();
+    }
+
+    /**
+     * Map one entry of an irsdk_int or irsdk_bitField var
+     */
+    public IntBuffer getInts(String name, int entry) throws IOException {
+        return map(name, entry, VarType.irsdk_int, VarType.irsdk_bitField).asIntBuffer();
+    }
+
+    /**
+     * Map one entry of an irsdk_bool or irsdk_char var, one byte per row
+     */
+    public ByteBuffer getBytes(String name, int entry) throws IOException {
+        return map(name, entry, VarType.irsdk_bool, VarType.irsdk_char);
+    }
+
+    /**
+     * Map one entry of a var of any type, the values of the rows one after the other
+     */
+    public ByteBuffer getValues(String name, int entry) throws IOException {
+        return map(name, entry, VarType.values());
+    }
+
+    private ByteBuffer map(String name, int entry, VarType... types) throws IOException {
+        ColumnInfo columnInfo = columns.get(name);
+        if (columnInfo == null) {
+            throw new IllegalArgumentException("No column " + name + " in " + directory);
+        }
+        VarType type = VarType.get(columnInfo.getType());
+        if (!Set.of(types).contains(type)) {
+            throw new IllegalArgumentException("Column " + name + " is of type " + type);
+        }
+        if (entry < 0 || entry >= columnInfo.getCount()) {
+            throw new IndexOutOfBoundsException("Entry " + entry + " of " + name + "[" + columnInfo.getCount() + "]");
+        }
+        long length = (long) schema.getRowCount() * ColumnarConverter.getTypeBytes(columnInfo.getType());
+        try (FileChannel channel = FileChannel.open(directory.resolve(columnInfo.getFile()), StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, entry * length, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+}
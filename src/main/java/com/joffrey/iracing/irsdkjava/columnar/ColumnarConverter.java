@@ -0,0 +1,220 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.columnar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnSchema.ColumnInfo;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import com.joffrey.iracing.irsdkjava.model.defines.VarTypeBytes;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transposes an .ibt file into a {@link ColumnStore} directory: one file per var holding each entry as a contiguous column,
+ * the {@link ColumnSchema} and the session info.
+ * <p>
+ * The rows are streamed by blocks, each block is transposed var by var in parallel into one reusable buffer per var, so memory
+ * stays around {@code blockRows} rows whatever the file size.
+ */
+@Slf4j
+public class ColumnarConverter {
+
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+    private final ForkJoinPool pool;
+    private final int          blockRows;
+
+    public ColumnarConverter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * @param pool      runs the vars of a block in parallel
+     * @param blockRows rows read and written at once
+     */
+    public ColumnarConverter(ForkJoinPool pool, int blockRows) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Invalid block size " + blockRows);
+        }
+        this.pool = pool;
+        this.blockRows = blockRows;
+    }
+
+    /**
+     * @param ibtFile   the file to convert
+     * @param directory created if needed, existing column files are overwritten and the store can't be opened until the
+     *                  conversion ends
+     * @return the converted store, opened
+     */
+    public ColumnStore convert(IbtFile ibtFile, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        // Removed before any column is touched, a conversion that fails must not leave the old schema over new columns
+        Files.deleteIfExists(directory.resolve(ColumnStore.SCHEMA_FILE));
+        VarTable varTable = ibtFile.getVarTable();
+        int rowCount = ibtFile.getRowCount();
+
+        List<ColumnWriter> writers = new ArrayList<>(varTable.size());
+        ColumnSchema schema = newSchema(ibtFile);
+        try {
+            for (int index = 0; index < varTable.size(); index++) {
+                VarHeader varHeader = varTable.get(index);
+                int size = getTypeBytes(varHeader.getType());
+                if (size <= 0 || varHeader.getCount() <= 0
+                    || varHeader.getOffset() + ((long) varHeader.getCount() * size) > ibtFile.getHeader().getBufLen()) {
+                    log.warn("Skipping var {}, unknown type or outside of the row", varHeader.getName());
+                    continue;
+                }
+                ColumnInfo columnInfo = newColumnInfo(varHeader);
+                schema.getColumns().add(columnInfo);
+                writers.add(new ColumnWriter(directory.resolve(columnInfo.getFile()), varHeader, size, rowCount, blockRows));
+            }
+            for (int firstRow = 0; firstRow < rowCount; firstRow += blockRows) {
+                int rows = Math.min(blockRows, rowCount - firstRow);
+                ByteBuffer[] block = new ByteBuffer[rows];
+                for (int row = 0; row < rows; row++) {
+                    block[row] = ibtFile.getRow(firstRow + row).getByteBuffer();
+                }
+                int first = firstRow;
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(writers.size());
+                for (ColumnWriter writer : writers) {
+                    tasks.add(pool.submit(() -> writer.write(block, first)));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (ColumnWriter writer : writers) {
+                writer.close();
+            }
+        }
+
+        Files.write(directory.resolve(ColumnStore.SESSION_INFO_FILE), ibtFile.getSessionInfo().getBytes(StandardCharsets.ISO_8859_1));
+        // Written last, a store without schema is incomplete
+        new ObjectMapper(new YAMLFactory()).writeValue(directory.resolve(ColumnStore.SCHEMA_FILE).toFile(), schema);
+        log.info("Converted {} rows of {} vars from {} to {}", rowCount, writers.size(), ibtFile.getPath(), directory);
+        return ColumnStore.open(directory);
+    }
+
+    private static ColumnSchema newSchema(IbtFile ibtFile) {
+        ColumnSchema schema = new ColumnSchema();
+        schema.setRowCount(ibtFile.getRowCount());
+        schema.setTickRate(ibtFile.getHeader().getTickRate());
+        schema.setSessionStartDate(ibtFile.getDiskHeader().getSessionStartDate().getEpochSecond());
+        schema.setSessionStartTime(ibtFile.getDiskHeader().getSessionStartTime());
+        schema.setSessionEndTime(ibtFile.getDiskHeader().getSessionEndTime());
+        return schema;
+    }
+
+    private static ColumnInfo newColumnInfo(VarHeader varHeader) {
+        ColumnInfo columnInfo = new ColumnInfo();
+        columnInfo.setName(varHeader.getName());
+        columnInfo.setType(varHeader.getType());
+        columnInfo.setCount(varHeader.getCount());
+        columnInfo.setUnit(varHeader.getUnit());
+        columnInfo.setDesc(varHeader.getDesc());
+        columnInfo.setFile(varHeader.getName() + ColumnStore.COLUMN_FILE_EXTENSION);
+        return columnInfo;
+    }
+
+    /**
+     * @return size of one value of an irsdk_VarType, 0 for an unknown type
+     */
+    static int getTypeBytes(int type) {
+        return type >= 0 && type < VarTypeBytes.values().length ? VarTypeBytes.values()[type].getValue() : 0;
+    }
+
+    /**
+     * Writes the entries of one var, only used by one task at a time
+     */
+    private static final class ColumnWriter {
+
+        private final FileChannel channel;
+        private final int         offset;
+        private final int         size;
+        private final int         count;
+        private final long        entryLength;
+        private final ByteBuffer  buffer;
+
+        private ColumnWriter(Path file, VarHeader varHeader, int size, int rowCount, int blockRows) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING);
+            this.offset = varHeader.getOffset();
+            this.size = size;
+            this.count = varHeader.getCount();
+            this.entryLength = (long) rowCount * size;
+            this.buffer = ByteBuffer.allocateDirect(Math.multiplyExact(blockRows, size)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private void write(ByteBuffer[] block, int firstRow) {
+            try {
+                for (int entry = 0; entry < count; entry++) {
+                    int at = offset + (entry * size);
+                    buffer.clear();
+                    for (ByteBuffer row : block) {
+                        if (size == Long.BYTES) {
+                            buffer.putLong(row.getLong(at));
+                        } else if (size == Integer.BYTES) {
+                            buffer.putInt(row.getInt(at));
+                        } else {
+                            buffer.put(row.get(at));
+                        }
+                    }
+                    buffer.flip();
+                    long position = (entry * entryLength) + ((long) firstRow * size);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Can't close column file: {}", e.getMessage());
+            }
+        }
+    }
+
+}
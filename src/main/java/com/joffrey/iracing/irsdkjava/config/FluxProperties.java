@@ -45,6 +45,11 @@ public class FluxProperties {
      */
     private long raceInfoIntervalInMs = 1000L;
 
+    /**
+     * Set interval for reader stats flux in ms
+     */
+    private long readerStatsIntervalInMs = 1000L;
+
     /**
      * Set interval for telemetry flux in ms
      */
@@ -55,9 +60,4 @@ public class FluxProperties {
      */
     private long trackmapTrackerIntervalInMs = 50L;
 
-    /**
-     * Set interval for yaml flux in ms
-     */
-    private long yamlIntervalInMs = 1000L;
-
 }
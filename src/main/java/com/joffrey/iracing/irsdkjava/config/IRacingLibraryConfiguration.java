@@ -23,14 +23,75 @@
 
 package com.joffrey.iracing.irsdkjava.config;
 
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
+import com.joffrey.iracing.irsdkjava.memory.FileSharedMemorySource;
+import com.joffrey.iracing.irsdkjava.memory.ReplaySharedMemorySource;
+import com.joffrey.iracing.irsdkjava.memory.SharedMemorySource;
+import com.joffrey.iracing.irsdkjava.memory.WindowsSharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.tick.ReconnectBackoff;
+import com.joffrey.iracing.irsdkjava.tick.SharedMemoryWaitStrategy;
+import com.joffrey.iracing.irsdkjava.tick.WaitStrategy;
+import com.joffrey.iracing.irsdkjava.windows.WindowsService;
+import java.nio.file.Paths;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @ComponentScan(basePackages = "com.joffrey.iracing.irsdkjava")
 @Configuration
-@EnableConfigurationProperties({FluxProperties.class})
+@EnableConfigurationProperties({FluxProperties.class, MemoryProperties.class, ReconnectProperties.class,
+                                HistoryProperties.class, RecorderProperties.class, CatalogProperties.class})
 public class IRacingLibraryConfiguration {
 
+    /**
+     * Read the iRacing shared memory, or the file set in irsdkjava.config.memory.file, or replay the .ibt file set in
+     * irsdkjava.config.memory.replay
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SharedMemorySource sharedMemorySource(MemoryProperties memoryProperties, WindowsService windowsService) {
+        if (memoryProperties.getReplay() != null && !memoryProperties.getReplay().isEmpty()) {
+            double speed = memoryProperties.getReplaySpeed() > 0 ? memoryProperties.getReplaySpeed()
+                                                                 : ReplaySharedMemorySource.AS_FAST_AS_POSSIBLE;
+            return new ReplaySharedMemorySource(Paths.get(memoryProperties.getReplay()), speed, false);
+        }
+        if (memoryProperties.getFile() != null && !memoryProperties.getFile().isEmpty()) {
+            return new FileSharedMemorySource(Paths.get(memoryProperties.getFile()));
+        }
+        return new WindowsSharedMemorySource(windowsService);
+    }
+
+    /**
+     * Wait on the tick signal of the shared memory by default, declare another {@link WaitStrategy} bean to drive the ticks
+     * differently
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public WaitStrategy waitStrategy(SdkStarter sdkStarter) {
+        return new SharedMemoryWaitStrategy(sdkStarter);
+    }
+
+    /**
+     * Retry to open the shared memory on an exponential backoff while the sim is not running, bounds are set with
+     * irsdkjava.config.reconnect.*
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReconnectBackoff reconnectBackoff(ReconnectProperties reconnectProperties) {
+        return new ReconnectBackoff(reconnectProperties.getMinDelayInMs(), reconnectProperties.getMaxDelayInMs(),
+                                    reconnectProperties.getMultiplier());
+    }
+
+    /**
+     * Keep the last irsdkjava.config.history.size frames
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public FrameHistory frameHistory(HistoryProperties historyProperties, SdkStarter sdkStarter) {
+        return new FrameHistory(historyProperties.getSize(), sdkStarter.doubleVar("SessionTime"));
+    }
 
 }
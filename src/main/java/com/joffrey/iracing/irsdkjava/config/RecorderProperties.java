@@ -0,0 +1,58 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.config;
+
+import com.joffrey.iracing.irsdkjava.ibt.RecordingFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "irsdkjava.config.recorder")
+public class RecorderProperties {
+
+    /**
+     * Directory the live sessions are recorded to as .ibt files, nothing is recorded when not set
+     */
+    private String directory = null;
+
+    /**
+     * Rows written to disk at once, 600 is 10 seconds at 60Hz
+     */
+    private int batchRows = 600;
+
+    /**
+     * Batches waiting for the disk before frames are dropped
+     */
+    private int buffers = 4;
+
+    /**
+     * IBT for files iRacing tools can read, DELTA to store only the words that changed from one row to the next
+     */
+    private RecordingFormat format = RecordingFormat.IBT;
+
+    /**
+     * Rows from one keyframe to the next of a DELTA recording, 600 is 10 seconds at 60Hz
+     */
+    private int keyframeInterval = 600;
+
+}
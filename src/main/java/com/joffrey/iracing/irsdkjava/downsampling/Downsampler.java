@@ -0,0 +1,311 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.downsampling;
+
+import com.joffrey.iracing.irsdkjava.columnar.ColumnSchema.ColumnInfo;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnStore;
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.TelemetryVar;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import lombok.Value;
+
+/**
+ * Downsamples channels of .ibt files and of the {@link FrameHistory} to a number of points for charts.
+ * <p>
+ * A channel is read once as a column of primitive values, then reduced with {@link Method#MIN_MAX} or {@link Method#LTTB}.
+ * A file is read by striding over its mapped rows, a {@link ColumnStore} converted from it by a bulk read of its columns.
+ * Channels of a file are read in parallel, and each result is kept in a bounded cache by file, channel, range, points and
+ * method so zooming back to a range doesn't read the file again. The frame history changes on every tick and is never cached.
+ */
+public class Downsampler {
+
+    public enum Method {
+        /**
+         * Min and max of each bucket, {@link Downsampling#minMax}
+         */
+        MIN_MAX,
+        /**
+         * Largest-Triangle-Three-Buckets, {@link Downsampling#lttb}
+         */
+        LTTB
+    }
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private final ForkJoinPool          pool;
+    private final Map<CacheKey, Series> cache;
+
+    public Downsampler() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param pool      reads the channels of a file in parallel
+     * @param cacheSize number of series kept, the least recently used is dropped first
+     */
+    public Downsampler(ForkJoinPool pool, int cacheSize) {
+        this.pool = pool;
+        this.cache = new LinkedHashMap<CacheKey, Series>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Series> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @param entry   the array index, 0 for a scalar
+     * @param fromRow first row of the range
+     * @param toRow   row after the last row of the range
+     * @return the points, empty if the var is not in the file
+     */
+    public Series downsample(IbtFile ibtFile, String varName, int entry, int fromRow, int toRow, int points, Method method) {
+        if (points < 2) {
+            throw new IllegalArgumentException("Invalid number of points " + points);
+        }
+        int from = Math.max(0, fromRow);
+        int to = Math.min(ibtFile.getRowCount(), toRow);
+        // The row count is part of the key, a file still being written gives new series as it grows
+        CacheKey key = new CacheKey(ibtFile.getPath(), ibtFile.getRowCount(), varName, entry, from, to, points, method);
+        Series series = getCached(key);
+        if (series == null) {
+            series = putCached(key, reduce(readColumn(ibtFile, varName, entry, from, to), points, method));
+        }
+        return series;
+    }
+
+    /**
+     * Same as {@link #downsample(IbtFile, String, int, int, int, int, Method)} from the columns converted from a file
+     *
+     * @return the points, empty if the var is not in the store
+     */
+    public Series downsample(ColumnStore columnStore, String varName, int entry, int fromRow, int toRow, int points,
+                             Method method) throws IOException {
+        if (points < 2) {
+            throw new IllegalArgumentException("Invalid number of points " + points);
+        }
+        int from = Math.max(0, fromRow);
+        int to = Math.min(columnStore.getRowCount(), toRow);
+        CacheKey key = new CacheKey(columnStore.getDirectory(), columnStore.getRowCount(), varName, entry, from, to, points,
+                                    method);
+        Series series = getCached(key);
+        if (series == null) {
+            series = putCached(key, reduce(readColumn(columnStore, varName, entry, from, to), points, method));
+        }
+        return series;
+    }
+
+    /**
+     * Downsample the first entry of several vars, one task per var
+     *
+     * @return the points by var name, in the order of the list
+     */
+    public Map<String, Series> downsample(IbtFile ibtFile, List<String> varNames, int fromRow, int toRow, int points,
+                                          Method method) {
+        List<ForkJoinTask<Series>> tasks = new ArrayList<>(varNames.size());
+        for (String varName : varNames) {
+            tasks.add(pool.submit(() -> downsample(ibtFile, varName, 0, fromRow, toRow, points, method)));
+        }
+        Map<String, Series> series = new LinkedHashMap<>();
+        for (int i = 0; i < varNames.size(); i++) {
+            series.put(varNames.get(i), tasks.get(i).join());
+        }
+        return series;
+    }
+
+    /**
+     * @param var      a {@link FloatVar}, {@link DoubleVar} or {@link IntVar}
+     * @param fromTick first tick of the range
+     * @param toTick   last tick of the range, included
+     * @return the points of the frames held between the two ticks
+     */
+    public Series downsample(FrameHistory frameHistory, TelemetryVar var, int entry, int fromTick, int toTick, int points,
+                             Method method) {
+        if (points < 2) {
+            throw new IllegalArgumentException("Invalid number of points " + points);
+        }
+        return reduce(readColumn(frameHistory, var, entry, fromTick, toTick), points, method);
+    }
+
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private Series getCached(CacheKey key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private Series putCached(CacheKey key, Series series) {
+        synchronized (cache) {
+            cache.put(key, series);
+        }
+        return series;
+    }
+
+    private static Series reduce(Series column, int points, Method method) {
+        int[] indices = method == Method.LTTB ? Downsampling.lttb(column.getX(), column.getY(), column.size(), points)
+                                              : Downsampling.minMax(column.getY(), column.size(), points);
+        return Downsampling.select(column.getX(), column.getY(), indices);
+    }
+
+    /**
+     * Strides over the mapped rows, the var and the session time are looked up once
+     */
+    private static Series readColumn(IbtFile ibtFile, String varName, int entry, int fromRow, int toRow) {
+        VarHeader varHeader = ibtFile.getVarTable().get(varName);
+        VarType type = varHeader != null ? VarType.get(varHeader.getType()) : null;
+        if (!isReadable(type) || entry < 0 || entry >= varHeader.getCount()) {
+            return new Series(new double[0], new float[0]);
+        }
+        int offset = varHeader.getOffset() + (entry * getTypeBytes(type));
+        VarHeader sessionTime = ibtFile.getVarTable().get("SessionTime");
+        int timeOffset = sessionTime != null && VarType.get(sessionTime.getType()) == VarType.irsdk_double
+                         ? sessionTime.getOffset() : -1;
+        int length = Math.max(0, toRow - fromRow);
+        double[] x = new double[length];
+        float[] y = new float[length];
+        for (int i = 0; i < length; i++) {
+            int row = fromRow + i;
+            ByteBuffer window = ibtFile.getRowWindow(row);
+            int position = ibtFile.getRowPosition(row);
+            x[i] = timeOffset >= 0 ? window.getDouble(position + timeOffset) : row;
+            y[i] = read(window, position + offset, type);
+        }
+        return new Series(x, y);
+    }
+
+    /**
+     * Bulk reads of the mapped columns
+     */
+    private static Series readColumn(ColumnStore columnStore, String varName, int entry, int fromRow, int toRow)
+            throws IOException {
+        ColumnInfo columnInfo = columnStore.getColumn(varName);
+        VarType type = columnInfo != null ? VarType.get(columnInfo.getType()) : null;
+        int length = Math.max(0, toRow - fromRow);
+        if (!isReadable(type) || entry < 0 || entry >= columnInfo.getCount() || length == 0) {
+            return new Series(new double[0], new float[0]);
+        }
+        double[] x = new double[length];
+        float[] y = new float[length];
+        ColumnInfo sessionTime = columnStore.getColumn("SessionTime");
+        if (sessionTime != null && VarType.get(sessionTime.getType()) == VarType.irsdk_double) {
+            columnStore.getDoubles("SessionTime", 0).position(fromRow).get(x);
+        } else {
+            for (int i = 0; i < length; i++) {
+                x[i] = fromRow + i;
+            }
+        }
+        if (type == VarType.irsdk_float) {
+            columnStore.getFloats(varName, entry).position(fromRow).get(y);
+        } else if (type == VarType.irsdk_double) {
+            DoubleBuffer values = columnStore.getDoubles(varName, entry);
+            for (int i = 0; i < length; i++) {
+                y[i] = (float) values.get(fromRow + i);
+            }
+        } else if (type == VarType.irsdk_int || type == VarType.irsdk_bitField) {
+            IntBuffer values = columnStore.getInts(varName, entry);
+            for (int i = 0; i < length; i++) {
+                y[i] = values.get(fromRow + i);
+            }
+        } else {
+            ByteBuffer values = columnStore.getBytes(varName, entry);
+            for (int i = 0; i < length; i++) {
+                y[i] = values.get(fromRow + i) != 0 ? 1.0F : 0.0F;
+            }
+        }
+        return new Series(x, y);
+    }
+
+    private static boolean isReadable(VarType type) {
+        return type == VarType.irsdk_float || type == VarType.irsdk_double || type == VarType.irsdk_int
+               || type == VarType.irsdk_bitField || type == VarType.irsdk_bool;
+    }
+
+    private static int getTypeBytes(VarType type) {
+        if (type == VarType.irsdk_double) {
+            return Double.BYTES;
+        }
+        return type == VarType.irsdk_bool ? Byte.BYTES : Integer.BYTES;
+    }
+
+    private static float read(ByteBuffer buffer, int position, VarType type) {
+        switch (type) {
+            case irsdk_float:
+                return buffer.getFloat(position);
+            case irsdk_double:
+                return (float) buffer.getDouble(position);
+            case irsdk_int:
+            case irsdk_bitField:
+                return buffer.getInt(position);
+            default:
+                return buffer.get(position) != 0 ? 1.0F : 0.0F;
+        }
+    }
+
+    /**
+     * Session times and values are read in one pass of the history, the frames dropped during the copy are dropped from both
+     */
+    private static Series readColumn(FrameHistory frameHistory, TelemetryVar var, int entry, int fromTick, int toTick) {
+        int first = Math.max(fromTick, frameHistory.getFirstTick());
+        int capacity = (int) Math.max(0, Math.min(frameHistory.getCapacity(), (long) toTick - first + 1));
+        double[] x = new double[capacity];
+        float[] y = new float[capacity];
+        int count = frameHistory.readPoints(var, entry, first, toTick, x, y);
+        return new Series(Arrays.copyOf(x, count), Arrays.copyOf(y, count));
+    }
+
+    @Value
+    private static class CacheKey {
+
+        Path   path;
+        int    rowCount;
+        String varName;
+        int    entry;
+        int    fromRow;
+        int    toRow;
+        int    points;
+        Method method;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.downsampling;
+
+import java.util.Arrays;
+
+/**
+ * Decimation of one channel held in primitive arrays, each method returns the indices of the points to keep in order.
+ */
+public final class Downsampling {
+
+    private Downsampling() {
+    }
+
+    /**
+     * The min and the max of each of {@code points / 2} buckets of equal width, every peak is kept whatever the resolution
+     *
+     * @param length number of values of {@code y} to downsample
+     * @return at most {@code points} indices, all of them if there are not more values than points
+     */
+    public static int[] minMax(float[] y, int length, int points) {
+        if (length <= points) {
+            return all(length);
+        }
+        int buckets = Math.max(1, points / 2);
+        int[] indices = new int[buckets * 2];
+        int count = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int start = (int) ((long) bucket * length / buckets);
+            int end = (int) ((long) (bucket + 1) * length / buckets);
+            int min = start;
+            int max = start;
+            for (int i = start + 1; i < end; i++) {
+                if (y[i] < y[min]) {
+                    min = i;
+                } else if (y[i] > y[max]) {
+                    max = i;
+                }
+            }
+            indices[count++] = Math.min(min, max);
+            if (min != max) {
+                indices[count++] = Math.max(min, max);
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets: the first and the last values, then in each bucket the value making the largest triangle
+     * with the previous point and the average of the next bucket, the shape is kept with fewer points than min/max
+     *
+     * @param length number of values of {@code x} and {@code y} to downsample
+     * @return {@code points} indices (at least 2), all of them if there are not more values than points
+     */
+    public static int[] lttb(double[] x, float[] y, int length, int points) {
+        if (length <= points) {
+            return all(length);
+        }
+        if (points < 3) {
+            return new int[]{0, length - 1};
+        }
+        int[] indices = new int[points];
+        double every = (double) (length - 2) / (points - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < points - 2; bucket++) {
+            int averageStart = (int) ((bucket + 1) * every) + 1;
+            int averageEnd = Math.min((int) ((bucket + 2) * every) + 1, length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = averageStart; i < averageEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= averageEnd - averageStart;
+            averageY /= averageEnd - averageStart;
+
+            int start = (int) (bucket * every) + 1;
+            int end = (int) ((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int next = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs(((x[a] - averageX) * (y[i] - y[a])) - ((x[a] - x[i]) * (averageY - y[a])));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            indices[bucket + 1] = next;
+            a = next;
+        }
+        indices[points - 1] = length - 1;
+        return indices;
+    }
+
+    /**
+     * @return the points at the indices
+     */
+    public static Series select(double[] x, float[] y, int[] indices) {
+        double[] selectedX = new double[indices.length];
+        float[] selectedY = new float[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            selectedX[i] = x[indices[i]];
+            selectedY[i] = y[indices[i]];
+        }
+        return new Series(selectedX, selectedY);
+    }
+
+    private static int[] all(int length) {
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+}
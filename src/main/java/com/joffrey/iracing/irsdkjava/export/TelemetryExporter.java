@@ -0,0 +1,391 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.export;
+
+import com.joffrey.iracing.irsdkjava.ibt.IbtCursor;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.model.BooleanVar;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.TelemetryVar;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Writes selected vars of telemetry frames as CSV or NDJSON, one line per frame.
+ * <p>
+ * Frames come from an .ibt file ({@link #export(IbtFile, OutputStream, Format, List)}) or from the live frame Flux
+ * ({@link #export(Flux, OutputStream, Format, List)}), nothing is kept between two lines: each line is built in one reused
+ * {@link StringBuilder} then encoded in one reused byte buffer, so the memory used doesn't depend on the number of rows.
+ * Decimal values are written with a fixed number of decimals from their scaled integer value, trailing zeros removed, without
+ * boxing nor {@code Float.toString}.
+ * <pre>
+ * Disposable export = TelemetryExporter.export(tickSource.getFrameFlux(), out, Format.CSV, varNames)
+ *                                      .subscribe(rows -&gt; log.info("{} rows", rows), e -&gt; log.warn("Export failed", e));
+ * </pre>
+ * Array vars are one column per entry in CSV ({@code CarIdxLap[0]}, ...) and one JSON array in NDJSON. A var missing from the
+ * file or the sim is an empty CSV field or a JSON null.
+ */
+public class TelemetryExporter implements Flushable, Closeable {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    public static final int DEFAULT_DECIMALS = 6;
+
+    private static final int    BUFFER_SIZE = 64 * 1024;
+    private static final long[] POWERS_OF_TEN;
+    // Above this scaled value a long can't hold the decimals, written with the JDK instead
+    private static final double MAX_SCALED  = 1e15;
+
+    static {
+        POWERS_OF_TEN = new long[19];
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final OutputStream  out;
+    private final Format        format;
+    private final List<String>  varNames;
+    private final int           decimals;
+    private final StringBuilder line   = new StringBuilder(1024);
+    private final byte[]        buffer = new byte[BUFFER_SIZE];
+
+    private Column[] columns  = null;
+    private VarTable varTable = null;
+    private int      buffered = 0;
+    private long     rowCount = 0;
+
+    public TelemetryExporter(OutputStream out, Format format, List<String> varNames) {
+        this(out, format, varNames, DEFAULT_DECIMALS);
+    }
+
+    /**
+     * @param out      not buffered by the caller, lines are buffered here
+     * @param varNames the vars written on each line, in order
+     * @param decimals max decimals of float and double values
+     */
+    public TelemetryExporter(OutputStream out, Format format, List<String> varNames, int decimals) {
+        if (decimals < 0 || decimals > 9) {
+            throw new IllegalArgumentException("Invalid decimals " + decimals);
+        }
+        this.out = out;
+        this.format = format;
+        this.varNames = varNames;
+        this.decimals = decimals;
+    }
+
+    /**
+     * Write every row of an .ibt file then close the stream
+     *
+     * @return number of rows written
+     */
+    public static long export(IbtFile ibtFile, OutputStream out, Format format, List<String> varNames) throws IOException {
+        try (TelemetryExporter exporter = new TelemetryExporter(out, format, varNames)) {
+            IbtCursor cursor = ibtFile.cursor();
+            while (cursor.next()) {
+                exporter.write(cursor.getFrame());
+            }
+            return exporter.getRowCount();
+        }
+    }
+
+    /**
+     * Write each live frame on the bounded elastic scheduler, never on the thread emitting the frames, then close the stream
+     * when the Flux completes. Frames wait in the queue of the scheduler while a line is written, from a Flux dropping frames
+     * like {@code TickSource.getFrameFlux()} the frames are skipped once the stream falls behind (see the gap in tick counts).
+     *
+     * @return the number of rows written once the Flux completes, the first I/O error otherwise; the stream is closed on error
+     * and on cancel too
+     */
+    public static Mono<Long> export(Flux<TelemetryFrame> frames, OutputStream out, Format format, List<String> varNames) {
+        return Mono.defer(() -> {
+            TelemetryExporter exporter = new TelemetryExporter(out, format, varNames);
+            return frames.publishOn(Schedulers.boundedElastic())
+                         .handle((TelemetryFrame frame, SynchronousSink<Long> sink) -> {
+                             try {
+                                 exporter.write(frame);
+                             } catch (IOException e) {
+                                 sink.error(e);
+                             }
+                         })
+                         .then(Mono.fromCallable(() -> {
+                             exporter.close();
+                             return exporter.getRowCount();
+                         }))
+                         .doFinally(signal -> {
+                             if (signal != SignalType.ON_COMPLETE) {
+                                 exporter.closeQuietly();
+                             }
+                         });
+        });
+    }
+
+    /**
+     * Write one line with the var headers the frame was copied with, the CSV header is written before the first one
+     *
+     * @throws IllegalArgumentException for a frame without var headers, see {@link #write(TelemetryFrame, VarTable)}
+     */
+    public void write(TelemetryFrame frame) throws IOException {
+        if (frame.getVarTable() == null) {
+            throw new IllegalArgumentException("Frame of tick " + frame.getTickCount() + " has no var table");
+        }
+        write(frame, frame.getVarTable());
+    }
+
+    /**
+     * Write one line, the CSV header is written before the first one
+     *
+     * @param varTable the var headers of the frame, the vars are bound again when it changes
+     */
+    public void write(TelemetryFrame frame, VarTable varTable) throws IOException {
+        if (varTable != this.varTable) {
+            bind(varTable);
+        }
+        line.setLength(0);
+        if (format == Format.CSV) {
+            appendCsv(frame);
+        } else {
+            appendJson(frame);
+        }
+        line.append('\n');
+        writeLine();
+        rowCount++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.write(buffer, 0, buffered);
+        buffered = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Already failing or cancelled, the first error is the one reported
+        }
+    }
+
+    /**
+     * The columns are set on the first var table, a later table only binds them again
+     */
+    private void bind(VarTable varTable) throws IOException {
+        boolean first = columns == null;
+        if (first) {
+            columns = new Column[varNames.size()];
+        }
+        for (int i = 0; i < columns.length; i++) {
+            VarHeader varHeader = varTable.get(varNames.get(i));
+            int count = first ? (varHeader != null ? varHeader.getCount() : 1) : columns[i].count;
+            columns[i] = new Column(varNames.get(i), count, varHeader, varTable);
+        }
+        this.varTable = varTable;
+        if (first && format == Format.CSV) {
+            writeCsvHeader();
+        }
+    }
+
+    private void writeCsvHeader() throws IOException {
+        line.setLength(0);
+        for (Column column : columns) {
+            for (int entry = 0; entry < column.count; entry++) {
+                if (line.length() > 0) {
+                    line.append(',');
+                }
+                line.append(column.name);
+                if (column.count > 1) {
+                    line.append('[').append(entry).append(']');
+                }
+            }
+        }
+        line.append('\n');
+        writeLine();
+    }
+
+    private void appendCsv(TelemetryFrame frame) {
+        boolean first = true;
+        for (Column column : columns) {
+            for (int entry = 0; entry < column.count; entry++) {
+                if (!first) {
+                    line.append(',');
+                }
+                first = false;
+                appendValue(column, frame, entry, "");
+            }
+        }
+    }
+
+    private void appendJson(TelemetryFrame frame) {
+        line.append('{');
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(column.jsonKey);
+            if (column.count > 1) {
+                line.append('[');
+                for (int entry = 0; entry < column.count; entry++) {
+                    if (entry > 0) {
+                        line.append(',');
+                    }
+                    appendValue(column, frame, entry, "null");
+                }
+                line.append(']');
+            } else {
+                appendValue(column, frame, 0, "null");
+            }
+        }
+        line.append('}');
+    }
+
+    private void appendValue(Column column, TelemetryFrame frame, int entry, String missing) {
+        if (column.handle == null || column.handle.getOffset(varTable, entry) < 0) {
+            line.append(missing);
+        } else if (column.handle instanceof FloatVar) {
+            appendDecimal(line, frame.getVarFloat((FloatVar) column.handle, entry), decimals, missing);
+        } else if (column.handle instanceof DoubleVar) {
+            appendDecimal(line, frame.getVarDouble((DoubleVar) column.handle, entry), decimals, missing);
+        } else if (column.handle instanceof IntVar) {
+            line.append(frame.getVarInt((IntVar) column.handle, entry));
+        } else {
+            line.append(frame.getVarBoolean((BooleanVar) column.handle, entry));
+        }
+    }
+
+    /**
+     * Append a value rounded half up to {@code decimals}, without trailing zeros
+     *
+     * @param notFinite appended for NaN and infinite values
+     */
+    static void appendDecimal(StringBuilder sb, double value, int decimals, String notFinite) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append(notFinite);
+            return;
+        }
+        double scaled = Math.abs(value) * POWERS_OF_TEN[decimals];
+        if (scaled >= MAX_SCALED) {
+            sb.append(value);
+            return;
+        }
+        long units = Math.round(scaled);
+        if (value < 0 && units != 0) {
+            sb.append('-');
+        }
+        sb.append(units / POWERS_OF_TEN[decimals]);
+        long fraction = units % POWERS_OF_TEN[decimals];
+        if (fraction == 0) {
+            return;
+        }
+        int digits = decimals;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        sb.append('.');
+        for (int digit = digits - 1; digit > 0 && fraction < POWERS_OF_TEN[digit]; digit--) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    /**
+     * Vars names and values are ASCII, copied char by char into the byte buffer
+     */
+    private void writeLine() throws IOException {
+        int length = line.length();
+        if (buffered + length > buffer.length) {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+        }
+        if (length > buffer.length) {
+            out.write(line.toString().getBytes(StandardCharsets.ISO_8859_1));
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[buffered++] = (byte) line.charAt(i);
+        }
+    }
+
+    /**
+     * One var of the lines, read with a handle of its type
+     */
+    private static final class Column {
+
+        private final String       name;
+        private final String       jsonKey;
+        private final int          count;
+        private final TelemetryVar handle;
+
+        private Column(String name, int count, VarHeader varHeader, VarTable varTable) {
+            this.name = name;
+            this.jsonKey = '"' + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\":";
+            this.count = count;
+            this.handle = varHeader != null ? newHandle(name, VarType.get(varHeader.getType()), varTable) : null;
+        }
+
+        private static TelemetryVar newHandle(String name, VarType type, VarTable varTable) {
+            if (type == VarType.irsdk_float) {
+                return varTable.bind(new FloatVar(name));
+            } else if (type == VarType.irsdk_double) {
+                return varTable.bind(new DoubleVar(name));
+            } else if (type == VarType.irsdk_int || type == VarType.irsdk_bitField) {
+                return varTable.bind(new IntVar(name));
+            } else if (type == VarType.irsdk_bool) {
+                return varTable.bind(new BooleanVar(name));
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,376 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.history;
+
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.TelemetryVar;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The last frames of the sim, kept in one preallocated off-heap ring.
+ * <p>
+ * Appended by the {@link com.joffrey.iracing.irsdkjava.tick.TickSource} reader thread only, read from any thread without
+ * locking: a reader checks after each copy that the slots it read were not overwritten meanwhile and drops the ones that were.
+ * The ring is sized on the first frame and only allocated again when a new var layout needs larger slots, the history is
+ * cleared on each layout change and each time the tick count goes backwards (new session). The frames held all have the var
+ * table of the ring, a read that overlaps a layout change returns nothing.
+ */
+public class FrameHistory {
+
+    private final int       capacity;
+    private final DoubleVar sessionTime;
+
+    private volatile Ring ring;
+
+    /**
+     * @param capacity    number of frames kept, 0 to keep nothing
+     * @param sessionTime the SessionTime handle, used for lookups by session time
+     */
+    public FrameHistory(int capacity, DoubleVar sessionTime) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid history capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.sessionTime = sessionTime;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Store a frame, called once per tick by the reader thread
+     *
+     * @param frame the frame of the new tick, with the var table it was read with
+     */
+    public void append(TelemetryFrame frame) {
+        if (capacity == 0) {
+            return;
+        }
+        Ring current = ring;
+        if (current == null || current.slotSize < frame.getBufLen()) {
+            current = new Ring(capacity, frame.getBufLen(), frame.getVarTable());
+            ring = current;
+        } else if (frame.getVarTable() != current.varTable || frame.getTickCount() <= current.getLatestTick()) {
+            current.clear(frame.getVarTable());
+        }
+        current.append(frame, frame.getVarDouble(sessionTime));
+    }
+
+    /**
+     * @return number of frames currently held
+     */
+    public int size() {
+        Ring current = ring;
+        return current == null ? 0 : (int) (current.head - current.getFirstSeq());
+    }
+
+    /**
+     * @return the tick count of the oldest frame held, -1 if empty
+     */
+    public int getFirstTick() {
+        Ring current = ring;
+        return current == null || size() == 0 ? -1 : current.getTick(current.getFirstSeq());
+    }
+
+    /**
+     * @return the tick count of the latest frame held, -1 if empty
+     */
+    public int getLatestTick() {
+        Ring current = ring;
+        return current == null ? -1 : current.getLatestTick();
+    }
+
+    /**
+     * @return a heap copy of the frame of this tick, null if it's not held
+     */
+    public TelemetryFrame getFrame(int tickCount) {
+        Ring current = ring;
+        if (current == null) {
+            return null;
+        }
+        long seq = current.findFirstSeq(tickCount);
+        if (seq < 0 || current.getTick(seq) != tickCount) {
+            return null;
+        }
+        return current.copyFrame(seq);
+    }
+
+    /**
+     * @return a heap copy of the latest frame at or before this session time, null if it's not held
+     */
+    public TelemetryFrame getFrameAt(double sessionTime) {
+        Ring current = ring;
+        if (current == null) {
+            return null;
+        }
+        long seq = current.findLastSeqAt(sessionTime);
+        return seq < 0 ? null : current.copyFrame(seq);
+    }
+
+    /**
+     * Copy one entry of a var for each frame held between two ticks, oldest first
+     *
+     * @return number of values copied, at most {@code dest.length}
+     */
+    public int readFloats(FloatVar var, int entry, int fromTick, int toTick, float[] dest) {
+        return read(var, entry, Float.BYTES, fromTick, toTick, dest.length, (ring, seq, offset, index) ->
+                dest[index] = offset < 0 ? 0.0F : ring.buffer.getFloat(ring.getSlotOffset(seq) + offset), dest);
+    }
+
+    /**
+     * Copy one entry of a var for each frame held between two ticks, oldest first
+     *
+     * @return number of values copied, at most {@code dest.length}
+     */
+    public int readInts(IntVar var, int entry, int fromTick, int toTick, int[] dest) {
+        return read(var, entry, Integer.BYTES, fromTick, toTick, dest.length, (ring, seq, offset, index) ->
+                dest[index] = offset < 0 ? 0 : ring.buffer.getInt(ring.getSlotOffset(seq) + offset), dest);
+    }
+
+    /**
+     * Copy one entry of a var for each frame held between two ticks, oldest first
+     *
+     * @return number of values copied, at most {@code dest.length}
+     */
+    public int readDoubles(DoubleVar var, int entry, int fromTick, int toTick, double[] dest) {
+        return read(var, entry, Double.BYTES, fromTick, toTick, dest.length, (ring, seq, offset, index) ->
+                dest[index] = offset < 0 ? 0.0 : ring.buffer.getDouble(ring.getSlotOffset(seq) + offset), dest);
+    }
+
+    /**
+     * Copy the session time of each frame held between two ticks, oldest first. Frames may be dropped between two reads, see
+     * {@link #readPoints(TelemetryVar, int, int, int, double[], float[])} for session times aligned with the values
+     *
+     * @return number of values copied, at most {@code dest.length}
+     */
+    public int readSessionTimes(int fromTick, int toTick, double[] dest) {
+        return read(null, 0, 0, fromTick, toTick, dest.length, (ring, seq, offset, index) ->
+                dest[index] = ring.sessionTimes[ring.getIndex(seq)], dest);
+    }
+
+    /**
+     * Copy the session time and one entry of a var, as a float, for each frame held between two ticks, oldest first. Both are
+     * copied in the same pass and dropped together, {@code x[i]} is always the session time of the frame of {@code y[i]}
+     *
+     * @param var a {@link FloatVar}, {@link DoubleVar} or {@link IntVar}
+     * @return number of points copied, at most the length of the shortest array
+     */
+    public int readPoints(TelemetryVar var, int entry, int fromTick, int toTick, double[] x, float[] y) {
+        int size;
+        PointReader reader;
+        if (var instanceof FloatVar) {
+            size = Float.BYTES;
+            reader = ByteBuffer::getFloat;
+        } else if (var instanceof DoubleVar) {
+            size = Double.BYTES;
+            reader = (buffer, position) -> (float) buffer.getDouble(position);
+        } else if (var instanceof IntVar) {
+            size = Integer.BYTES;
+            reader = ByteBuffer::getInt;
+        } else {
+            throw new IllegalArgumentException("Can't read points of " + var);
+        }
+        return read(var, entry, size, fromTick, toTick, Math.min(x.length, y.length), (ring, seq, offset, index) -> {
+            x[index] = ring.sessionTimes[ring.getIndex(seq)];
+            y[index] = offset < 0 ? 0.0F : reader.read(ring.buffer, ring.getSlotOffset(seq) + offset);
+        }, x, y);
+    }
+
+    private int read(TelemetryVar var, int entry, int size, int fromTick, int toTick, int max, ValueCopier copier,
+                     Object... dests) {
+        Ring current = ring;
+        if (current == null) {
+            return 0;
+        }
+        VarTable varTable = current.varTable;
+        long head = current.head;
+        long first = current.findFirstSeq(fromTick);
+        if (first < 0) {
+            return 0;
+        }
+        int offset = var == null ? 0 : var.getOffset(varTable, entry);
+        if (offset + size > current.slotSize) {
+            offset = -1;
+        }
+        int count = 0;
+        for (long seq = first; seq < head && count < max && current.getTick(seq) <= toTick; seq++) {
+            copier.copy(current, seq, offset, count++);
+        }
+        // Drop the oldest values if their slot was written again during the copy
+        VarHandle.acquireFence();
+        if (current.varTable != varTable) {
+            // Cleared for a new layout, the values may have been read with the offsets of the previous one
+            return 0;
+        }
+        int overwritten = (int) Math.min(count, Math.max(0, current.getFirstSeq() - first));
+        if (overwritten > 0) {
+            for (Object dest : dests) {
+                System.arraycopy(dest, overwritten, dest, 0, count - overwritten);
+            }
+            count -= overwritten;
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface ValueCopier {
+
+        void copy(Ring ring, long seq, int offset, int index);
+    }
+
+    @FunctionalInterface
+    private interface PointReader {
+
+        float read(ByteBuffer buffer, int position);
+    }
+
+    /**
+     * The off-heap slots plus the tick count and session time of each one
+     */
+    private static final class Ring {
+
+        private final int        capacity;
+        private final int        slotSize;
+        private final ByteBuffer buffer;
+        private final int[]      ticks;
+        private final int[]      lengths;
+        private final long[]     captureNanos;
+        private final double[]   sessionTimes;
+
+        // Var table of the frames since the last clear, set before start
+        private volatile VarTable varTable;
+        // Sequence number of the next frame, and of the first frame since the last clear
+        private volatile long     head  = 0;
+        private volatile long     start = 0;
+
+        private Ring(int capacity, int slotSize, VarTable varTable) {
+            // One spare slot, the one being written is never readable
+            int slots = capacity + 1;
+            this.capacity = capacity;
+            this.slotSize = slotSize;
+            this.buffer = ByteBuffer.allocateDirect(Math.multiplyExact(slots, slotSize)).order(ByteOrder.LITTLE_ENDIAN);
+            this.ticks = new int[slots];
+            this.lengths = new int[slots];
+            this.captureNanos = new long[slots];
+            this.sessionTimes = new double[slots];
+            this.varTable = varTable;
+        }
+
+        private void append(TelemetryFrame frame, double sessionTime) {
+            long seq = head;
+            int index = getIndex(seq);
+            ByteBuffer slot = buffer.duplicate();
+            slot.position(index * slotSize);
+            slot.put(frame.getByteBuffer().clear());
+            ticks[index] = frame.getTickCount();
+            lengths[index] = frame.getBufLen();
+            captureNanos[index] = frame.getCaptureNanos();
+            sessionTimes[index] = sessionTime;
+            // Publishes the slot to the readers
+            head = seq + 1;
+        }
+
+        private void clear(VarTable varTable) {
+            this.varTable = varTable;
+            start = head;
+        }
+
+        private long getFirstSeq() {
+            return Math.max(start, head - capacity);
+        }
+
+        private int getLatestTick() {
+            long latest = head - 1;
+            return latest < getFirstSeq() ? -1 : getTick(latest);
+        }
+
+        private int getIndex(long seq) {
+            return (int) (seq % ticks.length);
+        }
+
+        private int getSlotOffset(long seq) {
+            return getIndex(seq) * slotSize;
+        }
+
+        private int getTick(long seq) {
+            return ticks[getIndex(seq)];
+        }
+
+        /**
+         * @return the first sequence holding a tick at or after this one, -1 if none
+         */
+        private long findFirstSeq(int tickCount) {
+            long low = getFirstSeq();
+            long high = head;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (getTick(mid) < tickCount) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low < head ? low : -1;
+        }
+
+        /**
+         * @return the last sequence at or before this session time, -1 if none
+         */
+        private long findLastSeqAt(double sessionTime) {
+            long low = getFirstSeq();
+            long high = head;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (sessionTimes[getIndex(mid)] <= sessionTime) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low - 1 >= getFirstSeq() ? low - 1 : -1;
+        }
+
+        private TelemetryFrame copyFrame(long seq) {
+            VarTable table = varTable;
+            int tick = getTick(seq);
+            int length = lengths[getIndex(seq)];
+            long capture = captureNanos[getIndex(seq)];
+            ByteBuffer copy = ByteBuffer.allocate(length);
+            ByteBuffer slot = buffer.duplicate();
+            slot.position(getSlotOffset(seq)).limit(getSlotOffset(seq) + length);
+            copy.put(slot).flip();
+            // The slot was written again during the copy, or the ring cleared for a new layout
+            VarHandle.acquireFence();
+            return seq < getFirstSeq() || table != varTable ? null : new TelemetryFrame(tick, copy, capture, table);
+        }
+    }
+
+}
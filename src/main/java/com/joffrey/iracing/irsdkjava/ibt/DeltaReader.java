@@ -0,0 +1,352 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.model.BooleanVar;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a recording written by a {@link DeltaWriter}, rows are rebuilt one after the other from the previous one.
+ * <p>
+ * Only the changed words of a delta are touched, so reading a row costs the size of what changed. {@link #seek(int)} starts
+ * from the keyframe at or before the row. The frame of the current row is a view over one reused buffer, valid until the next
+ * call to {@link #next()} or {@link #seek(int)}. One reader per thread.
+ */
+public class DeltaReader implements Closeable {
+
+    private static final int INPUT_SIZE = 1 << 20;
+
+    private final Path           path;
+    private final FileChannel    channel;
+    private final HeaderSnapshot header;
+    private final VarTable       varTable;
+    private final String         sessionInfo;
+    private final int            keyframeInterval;
+    private final int            bufLen;
+    private final long           rowsOffset;
+    private final long[]         mask;
+    private final long           lastWordsMask;
+    private final ByteBuffer     input;
+    private final ByteBuffer     row;
+    private final ByteBuffer     rowView;
+
+    private long[]         keyframes;
+    private int            rowCount;
+    private long           inputOffset = 0L;
+    private int            current     = -1;
+    private TelemetryFrame frame       = TelemetryFrame.EMPTY;
+
+    private DeltaReader(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        ByteBuffer preamble = read(0, 3 * Integer.BYTES + Header.HEADER_SIZE + Integer.BYTES);
+        if (preamble.getInt(0) != DeltaWriter.MAGIC || preamble.getInt(4) != DeltaWriter.VERSION) {
+            throw new IOException(path + " is not a delta recording");
+        }
+        this.keyframeInterval = preamble.getInt(8);
+        this.header = new HeaderSnapshot(read(12, Header.HEADER_SIZE));
+        this.bufLen = header.getBufLen();
+        int varHeadersLen = preamble.getInt(12 + Header.HEADER_SIZE);
+        long varHeadersOffset = 16 + Header.HEADER_SIZE;
+        this.varTable = VarTable.parse(read(varHeadersOffset, varHeadersLen), 0, varHeadersLen / VarHeader.VAR_HEADER_SIZE);
+        int sessionInfoLen = read(varHeadersOffset + varHeadersLen, Integer.BYTES).getInt(0);
+        ByteBuffer sessionInfoBytes = read(varHeadersOffset + varHeadersLen + Integer.BYTES, sessionInfoLen);
+        this.sessionInfo = new String(sessionInfoBytes.array(), 0, sessionInfoLen, StandardCharsets.ISO_8859_1);
+        this.rowsOffset = varHeadersOffset + varHeadersLen + Integer.BYTES + sessionInfoLen;
+        if (keyframeInterval <= 0 || bufLen <= 0) {
+            throw new IOException(path + " is not a delta recording");
+        }
+
+        int words = (bufLen + Integer.BYTES - 1) / Integer.BYTES;
+        this.mask = new long[DeltaWriter.getMaskLength(words)];
+        // Bits of the last mask long that are words of the row
+        this.lastWordsMask = words % Long.SIZE == 0 ? -1L : (1L << (words % Long.SIZE)) - 1;
+        this.input = ByteBuffer.allocate(Math.max(INPUT_SIZE, 2 * DeltaWriter.getMaxRecordSize(bufLen)))
+                               .order(ByteOrder.LITTLE_ENDIAN);
+        this.input.limit(0);
+        this.row = ByteBuffer.allocate(words * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.rowView = row.duplicate().limit(bufLen).slice();
+        if (!readIndex()) {
+            scan();
+        }
+        rewind();
+    }
+
+    public static DeltaReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new DeltaReader(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public HeaderSnapshot getHeader() {
+        return header;
+    }
+
+    public VarTable getVarTable() {
+        return varTable;
+    }
+
+    public String getSessionInfo() {
+        return sessionInfo;
+    }
+
+    /**
+     * @return number of whole rows, the rows of a file that was not closed are counted when opening it
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public FloatVar floatVar(String varName) {
+        return varTable.bind(new FloatVar(varName));
+    }
+
+    public IntVar intVar(String varName) {
+        return varTable.bind(new IntVar(varName));
+    }
+
+    public DoubleVar doubleVar(String varName) {
+        return varTable.bind(new DoubleVar(varName));
+    }
+
+    public BooleanVar booleanVar(String varName) {
+        return varTable.bind(new BooleanVar(varName));
+    }
+
+    /**
+     * Move to the next row
+     *
+     * @return false once past the last row
+     */
+    public boolean next() throws IOException {
+        if (current + 1 >= rowCount || !readRecord()) {
+            current = rowCount;
+            frame = TelemetryFrame.EMPTY;
+            return false;
+        }
+        current++;
+        frame = new TelemetryFrame(current, rowView, varTable);
+        return true;
+    }
+
+    /**
+     * Move to a row, decoding from the keyframe at or before it
+     *
+     * @return false if the row is not in the file
+     */
+    public boolean seek(int target) throws IOException {
+        if (target < 0 || target >= rowCount) {
+            return false;
+        }
+        if (target <= current || target / keyframeInterval > current / keyframeInterval) {
+            int keyframe = target / keyframeInterval;
+            moveTo(keyframes[keyframe]);
+            current = (keyframe * keyframeInterval) - 1;
+        }
+        while (current < target) {
+            if (!next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index of the current row, -1 before the first one
+     */
+    public int getRow() {
+        return current;
+    }
+
+    /**
+     * @return the current row, {@link TelemetryFrame#EMPTY} outside of the file
+     */
+    public TelemetryFrame getFrame() {
+        return frame;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void rewind() throws IOException {
+        moveTo(rowsOffset);
+        current = -1;
+        frame = TelemetryFrame.EMPTY;
+    }
+
+    /**
+     * Apply the next record to the row
+     *
+     * @return false at the end of the rows, on a partly written record or on a delta whose changed count doesn't match its mask
+     */
+    private boolean readRecord() throws IOException {
+        if (!ensure(1)) {
+            return false;
+        }
+        byte kind = input.get();
+        if (kind == DeltaWriter.KEYFRAME) {
+            if (!ensure(bufLen)) {
+                return false;
+            }
+            row.clear();
+            row.put(input.duplicate().limit(input.position() + bufLen));
+            input.position(input.position() + bufLen);
+            return true;
+        }
+        if (kind != DeltaWriter.DELTA || !ensure(Integer.BYTES + (mask.length * Long.BYTES))) {
+            return false;
+        }
+        int changed = input.getInt();
+        int maskBits = 0;
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = input.getLong();
+            maskBits += Long.bitCount(mask[i]);
+        }
+        // A corrupt count would read the words of the next record, or past the data; a bit past the row would write out of it
+        if (changed != maskBits || (mask[mask.length - 1] & lastWordsMask) != mask[mask.length - 1]
+            || !ensure(changed * Integer.BYTES)) {
+            return false;
+        }
+        for (int i = 0; i < mask.length; i++) {
+            for (long bits = mask[i]; bits != 0; bits &= bits - 1) {
+                int at = ((i << 6) + Long.numberOfTrailingZeros(bits)) * Integer.BYTES;
+                row.putInt(at, row.getInt(at) ^ input.getInt());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keyframe offsets written by {@link DeltaWriter#close()}
+     *
+     * @return false if the file was not closed
+     */
+    private boolean readIndex() throws IOException {
+        long size = channel.size();
+        if (size < rowsOffset + DeltaWriter.FOOTER_SIZE) {
+            return false;
+        }
+        ByteBuffer footer = read(size - DeltaWriter.FOOTER_SIZE, DeltaWriter.FOOTER_SIZE);
+        if (footer.getInt(Integer.BYTES + Long.BYTES) != DeltaWriter.MAGIC) {
+            return false;
+        }
+        rowCount = footer.getInt(0);
+        long indexOffset = footer.getLong(Integer.BYTES);
+        int keyframeCount = read(indexOffset + 1, Integer.BYTES).getInt(0);
+        ByteBuffer index = read(indexOffset + 1 + Integer.BYTES, keyframeCount * Long.BYTES);
+        keyframes = new long[keyframeCount];
+        for (int i = 0; i < keyframeCount; i++) {
+            keyframes[i] = index.getLong(i * Long.BYTES);
+        }
+        return true;
+    }
+
+    /**
+     * Read every record once to count the whole rows and find the keyframes of a file that was not closed
+     */
+    private void scan() throws IOException {
+        moveTo(rowsOffset);
+        keyframes = new long[16];
+        int keyframeCount = 0;
+        rowCount = Integer.MAX_VALUE;
+        int rows = 0;
+        while (true) {
+            long offset = inputOffset + input.position();
+            if (rows % keyframeInterval == 0) {
+                if (keyframeCount == keyframes.length) {
+                    keyframes = Arrays.copyOf(keyframes, keyframeCount * 2);
+                }
+                keyframes[keyframeCount] = offset;
+            }
+            if (!readRecord()) {
+                break;
+            }
+            if (rows % keyframeInterval == 0) {
+                keyframeCount++;
+            }
+            rows++;
+        }
+        keyframes = Arrays.copyOf(keyframes, keyframeCount);
+        rowCount = rows;
+    }
+
+    private void moveTo(long offset) {
+        inputOffset = offset;
+        input.clear().limit(0);
+    }
+
+    /**
+     * @return true once the input holds at least {@code bytes}, false at the end of the file
+     */
+    private boolean ensure(int bytes) throws IOException {
+        if (input.remaining() >= bytes) {
+            return true;
+        }
+        inputOffset += input.position();
+        input.compact();
+        while (input.hasRemaining()) {
+            if (channel.read(input, inputOffset + input.position()) < 0) {
+                break;
+            }
+        }
+        input.flip();
+        return input.remaining() >= bytes;
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException(path + " is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+}
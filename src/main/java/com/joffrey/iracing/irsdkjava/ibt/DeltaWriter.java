@@ -0,0 +1,236 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes a delta recording: each row is stored as the 4 byte words that changed since the previous row.
+ * <p>
+ * The file starts with the irsdk_header, the var headers and the session info. Each row is then either a keyframe, the whole
+ * row, or a delta: a bitmask of the changed words followed by each changed word XOR its previous value. A keyframe is written
+ * every {@code keyframeInterval} rows so a {@link DeltaReader} can seek without decoding from the start. {@link #close()} adds
+ * the offsets of the keyframes at the end of the file, a file that was not closed is still read up to its last whole row. Each
+ * batch is on disk once {@link #write(ByteBuffer)} returns, like with an {@link IbtWriter}. Not thread safe, meant to be used
+ * by a single I/O thread.
+ */
+public class DeltaWriter implements RowWriter {
+
+    public static final String FILE_EXTENSION            = ".ibd";
+    public static final int    DEFAULT_KEYFRAME_INTERVAL = 600;
+
+    static final int  MAGIC       = 0x44544249; // IBTD
+    static final int  VERSION     = 1;
+    static final byte KEYFRAME    = 1;
+    static final byte DELTA       = 2;
+    static final byte END         = 0;
+    // Row count, keyframe index offset and magic
+    static final int  FOOTER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final int OUTPUT_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int         bufLen;
+    private final int         words;
+    private final int         keyframeInterval;
+    private final long[]      mask;
+    private final ByteBuffer  previous;
+    private final ByteBuffer  current;
+    private final ByteBuffer  output;
+
+    private long   position;
+    private int    recordCount   = 0;
+    private long[] keyframes     = new long[16];
+    private int    keyframeCount = 0;
+
+    private DeltaWriter(FileChannel channel, int bufLen, int keyframeInterval, long position) {
+        this.channel = channel;
+        this.bufLen = bufLen;
+        this.words = (bufLen + Integer.BYTES - 1) / Integer.BYTES;
+        this.keyframeInterval = keyframeInterval;
+        this.mask = new long[getMaskLength(words)];
+        // Rows padded to whole words
+        this.previous = ByteBuffer.allocate(words * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.current = ByteBuffer.allocate(words * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.output = ByteBuffer.allocateDirect(Math.max(OUTPUT_SIZE, 2 * getMaxRecordSize(bufLen)))
+                                .order(ByteOrder.LITTLE_ENDIAN);
+        this.position = position;
+    }
+
+    /**
+     * Create the file and write everything but the rows
+     *
+     * @param header           the irsdk_header of the shared memory, {@link Header#HEADER_SIZE} bytes
+     * @param varHeaders       the var header table
+     * @param sessionInfo      the session info YAML
+     * @param keyframeInterval rows from one keyframe to the next
+     */
+    public static DeltaWriter create(Path path, ByteBuffer header, ByteBuffer varHeaders, ByteBuffer sessionInfo,
+                                     int keyframeInterval) throws IOException {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Invalid keyframe interval " + keyframeInterval);
+        }
+        int bufLen = new HeaderSnapshot(header).getBufLen();
+        ByteBuffer preamble = ByteBuffer.allocate((5 * Integer.BYTES) + Header.HEADER_SIZE + varHeaders.remaining()
+                                                  + sessionInfo.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        preamble.putInt(MAGIC);
+        preamble.putInt(VERSION);
+        preamble.putInt(keyframeInterval);
+        preamble.put(header.duplicate().position(0).limit(Header.HEADER_SIZE));
+        preamble.putInt(varHeaders.remaining());
+        preamble.put(varHeaders.duplicate());
+        preamble.putInt(sessionInfo.remaining());
+        preamble.put(sessionInfo.duplicate());
+        preamble.flip();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            writeFully(channel, preamble, 0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new DeltaWriter(channel, bufLen, keyframeInterval, preamble.limit());
+    }
+
+    @Override
+    public void write(ByteBuffer rows) throws IOException {
+        int count = rows.remaining() / bufLen;
+        for (int row = 0; row < count; row++) {
+            int at = rows.position() + (row * bufLen);
+            current.clear();
+            current.put(rows.duplicate().position(at).limit(at + bufLen));
+            if (output.remaining() < getMaxRecordSize(bufLen)) {
+                flushOutput();
+            }
+            if (recordCount % keyframeInterval == 0) {
+                writeKeyframe();
+            } else {
+                writeDelta();
+            }
+            previous.clear();
+            previous.put(current.clear());
+            recordCount++;
+        }
+        // A crash loses at most the batch being written, not the whole output buffer
+        flushOutput();
+    }
+
+    @Override
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Write the keyframe index and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushOutput();
+            ByteBuffer index = ByteBuffer.allocate(1 + Integer.BYTES + (keyframeCount * Long.BYTES) + FOOTER_SIZE)
+                                         .order(ByteOrder.LITTLE_ENDIAN);
+            long indexOffset = position;
+            index.put(END);
+            index.putInt(keyframeCount);
+            for (int i = 0; i < keyframeCount; i++) {
+                index.putLong(keyframes[i]);
+            }
+            index.putInt(recordCount);
+            index.putLong(indexOffset);
+            index.putInt(MAGIC);
+            index.flip();
+            writeFully(channel, index, position);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeKeyframe() {
+        if (keyframeCount == keyframes.length) {
+            keyframes = Arrays.copyOf(keyframes, keyframeCount * 2);
+        }
+        keyframes[keyframeCount++] = position + output.position();
+        output.put(KEYFRAME);
+        output.put(current.duplicate().position(0).limit(bufLen));
+    }
+
+    private void writeDelta() {
+        Arrays.fill(mask, 0L);
+        int changed = 0;
+        for (int word = 0; word < words; word++) {
+            int at = word * Integer.BYTES;
+            if (current.getInt(at) != previous.getInt(at)) {
+                mask[word >>> 6] |= 1L << word;
+                changed++;
+            }
+        }
+        output.put(DELTA);
+        output.putInt(changed);
+        for (long bits : mask) {
+            output.putLong(bits);
+        }
+        for (int i = 0; i < mask.length; i++) {
+            for (long bits = mask[i]; bits != 0; bits &= bits - 1) {
+                int at = ((i << 6) + Long.numberOfTrailingZeros(bits)) * Integer.BYTES;
+                output.putInt(current.getInt(at) ^ previous.getInt(at));
+            }
+        }
+    }
+
+    private void flushOutput() throws IOException {
+        output.flip();
+        position += writeFully(channel, output, position);
+        output.clear();
+    }
+
+    static int getMaskLength(int words) {
+        return (words + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * A delta with every word changed, larger than a keyframe
+     */
+    static int getMaxRecordSize(int bufLen) {
+        int words = (bufLen + Integer.BYTES - 1) / Integer.BYTES;
+        return 1 + Integer.BYTES + (getMaskLength(words) * Long.BYTES) + (words * Integer.BYTES);
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+
+/**
+ * Walks the rows of an {@link IbtFile}, one cursor per thread.
+ * <p>
+ * <pre>
+ * IbtCursor cursor = ibtFile.cursor();
+ * while (cursor.next()) {
+ *     float speed = cursor.getFrame().getVarFloat(speedVar);
+ * }
+ * </pre>
+ */
+public class IbtCursor {
+
+    private final IbtFile ibtFile;
+
+    private int            row   = -1;
+    private TelemetryFrame frame = TelemetryFrame.EMPTY;
+
+    IbtCursor(IbtFile ibtFile) {
+        this.ibtFile = ibtFile;
+    }
+
+    /**
+     * Move to the next row
+     *
+     * @return false once past the last row
+     */
+    public boolean next() {
+        return seek(row + 1);
+    }
+
+    /**
+     * Move to a row, the next call to {@link #next()} reads the one after it
+     *
+     * @return false if the row is not in the file, the cursor is then past the last row or before the first one
+     */
+    public boolean seek(int row) {
+        if (row < 0 || row >= ibtFile.getRowCount()) {
+            this.row = row < 0 ? -1 : ibtFile.getRowCount();
+            frame = TelemetryFrame.EMPTY;
+            return false;
+        }
+        this.row = row;
+        frame = ibtFile.getRow(row);
+        return true;
+    }
+
+    /**
+     * Move to the first row of a lap with the {@link IbtFile#getIndex() index} of the file
+     *
+     * @return false if the lap is not in the file, the cursor doesn't move then
+     */
+    public boolean seekLap(int sessionNum, int lap) {
+        int found = ibtFile.getIndex().findLap(sessionNum, lap);
+        return found >= 0 && seek(found);
+    }
+
+    /**
+     * Move to the last row of the session at or before this session time with the {@link IbtFile#getIndex() index} of the
+     * file
+     *
+     * @return false if the session is not in the file, the cursor doesn't move then
+     */
+    public boolean seekTime(int sessionNum, double time) {
+        int found = ibtFile.getIndex().findTime(sessionNum, time);
+        return found >= 0 && seek(found);
+    }
+
+    /**
+     * @return index of the current row, -1 before the first one
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return the current row, {@link TelemetryFrame#EMPTY} outside of the file
+     */
+    public TelemetryFrame getFrame() {
+        return frame;
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import lombok.Value;
+
+/**
+ * The irsdk_diskSubHeader, written right after the irsdk_header of an .ibt file
+ */
+@Value
+public class IbtDiskHeader {
+
+    public static final int OFFSET = 112;
+    public static final int SIZE   = 32;
+
+    Instant sessionStartDate;
+    double  sessionStartTime;
+    double  sessionEndTime;
+    int     sessionLapCount;
+    int     sessionRecordCount;
+
+    /**
+     * @param file a little endian buffer starting at the irsdk_header
+     */
+    static IbtDiskHeader read(ByteBuffer file) {
+        return new IbtDiskHeader(Instant.ofEpochSecond(file.getLong(OFFSET)),
+                                 file.getDouble(OFFSET + 8),
+                                 file.getDouble(OFFSET + 16),
+                                 file.getInt(OFFSET + 24),
+                                 file.getInt(OFFSET + 28));
+    }
+
+}
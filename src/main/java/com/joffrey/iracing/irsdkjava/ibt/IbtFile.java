@@ -0,0 +1,302 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.joffrey.iracing.irsdkjava.model.BitfieldVar;
+import com.joffrey.iracing.irsdkjava.model.BooleanVar;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import com.joffrey.iracing.irsdkjava.model.defines.BitFlag;
+import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.YamlFile;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An iRacing disk telemetry file, read with the same var handles as the live data.
+ * <p>
+ * An .ibt file is the irsdk_header, the {@link IbtDiskHeader}, the var headers, the session info, then one var buffer per
+ * recorded tick. Nothing is loaded on the heap: the rows are mapped with {@link FileChannel#map} in windows of whole rows, each
+ * window mapped on first access, so files larger than 2GB can be read. Rows are read from any thread.
+ */
+@Slf4j
+public class IbtFile implements Closeable {
+
+    /**
+     * Max size of one mapped window of rows
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final Path                             path;
+    private final FileChannel                      channel;
+    private final HeaderSnapshot                   header;
+    private final IbtDiskHeader                    diskHeader;
+    private final ByteBuffer                       metadata;
+    private final VarTable                         varTable;
+    private final String                           sessionInfo;
+    private final long                             rowsOffset;
+    private final int                              rowCount;
+    private final int                              rowsPerWindow;
+    private final AtomicReferenceArray<ByteBuffer> windows;
+
+    private IbtIndex index = null;
+
+    private IbtFile(Path path, FileChannel channel, int windowSize) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        long size = channel.size();
+        int headersSize = Header.HEADER_SIZE + IbtDiskHeader.SIZE;
+        if (size < headersSize) {
+            throw new IOException(path + " is too small for an .ibt file");
+        }
+        ByteBuffer headers = map(0, headersSize);
+        this.header = new HeaderSnapshot(headers);
+        this.diskHeader = IbtDiskHeader.read(headers);
+
+        // Header, var headers and session info, everything before the rows
+        long metadataSize = Math.max(headersSize, Math.max(
+                (long) header.getVarHeaderOffset() + ((long) header.getNumVars() * VarHeader.VAR_HEADER_SIZE),
+                (long) header.getSessionInfoOffset() + header.getSessionInfoLen()));
+        this.metadata = map(0, Math.min(size, metadataSize));
+        this.varTable = VarTable.parse(metadata, header.getVarHeaderOffset(), header.getNumVars());
+        this.sessionInfo = readSessionInfo(metadata, header);
+
+        int bufLen = header.getBufLen();
+        if (bufLen <= 0 || bufLen > windowSize) {
+            throw new IOException(path + " has an invalid row length " + bufLen);
+        }
+        this.rowsOffset = header.getVarBufOffset(0);
+        long rowsInFile = Math.max(0L, (size - rowsOffset) / bufLen);
+        int recordCount = diskHeader.getSessionRecordCount();
+        // A file that was not closed properly has no record count
+        this.rowCount = (int) Math.min(Integer.MAX_VALUE, recordCount > 0 ? Math.min(recordCount, rowsInFile) : rowsInFile);
+        this.rowsPerWindow = windowSize / bufLen;
+        this.windows = new AtomicReferenceArray<>(Math.max(1, (rowCount + rowsPerWindow - 1) / rowsPerWindow));
+    }
+
+    /**
+     * Open an .ibt file, close it once done
+     */
+    public static IbtFile open(Path path) throws IOException {
+        return open(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize max size of one mapped window of rows, at least one row
+     */
+    public static IbtFile open(Path path, int windowSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new IbtFile(path, channel, windowSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public HeaderSnapshot getHeader() {
+        return header;
+    }
+
+    public IbtDiskHeader getDiskHeader() {
+        return diskHeader;
+    }
+
+    public VarTable getVarTable() {
+        return varTable;
+    }
+
+    /**
+     * @return a read only view of the var header table as written in the file
+     */
+    public ByteBuffer getVarHeaderByteBuffer() {
+        int length = Math.min(varTable.size() * VarHeader.VAR_HEADER_SIZE, metadata.limit() - header.getVarHeaderOffset());
+        return metadata.asReadOnlyBuffer().position(header.getVarHeaderOffset())
+                       .limit(header.getVarHeaderOffset() + length).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the session info YAML as written in the file
+     */
+    public String getSessionInfo() {
+        return sessionInfo;
+    }
+
+    /**
+     * @return the parsed session info, an empty {@link YamlFile} if it can't be parsed
+     */
+    public YamlFile getYamlFile() {
+        int end = sessionInfo.indexOf("...");
+        try {
+            return new ObjectMapper(new YAMLFactory()).readValue(end < 0 ? sessionInfo : sessionInfo.substring(0, end + 3),
+                                                                 YamlFile.class);
+        } catch (IOException e) {
+            log.warn("Can't parse session info of {}: {}", path, e.getMessage());
+            return YamlFile.initEmpty();
+        }
+    }
+
+    public FloatVar floatVar(String varName) {
+        return varTable.bind(new FloatVar(varName));
+    }
+
+    public IntVar intVar(String varName) {
+        return varTable.bind(new IntVar(varName));
+    }
+
+    public DoubleVar doubleVar(String varName) {
+        return varTable.bind(new DoubleVar(varName));
+    }
+
+    public BooleanVar booleanVar(String varName) {
+        return varTable.bind(new BooleanVar(varName));
+    }
+
+    public <E extends Enum<E> & BitFlag> BitfieldVar<E> bitfieldVar(String varName, Class<E> flagType) {
+        return varTable.bind(new BitfieldVar<>(varName, flagType));
+    }
+
+    /**
+     * Read one row without copying it, the tick count of the frame is the row index
+     *
+     * @param row between 0 and {@link #getRowCount()} excluded
+     * @return a frame over the mapped row
+     */
+    public TelemetryFrame getRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        ByteBuffer window = getWindow(row / rowsPerWindow);
+        int offset = (row % rowsPerWindow) * header.getBufLen();
+        ByteBuffer data = window.duplicate().position(offset).limit(offset + header.getBufLen()).slice();
+        return new TelemetryFrame(row, data, varTable);
+    }
+
+    /**
+     * Mapped window holding a row, to stride over the rows without a frame per row. Shared by every reader: only read it with
+     * absolute gets from {@link #getRowPosition(int)}.
+     *
+     * @param row between 0 and {@link #getRowCount()} excluded
+     */
+    public ByteBuffer getRowWindow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return getWindow(row / rowsPerWindow);
+    }
+
+    /**
+     * @return position of the first byte of a row in its {@link #getRowWindow(int) window}
+     */
+    public int getRowPosition(int row) {
+        return (row % rowsPerWindow) * header.getBufLen();
+    }
+
+    /**
+     * Rows by session, lap and session time, built on first call from the {@code .idx} file next to this one, or by reading
+     * every row once and saved there
+     */
+    public synchronized IbtIndex getIndex() {
+        if (index == null) {
+            try {
+                index = IbtIndex.load(this);
+            } catch (IOException e) {
+                log.warn("Can't read index of {}: {}", path, e.getMessage());
+                index = IbtIndex.build(this);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return a cursor before the first row, to walk the rows in order
+     */
+    public IbtCursor cursor() {
+        return new IbtCursor(this);
+    }
+
+    private ByteBuffer getWindow(int index) {
+        ByteBuffer window = windows.get(index);
+        if (window == null) {
+            long firstRow = (long) index * rowsPerWindow;
+            int rows = (int) Math.min(rowsPerWindow, rowCount - firstRow);
+            try {
+                window = map(rowsOffset + (firstRow * header.getBufLen()), (long) rows * header.getBufLen());
+            } catch (IOException e) {
+                throw new IllegalStateException("Can't map rows of " + path, e);
+            }
+            // Two readers may map the same window, both mappings are valid
+            windows.compareAndSet(index, null, window);
+        }
+        return window;
+    }
+
+    private ByteBuffer map(long offset, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String readSessionInfo(ByteBuffer metadata, HeaderSnapshot header) {
+        int offset = header.getSessionInfoOffset();
+        int length = Math.min(header.getSessionInfoLen(), metadata.limit() - offset);
+        if (offset <= 0 || length <= 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        metadata.duplicate().position(offset).get(bytes);
+        int end = 0;
+        while (end < length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mapped windows are unmapped once garbage collected
+        channel.close();
+    }
+
+}
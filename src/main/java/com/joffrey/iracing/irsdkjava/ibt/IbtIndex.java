@@ -0,0 +1,283 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Row numbers of an {@link IbtFile} by session number, lap and session time.
+ * <p>
+ * One streaming pass keeps the first row of each (SessionNum, Lap), sorted so a lap is found by binary search. A session time
+ * is found by binary search on the SessionTime of the rows of its session, read straight from the mapped file. The index is
+ * saved next to the file ({@code .idx}) with the size and the modification time of the file, and loaded from there as long as
+ * they match.
+ */
+@Slf4j
+public class IbtIndex {
+
+    public static final String FILE_EXTENSION = ".idx";
+
+    private static final int MAGIC   = 0x49425458; // IBTX
+    private static final int VERSION = 1;
+
+    private final IbtFile   ibtFile;
+    private final DoubleVar sessionTime;
+    // (SessionNum << 32 | Lap) sorted, and the first row of each
+    private final long[]    keys;
+    private final int[]     rows;
+    // Session numbers in order, with the first row and the row after the last row of each
+    private final int[]     sessionNums;
+    private final int[]     sessionStarts;
+    private final int[]     sessionEnds;
+
+    private IbtIndex(IbtFile ibtFile, long[] keys, int[] rows) {
+        this.ibtFile = ibtFile;
+        this.sessionTime = ibtFile.doubleVar("SessionTime");
+        this.keys = keys;
+        this.rows = rows;
+        this.sessionNums = Arrays.stream(keys).mapToInt(IbtIndex::getSessionNum).distinct().toArray();
+        this.sessionStarts = new int[sessionNums.length];
+        this.sessionEnds = new int[sessionNums.length];
+        Arrays.fill(sessionStarts, Integer.MAX_VALUE);
+        Arrays.fill(sessionEnds, ibtFile.getRowCount());
+        // Laps of a session are not in row order (a lap 0 after a lap 1, ...), the session starts at the first row of any of them
+        for (int i = 0, session = 0; i < keys.length; i++) {
+            if (getSessionNum(keys[i]) != sessionNums[session]) {
+                session++;
+            }
+            sessionStarts[session] = Math.min(sessionStarts[session], rows[i]);
+        }
+        // Rows of a session are contiguous, a session ends where the next one in the file starts
+        for (int session = 0; session < sessionNums.length; session++) {
+            for (int other = 0; other < sessionNums.length; other++) {
+                if (sessionStarts[other] > sessionStarts[session]) {
+                    sessionEnds[session] = Math.min(sessionEnds[session], sessionStarts[other]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the index saved next to the file, or build it and save it
+     */
+    public static IbtIndex load(IbtFile ibtFile) throws IOException {
+        Path sidecar = getSidecar(ibtFile.getPath());
+        long fileSize = Files.size(ibtFile.getPath());
+        long modified = Files.getLastModifiedTime(ibtFile.getPath()).toMillis();
+        if (Files.isReadable(sidecar)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+                IbtIndex index = read(ibtFile, in, fileSize, modified);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException e) {
+                log.debug("Can't read {}: {}", sidecar, e.getMessage());
+            }
+        }
+        IbtIndex index = build(ibtFile);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(sidecar))) {
+            index.write(new DataOutputStream(out), fileSize, modified);
+        } catch (IOException e) {
+            log.warn("Can't save index {}: {}", sidecar, e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Read every row once, without saving anything
+     */
+    public static IbtIndex build(IbtFile ibtFile) {
+        IntVar sessionNum = ibtFile.intVar("SessionNum");
+        IntVar lap = ibtFile.intVar("Lap");
+        long[] keys = new long[64];
+        int[] rows = new int[64];
+        int size = 0;
+        long previous = Long.MIN_VALUE;
+        IbtCursor cursor = ibtFile.cursor();
+        while (cursor.next()) {
+            long key = toKey(cursor.getFrame().getVarInt(sessionNum), cursor.getFrame().getVarInt(lap));
+            if (key != previous) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    rows = Arrays.copyOf(rows, size * 2);
+                }
+                keys[size] = key;
+                rows[size] = cursor.getRow();
+                size++;
+                previous = key;
+            }
+        }
+        return sorted(ibtFile, keys, rows, size);
+    }
+
+    /**
+     * @return the first row of the lap, -1 if it's not in the file
+     */
+    public int findLap(int sessionNum, int lap) {
+        int at = Arrays.binarySearch(keys, toKey(sessionNum, lap));
+        return at >= 0 ? rows[at] : -1;
+    }
+
+    /**
+     * @return the first row of the session, -1 if it's not in the file
+     */
+    public int findSession(int sessionNum) {
+        int session = Arrays.binarySearch(sessionNums, sessionNum);
+        return session >= 0 ? sessionStarts[session] : -1;
+    }
+
+    /**
+     * @return the last row of the session at or before this session time, the first row of the session if the time is before
+     * it, -1 if the session is not in the file
+     */
+    public int findTime(int sessionNum, double time) {
+        int session = Arrays.binarySearch(sessionNums, sessionNum);
+        if (session < 0) {
+            return -1;
+        }
+        int first = sessionStarts[session];
+        int low = first;
+        int high = sessionEnds[session];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ibtFile.getRow(mid).getVarDouble(sessionTime) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.max(first, low - 1);
+    }
+
+    /**
+     * @return laps of the file in row order, a lap seen twice (a reset, ...) only starts at its first row
+     */
+    public List<IbtLap> getLaps() {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> rows[i]));
+        List<IbtLap> laps = new ArrayList<>(keys.length);
+        for (int i = 0; i < order.length; i++) {
+            int end = i + 1 < order.length ? rows[order[i + 1]] : ibtFile.getRowCount();
+            long key = keys[order[i]];
+            laps.add(new IbtLap(getSessionNum(key), getLap(key), rows[order[i]], end));
+        }
+        return laps;
+    }
+
+    /**
+     * @return session numbers of the file, sorted
+     */
+    public int[] getSessionNums() {
+        return sessionNums.clone();
+    }
+
+    private static IbtIndex sorted(IbtFile ibtFile, long[] keys, int[] rows, int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // By key then by row, only the first row of a key is kept
+        long[] finalKeys = keys;
+        int[] finalRows = rows;
+        Arrays.sort(order, (a, b) -> finalKeys[a] != finalKeys[b] ? Long.compare(finalKeys[a], finalKeys[b])
+                                                                   : Integer.compare(finalRows[a], finalRows[b]));
+        long[] sortedKeys = new long[size];
+        int[] sortedRows = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (count == 0 || sortedKeys[count - 1] != keys[order[i]]) {
+                sortedKeys[count] = keys[order[i]];
+                sortedRows[count] = rows[order[i]];
+                count++;
+            }
+        }
+        return new IbtIndex(ibtFile, Arrays.copyOf(sortedKeys, count), Arrays.copyOf(sortedRows, count));
+    }
+
+    private void write(DataOutputStream out, long fileSize, long modified) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fileSize);
+        out.writeLong(modified);
+        out.writeInt(ibtFile.getRowCount());
+        out.writeInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            out.writeLong(keys[i]);
+            out.writeInt(rows[i]);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the saved index, null if it was saved for another version of the file
+     */
+    private static IbtIndex read(IbtFile ibtFile, DataInputStream in, long fileSize, long modified) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fileSize || in.readLong() != modified
+            || in.readInt() != ibtFile.getRowCount()) {
+            return null;
+        }
+        int size = in.readInt();
+        long[] keys = new long[size];
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = in.readLong();
+            rows[i] = in.readInt();
+        }
+        return new IbtIndex(ibtFile, keys, rows);
+    }
+
+    static Path getSidecar(Path path) {
+        return path.resolveSibling(path.getFileName() + FILE_EXTENSION);
+    }
+
+    private static long toKey(int sessionNum, int lap) {
+        // Offset so negative laps sort before positive ones
+        return ((long) sessionNum << 32) | ((long) lap - Integer.MIN_VALUE);
+    }
+
+    private static int getSessionNum(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int getLap(long key) {
+        return (int) ((key & 0xFFFFFFFFL) + Integer.MIN_VALUE);
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records frames into one .ibt or delta file without blocking the caller on disk.
+ * <p>
+ * Frames are copied into a pool of direct buffers of {@code batchRows} rows, a full buffer is written by an {@link IbtWriter}
+ * or a {@link DeltaWriter} on the I/O executor and goes back to the pool. Every file operation runs on that executor, it must
+ * run the tasks one at a time and in order (a single thread executor). When the disk falls behind and every buffer is waiting
+ * to be written, frames are dropped and counted instead of waiting.
+ */
+@Slf4j
+public class IbtRecorder {
+
+    private final Path                      path;
+    private final Executor                  ioExecutor;
+    private final int                       bufLen;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+
+    // Caller thread only
+    private          ByteBuffer batch       = null;
+    private          boolean    closed      = false;
+    private volatile long       droppedRows = 0L;
+    // I/O thread only
+    private          RowWriter  writer      = null;
+
+    /**
+     * Start a recording, the file is created on the I/O executor
+     *
+     * @param header      the irsdk_header of the shared memory, {@link com.joffrey.iracing.irsdkjava.model.Header#HEADER_SIZE}
+     *                    bytes
+     * @param varHeaders  the var header table the frames are laid out with
+     * @param sessionInfo the session info YAML written in the file
+     * @param batchRows   rows per buffer
+     * @param buffers     buffers in the pool, at least 2 so frames are batched while a buffer is written
+     */
+    public IbtRecorder(Path path, Executor ioExecutor, ByteBuffer header, ByteBuffer varHeaders, ByteBuffer sessionInfo,
+                       int batchRows, int buffers) {
+        this(path, ioExecutor, header, varHeaders, sessionInfo, batchRows, buffers, RecordingFormat.IBT,
+             DeltaWriter.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Start a recording in a given format, the file is created on the I/O executor
+     *
+     * @param keyframeInterval rows from one keyframe to the next of a {@link RecordingFormat#DELTA} recording
+     */
+    public IbtRecorder(Path path, Executor ioExecutor, ByteBuffer header, ByteBuffer varHeaders, ByteBuffer sessionInfo,
+                       int batchRows, int buffers, RecordingFormat format, int keyframeInterval) {
+        if (batchRows <= 0 || buffers < 2) {
+            throw new IllegalArgumentException("Invalid recorder buffers " + buffers + " of " + batchRows + " rows");
+        }
+        this.path = path;
+        this.ioExecutor = ioExecutor;
+        this.bufLen = new HeaderSnapshot(header).getBufLen();
+        this.freeBuffers = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(Math.multiplyExact(batchRows, bufLen)).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        ioExecutor.execute(() -> {
+            try {
+                writer = format == RecordingFormat.DELTA
+                         ? DeltaWriter.create(path, header, varHeaders, sessionInfo, keyframeInterval)
+                         : IbtWriter.create(path, header, varHeaders, sessionInfo);
+                log.info("Recording to {}", path);
+            } catch (IOException e) {
+                log.warn("Can't create {}: {}", path, e.getMessage());
+            }
+        });
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getBufLen() {
+        return bufLen;
+    }
+
+    /**
+     * @return frames not recorded because the disk was behind
+     */
+    public long getDroppedRows() {
+        return droppedRows;
+    }
+
+    /**
+     * Add a frame to the current batch, never blocks
+     *
+     * @param frame a frame laid out with the var headers of the recording
+     */
+    public void record(TelemetryFrame frame) {
+        if (closed || frame.getBufLen() != bufLen) {
+            return;
+        }
+        if (batch == null) {
+            batch = freeBuffers.poll();
+            if (batch == null) {
+                droppedRows++;
+                return;
+            }
+        }
+        batch.put(frame.getByteBuffer().clear());
+        if (!batch.hasRemaining()) {
+            flush();
+        }
+    }
+
+    /**
+     * Write what's left and finish the file with its record count and session time range
+     *
+     * @return completed with the path once the file is closed
+     */
+    public CompletableFuture<Path> close() {
+        if (!closed) {
+            closed = true;
+            flush();
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            if (writer != null) {
+                try {
+                    writer.close();
+                    log.info("Recorded {} rows to {}, {} dropped", writer.getRecordCount(), path, droppedRows);
+                } catch (IOException e) {
+                    log.warn("Can't close {}: {}", path, e.getMessage());
+                }
+                writer = null;
+            }
+            return path;
+        }, ioExecutor);
+    }
+
+    private void flush() {
+        ByteBuffer full = batch;
+        batch = null;
+        if (full == null || full.position() == 0) {
+            if (full != null) {
+                freeBuffers.add(full);
+            }
+            return;
+        }
+        full.flip();
+        ioExecutor.execute(() -> {
+            try {
+                if (writer != null) {
+                    writer.write(full);
+                }
+            } catch (IOException e) {
+                log.warn("Can't write to {}: {}", path, e.getMessage());
+            } finally {
+                full.clear();
+                freeBuffers.add(full);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Writes an .ibt file: the header, an empty {@link IbtDiskHeader}, the var headers and the session info, then the rows as they
+ * come.
+ * <p>
+ * The disk header is only written by {@link #close()}, a file with a record count of 0 was not closed and can be finished with
+ * {@link #recover(Path)}. Not thread safe, meant to be used by a single I/O thread.
+ */
+public class IbtWriter implements RowWriter {
+
+    private static final int METADATA_OFFSET = Header.HEADER_SIZE + IbtDiskHeader.SIZE;
+
+    private final FileChannel channel;
+    private final Instant     sessionStartDate;
+    private final int         bufLen;
+    private final int         sessionTimeOffset;
+    private final int         lapOffset;
+
+    private long   position;
+    private int    recordCount      = 0;
+    private double sessionStartTime = 0.0;
+    private double sessionEndTime   = 0.0;
+    private int    sessionLapCount  = 0;
+
+    private IbtWriter(FileChannel channel, int bufLen, VarTable varTable, long rowsOffset) {
+        this.channel = channel;
+        this.sessionStartDate = Instant.now();
+        this.bufLen = bufLen;
+        this.sessionTimeOffset = getOffset(varTable, "SessionTime", VarType.irsdk_double);
+        this.lapOffset = getOffset(varTable, "Lap", VarType.irsdk_int);
+        this.position = rowsOffset;
+    }
+
+    /**
+     * Create the file and write everything but the rows
+     *
+     * @param header      the irsdk_header of the shared memory, {@link Header#HEADER_SIZE} bytes
+     * @param varHeaders  the var header table
+     * @param sessionInfo the session info YAML
+     */
+    public static IbtWriter create(Path path, ByteBuffer header, ByteBuffer varHeaders, ByteBuffer sessionInfo)
+            throws IOException {
+        HeaderSnapshot snapshot = new HeaderSnapshot(header);
+        int numVars = varHeaders.remaining() / VarHeader.VAR_HEADER_SIZE;
+        int sessionInfoOffset = METADATA_OFFSET + (numVars * VarHeader.VAR_HEADER_SIZE);
+        int sessionInfoLen = sessionInfo.remaining();
+        int rowsOffset = sessionInfoOffset + sessionInfoLen;
+
+        ByteBuffer metadata = ByteBuffer.allocate(rowsOffset).order(ByteOrder.LITTLE_ENDIAN);
+        metadata.putInt(0, snapshot.getVer());
+        metadata.putInt(4, snapshot.getStatus());
+        metadata.putInt(8, snapshot.getTickRate());
+        metadata.putInt(12, snapshot.getSessionInfoUpdate());
+        metadata.putInt(16, sessionInfoLen);
+        metadata.putInt(20, sessionInfoOffset);
+        metadata.putInt(24, numVars);
+        metadata.putInt(28, METADATA_OFFSET);
+        metadata.putInt(32, 1);
+        metadata.putInt(36, snapshot.getBufLen());
+        metadata.putInt(48 + 4, rowsOffset);
+        metadata.position(METADATA_OFFSET);
+        metadata.put(varHeaders.duplicate());
+        metadata.put(sessionInfo.duplicate());
+        metadata.flip();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            writeFully(channel, metadata, 0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        VarTable varTable = VarTable.parse(varHeaders, varHeaders.position(), numVars);
+        return new IbtWriter(channel, snapshot.getBufLen(), varTable, rowsOffset);
+    }
+
+    @Override
+    public void write(ByteBuffer rows) throws IOException {
+        int count = rows.remaining() / bufLen;
+        if (count == 0) {
+            return;
+        }
+        int first = rows.position();
+        int last = first + ((count - 1) * bufLen);
+        if (recordCount == 0) {
+            sessionStartTime = readDouble(rows, first, sessionTimeOffset);
+        }
+        sessionEndTime = readDouble(rows, last, sessionTimeOffset);
+        sessionLapCount = Math.max(sessionLapCount, readInt(rows, last, lapOffset));
+
+        ByteBuffer whole = rows.duplicate().limit(first + (count * bufLen));
+        writeFully(channel, whole, position);
+        position += (long) count * bufLen;
+        recordCount += count;
+    }
+
+    @Override
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Write the disk header and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeDiskHeader(channel, new IbtDiskHeader(sessionStartDate, sessionStartTime, sessionEndTime, sessionLapCount,
+                                                       recordCount));
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Finish a file whose writer was never closed: a partly written last row is cut and the disk header written from the rows.
+     * Only for files of an {@link IbtWriter}, a file still being written by another process would be cut. A file without a whole
+     * row is deleted: its record count of 0 can't tell it from an unfinished file, it would be recovered again on each startup.
+     *
+     * @return the number of rows, 0 if the file was deleted, -1 if the file was already closed properly
+     */
+    public static int recover(Path path) throws IOException {
+        int rows = recoverRows(path);
+        if (rows == 0) {
+            Files.delete(path);
+        }
+        return rows;
+    }
+
+    private static int recoverRows(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer metadata = ByteBuffer.allocate(METADATA_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(metadata, 0);
+            metadata.clear();
+            IbtDiskHeader diskHeader = IbtDiskHeader.read(metadata);
+            if (diskHeader.getSessionRecordCount() > 0) {
+                return -1;
+            }
+            HeaderSnapshot header = new HeaderSnapshot(metadata);
+            int bufLen = header.getBufLen();
+            long rowsOffset = header.getVarBufOffset(0);
+            if (bufLen <= 0 || rowsOffset < METADATA_OFFSET) {
+                throw new IOException(path + " is not an .ibt file");
+            }
+            int rows = (int) Math.min(Integer.MAX_VALUE, Math.max(0L, (channel.size() - rowsOffset) / bufLen));
+            channel.truncate(rowsOffset + ((long) rows * bufLen));
+
+            ByteBuffer varHeaders = ByteBuffer.allocate(header.getNumVars() * VarHeader.VAR_HEADER_SIZE);
+            channel.read(varHeaders, header.getVarHeaderOffset());
+            VarTable varTable = VarTable.parse(varHeaders, 0, header.getNumVars());
+            int sessionTimeOffset = getOffset(varTable, "SessionTime", VarType.irsdk_double);
+            int lapOffset = getOffset(varTable, "Lap", VarType.irsdk_int);
+            double startTime = 0.0;
+            double endTime = 0.0;
+            int lapCount = 0;
+            if (rows > 0) {
+                ByteBuffer row = ByteBuffer.allocate(bufLen).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(row, rowsOffset);
+                startTime = readDouble(row, 0, sessionTimeOffset);
+                row.clear();
+                channel.read(row, rowsOffset + ((long) (rows - 1) * bufLen));
+                endTime = readDouble(row, 0, sessionTimeOffset);
+                lapCount = readInt(row, 0, lapOffset);
+            }
+            writeDiskHeader(channel, new IbtDiskHeader(diskHeader.getSessionStartDate(), startTime, endTime, lapCount, rows));
+            channel.force(true);
+            return rows;
+        }
+    }
+
+    private static void writeDiskHeader(FileChannel channel, IbtDiskHeader diskHeader) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(IbtDiskHeader.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(diskHeader.getSessionStartDate().getEpochSecond());
+        buffer.putDouble(diskHeader.getSessionStartTime());
+        buffer.putDouble(diskHeader.getSessionEndTime());
+        buffer.putInt(diskHeader.getSessionLapCount());
+        buffer.putInt(diskHeader.getSessionRecordCount());
+        buffer.flip();
+        writeFully(channel, buffer, IbtDiskHeader.OFFSET);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * @return offset of a var in a row, -1 if the var is missing or doesn't have the expected type
+     */
+    private static int getOffset(VarTable varTable, String name, VarType type) {
+        VarHeader varHeader = varTable.get(name);
+        return varHeader != null && VarType.get(varHeader.getType()) == type ? varHeader.getOffset() : -1;
+    }
+
+    private static double readDouble(ByteBuffer rows, int rowOffset, int varOffset) {
+        if (varOffset < 0 || rowOffset + varOffset + Double.BYTES > rows.limit()) {
+            return 0.0;
+        }
+        return rows.duplicate().order(ByteOrder.LITTLE_ENDIAN).getDouble(rowOffset + varOffset);
+    }
+
+    private static int readInt(ByteBuffer rows, int rowOffset, int varOffset) {
+        if (varOffset < 0 || rowOffset + varOffset + Integer.BYTES > rows.limit()) {
+            return 0;
+        }
+        return rows.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(rowOffset + varOffset);
+    }
+
+}
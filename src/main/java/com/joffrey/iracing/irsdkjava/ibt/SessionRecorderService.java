@@ -0,0 +1,177 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.ibt;
+
+import com.joffrey.iracing.irsdkjava.config.RecorderProperties;
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+
+/**
+ * Records every live session to irsdkjava.config.recorder.directory, one .ibt (or delta, see {@link RecordingFormat}) file per
+ * connection, var layout and session.
+ * <p>
+ * Frames are taken on the frames worker and written by an {@link IbtRecorder} on a dedicated I/O thread. .ibt files of this
+ * recorder left unfinished by a crash are finished with {@link IbtWriter#recover(Path)} on startup (deleted when they hold no
+ * whole row), other .ibt files of the directory (e.g. one iRacing is writing) are never touched. Unfinished delta files need no recovery, {@link DeltaReader}
+ * counts their whole rows when it opens them.
+ */
+@Slf4j
+@Service
+public class SessionRecorderService implements DisposableBean {
+
+    private static final DateTimeFormatter FILE_NAME     = DateTimeFormatter.ofPattern("'irsdkjava_'yyyyMMdd_HHmmss");
+    private static final Pattern           IBT_RECORDING = Pattern.compile(
+            "irsdkjava_\\d{8}_\\d{6}_\\d+" + Pattern.quote(RecordingFormat.IBT.getFileExtension()));
+
+    private final RecorderProperties recorderProperties;
+    private final SdkStarter         sdkStarter;
+    private final Path               directory;
+    private final ExecutorService    ioExecutor;
+    private final Disposable         frames;
+    private final Disposable         connectionStates;
+
+    private IbtRecorder recorder         = null;
+    private VarTable    recordedVarTable = null;
+    private int         lastTickCount    = -1;
+    private int         recordings       = 0;
+
+    public SessionRecorderService(RecorderProperties recorderProperties, SdkStarter sdkStarter, TickSource tickSource) {
+        this.recorderProperties = recorderProperties;
+        this.sdkStarter = sdkStarter;
+        if (recorderProperties.getDirectory() == null || recorderProperties.getDirectory().isEmpty()) {
+            this.directory = null;
+            this.ioExecutor = null;
+            this.frames = null;
+            this.connectionStates = null;
+            return;
+        }
+        this.directory = Paths.get(recorderProperties.getDirectory());
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "irsdkjava-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ioExecutor.execute(this::recoverUnfinished);
+        this.frames = tickSource.getFrameFlux().subscribe(this::record);
+        this.connectionStates = sdkStarter.getConnectionStateFlux()
+                                          .filter(connectionState -> connectionState == ConnectionState.DISCONNECTED)
+                                          .subscribe(connectionState -> stopRecording());
+    }
+
+    /**
+     * @return the file being recorded, null when not recording
+     */
+    public synchronized Path getRecordingPath() {
+        return recorder != null ? recorder.getPath() : null;
+    }
+
+    private synchronized void record(TelemetryFrame frame) {
+        VarTable varTable = frame.getVarTable();
+        // A new layout or a new session can't be appended to the current file
+        if (recorder == null || varTable != recordedVarTable || frame.getTickCount() < lastTickCount
+            || frame.getBufLen() != recorder.getBufLen()) {
+            stopRecording();
+            startRecording(varTable);
+        }
+        lastTickCount = frame.getTickCount();
+        recorder.record(frame);
+    }
+
+    private void startRecording(VarTable varTable) {
+        Header header = sdkStarter.getHeader();
+        // Numbered so two recordings started in the same second don't collide, without touching the disk from this thread
+        Path path = directory.resolve(FILE_NAME.format(LocalDateTime.now()) + "_" + (++recordings)
+                                    + recorderProperties.getFormat().getFileExtension());
+        recorder = new IbtRecorder(path, ioExecutor, header.getHeaderByteBuffer(), header.getVarHeaderByteBuffer(),
+                                   header.getSessionInfoByteBuffer(), recorderProperties.getBatchRows(),
+                                   recorderProperties.getBuffers(), recorderProperties.getFormat(),
+                                   recorderProperties.getKeyframeInterval());
+        recordedVarTable = varTable;
+    }
+
+    private synchronized void stopRecording() {
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+            recordedVarTable = null;
+            lastTickCount = -1;
+        }
+    }
+
+    private void recoverUnfinished() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SessionRecorderService::isIbtRecording)) {
+                for (Path file : files) {
+                    int rows = IbtWriter.recover(file);
+                    if (rows > 0) {
+                        log.info("Recovered {} rows of unfinished recording {}", rows, file);
+                    } else if (rows == 0) {
+                        log.info("Deleted unfinished recording {} without any row", file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Can't recover recordings of {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * @return true for an .ibt file named by {@link #startRecording(VarTable)}
+     */
+    private static boolean isIbtRecording(Path file) {
+        return Files.isRegularFile(file) && IBT_RECORDING.matcher(file.getFileName().toString()).matches();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (ioExecutor == null) {
+            return;
+        }
+        frames.dispose();
+        connectionStates.dispose();
+        stopRecording();
+        ioExecutor.shutdown();
+        ioExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+}
@@ -27,8 +27,12 @@ import com.joffrey.iracing.irsdkjava.config.FluxProperties;
 import com.joffrey.iracing.irsdkjava.laptiming.model.LapTimingData;
 import com.joffrey.iracing.irsdkjava.laptiming.model.LapTimingData.LiveData;
 import com.joffrey.iracing.irsdkjava.laptiming.model.LapTimingData.YamlData;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
 import com.joffrey.iracing.irsdkjava.model.defines.TrkLoc;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -42,8 +46,6 @@ import lombok.extern.java.Log;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.ConnectableFlux;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Log
 @Service
@@ -51,16 +53,37 @@ public class LapTimingService {
 
     private final FluxProperties fluxProperties;
     private final SdkStarter     sdkStarter;
+    private final TickSource     tickSource;
     private final YamlService    yamlService;
 
     private final ConnectableFlux<List<LapTimingData>> listLapTimingDataFlux;
 
-    public LapTimingService(FluxProperties fluxProperties, SdkStarter sdkStarter, YamlService yamlService) {
+    private final IntVar   carIdxPosition;
+    private final IntVar   carIdxClassPosition;
+    private final FloatVar carIdxEstTime;
+    private final FloatVar carIdxF2Time;
+    private final IntVar   carIdxLap;
+    private final FloatVar carIdxLapDistPct;
+    private final FloatVar carIdxLastLapTime;
+    private final FloatVar carIdxBestLapTime;
+    private final IntVar   carIdxTrackSurface;
+
+    public LapTimingService(FluxProperties fluxProperties, SdkStarter sdkStarter, TickSource tickSource, YamlService yamlService) {
         this.fluxProperties = fluxProperties;
         this.sdkStarter = sdkStarter;
+        this.tickSource = tickSource;
         this.yamlService = yamlService;
-        this.listLapTimingDataFlux = Flux.interval(Duration.ofMillis(fluxProperties.getLapTimingIntervalInMs()))
-                                         .filter(aLong -> sdkStarter.isRunning()).flatMap(aLong -> loadLapTimingDataList())
+        this.carIdxPosition = sdkStarter.intVar("CarIdxPosition");
+        this.carIdxClassPosition = sdkStarter.intVar("CarIdxClassPosition");
+        this.carIdxEstTime = sdkStarter.floatVar("CarIdxEstTime");
+        this.carIdxF2Time = sdkStarter.floatVar("CarIdxF2Time");
+        this.carIdxLap = sdkStarter.intVar("CarIdxLap");
+        this.carIdxLapDistPct = sdkStarter.floatVar("CarIdxLapDistPct");
+        this.carIdxLastLapTime = sdkStarter.floatVar("CarIdxLastLapTime");
+        this.carIdxBestLapTime = sdkStarter.floatVar("CarIdxBestLapTime");
+        this.carIdxTrackSurface = sdkStarter.intVar("CarIdxTrackSurface");
+        this.listLapTimingDataFlux = tickSource.getFrameFlux(Duration.ofMillis(fluxProperties.getLapTimingIntervalInMs()))
+                                         .flatMap(this::loadLapTimingDataList)
                                          .publish();
     }
 
@@ -75,47 +98,53 @@ public class LapTimingService {
 
     /**
      * Get a list of {@link LapTimingData} object filled with each car data
+     *
+     * @param frame the frame of the current tick, shared by all cars
      */
-    private Flux<List<LapTimingData>> loadLapTimingDataList() {
+    private Flux<List<LapTimingData>> loadLapTimingDataList(TelemetryFrame frame) {
         DriversInfoYaml driverInfo = yamlService.getYamlFile().getDriverInfo();
         int totalSize = driverInfo == null || driverInfo.getDrivers() == null ? 0 : driverInfo.getDrivers().size();
         if (totalSize == 0) {
             return Flux.just(new ArrayList<>());
         }
-        return Flux.range(0, totalSize)
-                .subscribeOn(Schedulers.parallel())
-                .flatMap(carIdx -> getLapTimingDataForCarIdx(carIdx, driverInfo))
-                .sort(getLapTimingDataComparator())
-                .buffer(totalSize)
-                .map(this::setDriversNewPosition)
-                .map(this::setDriversInterval);
+        CarIdxArrays carIdxArrays = new CarIdxArrays(frame, totalSize);
+        List<LapTimingData> lapTimingDataList = new ArrayList<>(totalSize);
+        for (int carIdx = 0; carIdx < totalSize; carIdx++) {
+            lapTimingDataList.add(getLapTimingDataForCarIdx(carIdx, driverInfo, carIdxArrays));
+        }
+        lapTimingDataList.sort(getLapTimingDataComparator());
+        return Flux.just(setDriversInterval(setDriversNewPosition(lapTimingDataList)));
     }
 
     /**
      * Get lap timing data for a given car idx
      *
-     * @param carIdx the car idx
+     * @param carIdx       the car idx
      * @param driverInfo
+     * @param carIdxArrays the CarIdx* vars of the current tick, shared by all cars
      * @return {@link LapTimingData} filled with values
      */
-    private Flux<LapTimingData> getLapTimingDataForCarIdx(int carIdx, DriversInfoYaml driverInfo) {
+    private LapTimingData getLapTimingDataForCarIdx(int carIdx, DriversInfoYaml driverInfo, CarIdxArrays carIdxArrays) {
         LapTimingData lapTimingData = new LapTimingData();
         lapTimingData.setCarIdx(carIdx);
 
         lapTimingData.setLiveData(new LiveData()
-                .setCarIdxPosition(sdkStarter.getVarInt("CarIdxPosition", carIdx))
-                .setCarIdxClassPosition(sdkStarter.getVarInt("CarIdxClassPosition", carIdx))
-                .setCarIdxEstTime(sdkStarter.getVarFloat("CarIdxEstTime", carIdx))
-                .setCarIdxF2Time(sdkStarter.getVarFloat("CarIdxF2Time", carIdx))
-                .setCarIdxLap(sdkStarter.getVarInt("CarIdxLap", carIdx))
-                .setCarIdxLapDistPct(sdkStarter.getVarFloat("CarIdxLapDistPct", carIdx))
-                .setCarIdxLastLapTime(sdkStarter.getVarFloat("CarIdxLastLapTime", carIdx))
-                .setCarIdxBestLapTime(sdkStarter.getVarFloat("CarIdxBestLapTime", carIdx))
+                .setCarIdxPosition(carIdxArrays.position[carIdx])
+                .setCarIdxClassPosition(carIdxArrays.classPosition[carIdx])
+                .setCarIdxEstTime(carIdxArrays.estTime[carIdx])
+                .setCarIdxF2Time(carIdxArrays.f2Time[carIdx])
+                .setCarIdxLap(carIdxArrays.lap[carIdx])
+                .setCarIdxLapDistPct(carIdxArrays.lapDistPct[carIdx])
+                .setCarIdxLastLapTime(carIdxArrays.lastLapTime[carIdx])
+                .setCarIdxBestLapTime(carIdxArrays.bestLapTime[carIdx])
         );
 
         DriverInfoYaml driverInfoYaml = driverInfo.getDrivers().get(carIdx);
+        TrkLoc trkLoc = TrkLoc.of(carIdxArrays.trackSurface[carIdx]);
         lapTimingData.setYamlData(new YamlData()
-                .setCarIdxTrackSurface(TrkLoc.valueOf(sdkStarter.getVarInt("CarIdxTrackSurface", carIdx)))
+                // The constant name, not a String built per car and tick
+                .setCarIdxTrackSurface(trkLoc.name())
+                .setCarIdxTrkLoc(trkLoc)
                 .setCarIsPaceCar(driverInfoYaml.getCarIsPaceCar())
                 .setCarIsAI(driverInfoYaml.getCarIsAI())
                 .setUserName(driverInfoYaml.getUserName())
@@ -135,7 +164,7 @@ public class LapTimingService {
                 .setDivisionName(driverInfoYaml.getDivisionName())
         );
 
-        return Flux.just(lapTimingData);
+        return lapTimingData;
     }
 
     /**
@@ -196,4 +225,44 @@ public class LapTimingService {
         return lapTimingData;
     }
 
+    /**
+     * The CarIdx* vars of one tick, each one copied with a single bulk read
+     */
+    private class CarIdxArrays {
+
+        private final int[]   position;
+        private final int[]   classPosition;
+        private final float[] estTime;
+        private final float[] f2Time;
+        private final int[]   lap;
+        private final float[] lapDistPct;
+        private final float[] lastLapTime;
+        private final float[] bestLapTime;
+        private final int[]   trackSurface;
+
+        private CarIdxArrays(TelemetryFrame frame, int size) {
+            position = readInts(frame, carIdxPosition, size);
+            classPosition = readInts(frame, carIdxClassPosition, size);
+            estTime = readFloats(frame, carIdxEstTime, size);
+            f2Time = readFloats(frame, carIdxF2Time, size);
+            lap = readInts(frame, carIdxLap, size);
+            lapDistPct = readFloats(frame, carIdxLapDistPct, size);
+            lastLapTime = readFloats(frame, carIdxLastLapTime, size);
+            bestLapTime = readFloats(frame, carIdxBestLapTime, size);
+            trackSurface = readInts(frame, carIdxTrackSurface, size);
+        }
+
+        private int[] readInts(TelemetryFrame frame, IntVar var, int size) {
+            int[] values = new int[size];
+            frame.readInts(var, values);
+            return values;
+        }
+
+        private float[] readFloats(TelemetryFrame frame, FloatVar var, int size) {
+            float[] values = new float[size];
+            frame.readFloats(var, values);
+            return values;
+        }
+    }
+
 }
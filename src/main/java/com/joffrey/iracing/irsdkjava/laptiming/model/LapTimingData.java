@@ -24,6 +24,7 @@
 
 package com.joffrey.iracing.irsdkjava.laptiming.model;
 
+import com.joffrey.iracing.irsdkjava.model.defines.TrkLoc;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -58,6 +59,7 @@ public class LapTimingData {
     @Data @AllArgsConstructor @NoArgsConstructor
     public static class YamlData {
         private String carIdxTrackSurface; // Use this for know if car is in world
+        private TrkLoc carIdxTrkLoc;       // Same as carIdxTrackSurface, compare it without strings
         private String carIsPaceCar;
         private String carIsAI;
         private String userName;
@@ -0,0 +1,124 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.memory;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A file laid out exactly like IRSDKMemMapFileName, mapped with {@link FileChannel#map}.
+ * <p>
+ * Used to run the library against a captured memory image, or against a file rewritten by another process. There is no data
+ * valid event, a new tick is detected by polling the tick counts of the var buffers.
+ */
+@Slf4j
+public class FileSharedMemorySource implements SharedMemorySource {
+
+    static final long POLL_INTERVAL_MS = 1L;
+
+    private final Path path;
+
+    private FileChannel      channel       = null;
+    private MappedByteBuffer memory        = null;
+    private int              lastTickCount = -1;
+
+    public FileSharedMemorySource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public boolean open() {
+        if (channel == null) {
+            if (!Files.isReadable(path)) {
+                return false;
+            }
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            } catch (IOException e) {
+                log.warn("Can't open {}: {}", path, e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ByteBuffer map() {
+        try {
+            if (channel.size() < Header.HEADER_SIZE) {
+                return null;
+            }
+            memory = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return memory.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            log.warn("Can't map {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean waitForTick(int timeoutMs) throws InterruptedException {
+        if (memory == null) {
+            Thread.sleep(timeoutMs);
+            return false;
+        }
+        long deadline = System.nanoTime() + (timeoutMs * 1_000_000L);
+        while (true) {
+            HeaderSnapshot snapshot = new HeaderSnapshot(memory);
+            int tickCount = snapshot.getVarBufTickCount(snapshot.getLatestVarBufIdx());
+            if (tickCount != lastTickCount) {
+                lastTickCount = tickCount;
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    @Override
+    public void close() {
+        // A MappedByteBuffer is unmapped once it is garbage collected
+        memory = null;
+        lastTickCount = -1;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Can't close {}: {}", path, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+}
@@ -0,0 +1,281 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.memory;
+
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.defines.StatusField;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Plays an .ibt file as if the sim was running, every service reads it through the usual {@link Header} and {@link
+ * com.joffrey.iracing.irsdkjava.model.SdkStarter} path.
+ * <p>
+ * The rows are written one by one in rotating var buffers of an in-memory copy of the shared memory, each call to {@link
+ * #waitForTick(int)} publishes the next row once it is due. Rows are paced on their SessionTime divided by the speed, or on the
+ * tick rate without SessionTime, {@link #AS_FAST_AS_POSSIBLE} publishes a row on every call. The session info of the file is
+ * published with the first row, more session info can be set at any row with {@link #putSessionInfo(int, String)}. The sim
+ * is seen as disconnected once the last row was played, unless the replay loops. Any thread can move the replay to a row, a
+ * lap or a session time with {@link #seek(int)}, {@link #seekLap(int, int)} or {@link #seekTime(int, double)}.
+ */
+@Slf4j
+public class ReplaySharedMemorySource implements SharedMemorySource {
+
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    static final int NUM_BUF = 3;
+
+    private final Path                 path;
+    private final double               speed;
+    private final boolean              loop;
+    private final Map<Integer, String> sessionInfos = new TreeMap<>();
+
+    private ByteBuffer memory            = null;
+    private DoubleVar  sessionTime       = null;
+    private int        sessionInfoOffset = 0;
+    private int        nextRow           = 0;
+    private int        tickCount         = 0;
+    private long       startNanos        = 0L;
+    private int        startRow          = -1;
+    private double     startSessionTime  = 0.0;
+
+    // Opened and closed on the reader thread, read by seeks from other threads
+    private volatile IbtFile ibtFile = null;
+    // Row requested by a seek from another thread, played on the next tick
+    private volatile int     seekRow = -1;
+
+    /**
+     * @param speed 1 to play at the recorded pace, 2 twice as fast, ... or {@link #AS_FAST_AS_POSSIBLE}
+     * @param loop  play the file again from the first row once the last one was played
+     */
+    public ReplaySharedMemorySource(Path path, double speed, boolean loop) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Invalid replay speed " + speed);
+        }
+        this.path = path;
+        this.speed = speed;
+        this.loop = loop;
+    }
+
+    /**
+     * Publish another session info when a row is played, to be called before {@link #open()}
+     */
+    public void putSessionInfo(int row, String yaml) {
+        sessionInfos.put(row, yaml);
+    }
+
+    /**
+     * @return number of rows played since the start, loops included
+     */
+    public int getRowsPlayed() {
+        return tickCount;
+    }
+
+    /**
+     * Play from this row on the next tick, pacing starts again from it
+     *
+     * @return false if the file is not open or the row is not in it
+     */
+    public boolean seek(int row) {
+        IbtFile file = ibtFile;
+        if (file == null || row < 0 || row >= file.getRowCount()) {
+            return false;
+        }
+        seekRow = row;
+        return true;
+    }
+
+    /**
+     * Play from the first row of a lap, found with the {@link IbtFile#getIndex() index} of the file
+     *
+     * @return false if the file is not open or the lap is not in it
+     */
+    public boolean seekLap(int sessionNum, int lap) {
+        IbtFile file = ibtFile;
+        return file != null && seek(file.getIndex().findLap(sessionNum, lap));
+    }
+
+    /**
+     * Play from a session time, found with the {@link IbtFile#getIndex() index} of the file
+     *
+     * @return false if the file is not open or the session is not in it
+     */
+    public boolean seekTime(int sessionNum, double time) {
+        IbtFile file = ibtFile;
+        return file != null && seek(file.getIndex().findTime(sessionNum, time));
+    }
+
+    public boolean isFinished() {
+        IbtFile file = ibtFile;
+        return file != null && !loop && nextRow >= file.getRowCount();
+    }
+
+    @Override
+    public boolean open() {
+        if (ibtFile == null) {
+            try {
+                ibtFile = IbtFile.open(path);
+            } catch (IOException e) {
+                log.warn("Can't replay {}: {}", path, e.getMessage());
+                return false;
+            }
+            sessionInfos.putIfAbsent(0, ibtFile.getSessionInfo());
+            sessionTime = ibtFile.doubleVar("SessionTime");
+            memory = createMemory();
+        }
+        return true;
+    }
+
+    @Override
+    public ByteBuffer map() {
+        return memory != null ? memory.duplicate().order(ByteOrder.LITTLE_ENDIAN) : null;
+    }
+
+    @Override
+    public boolean waitForTick(int timeoutMs) throws InterruptedException {
+        int seekTo = seekRow;
+        if (seekTo >= 0 && memory != null) {
+            seekRow = -1;
+            nextRow = seekTo;
+            startRow = -1;
+        }
+        if (memory == null || ibtFile.getRowCount() == 0 || isFinished()) {
+            if (memory != null && isFinished()) {
+                memory.putInt(4, 0);
+            }
+            Thread.sleep(timeoutMs);
+            return false;
+        }
+        if (nextRow >= ibtFile.getRowCount()) {
+            nextRow = 0;
+            startRow = -1;
+        }
+        if (startRow < 0) {
+            // Pacing starts again from the first row played after a start, a loop or a seek
+            startRow = nextRow;
+            startNanos = System.nanoTime();
+            startSessionTime = getSessionTime(nextRow);
+        }
+        if (speed != AS_FAST_AS_POSSIBLE) {
+            long remainingNanos = getDueNanos(nextRow) - System.nanoTime();
+            if (remainingNanos > TimeUnit.MILLISECONDS.toNanos(timeoutMs)) {
+                Thread.sleep(timeoutMs);
+                return false;
+            }
+            if (remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(remainingNanos);
+            }
+        }
+        publish(nextRow++);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        memory = null;
+        nextRow = 0;
+        startRow = -1;
+        seekRow = -1;
+        IbtFile file = ibtFile;
+        if (file != null) {
+            // Unpublished first so a seek doesn't use the file being closed
+            ibtFile = null;
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Can't close {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Header, var headers, room for the largest session info and the var buffers, not connected until the first row
+     */
+    private ByteBuffer createMemory() {
+        HeaderSnapshot header = ibtFile.getHeader();
+        ByteBuffer varHeaders = ibtFile.getVarHeaderByteBuffer();
+        int bufLen = header.getBufLen();
+        int maxSessionInfoLen = sessionInfos.values().stream()
+                                            .mapToInt(yaml -> yaml.getBytes(StandardCharsets.ISO_8859_1).length)
+                                            .max().orElse(0) + 1;
+        sessionInfoOffset = Header.HEADER_SIZE + varHeaders.remaining();
+        int firstBufOffset = sessionInfoOffset + maxSessionInfoLen;
+
+        ByteBuffer created = ByteBuffer.allocateDirect(firstBufOffset + (NUM_BUF * bufLen)).order(ByteOrder.LITTLE_ENDIAN);
+        created.putInt(0, header.getVer());
+        created.putInt(8, header.getTickRate());
+        created.putInt(20, sessionInfoOffset);
+        created.putInt(24, varHeaders.remaining() / VarHeader.VAR_HEADER_SIZE);
+        created.putInt(28, Header.HEADER_SIZE);
+        created.putInt(32, NUM_BUF);
+        created.putInt(36, bufLen);
+        for (int i = 0; i < NUM_BUF; i++) {
+            created.putInt(48 + (i * Header.VARBUF_SIZE) + 4, firstBufOffset + (i * bufLen));
+        }
+        created.position(Header.HEADER_SIZE);
+        created.put(varHeaders.duplicate());
+        return created.clear();
+    }
+
+    /**
+     * Copy a row in the oldest var buffer, then publish its tick count like iRacing does
+     */
+    private void publish(int row) {
+        String yaml = sessionInfos.get(row);
+        if (yaml != null) {
+            byte[] bytes = yaml.getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer sessionInfo = memory.duplicate().position(sessionInfoOffset);
+            sessionInfo.put(bytes).put((byte) 0);
+            memory.putInt(16, bytes.length);
+            memory.putInt(12, memory.getInt(12) + 1);
+        }
+        tickCount++;
+        int varBuf = tickCount % NUM_BUF;
+        int bufOffset = memory.getInt(48 + (varBuf * Header.VARBUF_SIZE) + 4);
+        memory.duplicate().position(bufOffset).put(ibtFile.getRow(row).getByteBuffer().clear());
+        memory.putInt(48 + (varBuf * Header.VARBUF_SIZE), tickCount);
+        memory.putInt(4, StatusField.IRSDK_STCONNECTED.getValue());
+    }
+
+    private long getDueNanos(int row) {
+        double elapsed = sessionTime.isBound() ? getSessionTime(row) - startSessionTime
+                                               : (row - startRow) / (double) Math.max(1, ibtFile.getHeader().getTickRate());
+        return startNanos + (long) (elapsed * TimeUnit.SECONDS.toNanos(1) / speed);
+    }
+
+    private double getSessionTime(int row) {
+        return ibtFile.getRow(row).getVarDouble(sessionTime);
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Where the iRacing shared memory comes from.
+ * <p>
+ * The memory is read through the returned view only, so {@link com.joffrey.iracing.irsdkjava.model.Header} and every service
+ * work the same whatever the source is.
+ */
+public interface SharedMemorySource {
+
+    /**
+     * Open the memory and its tick signal, called until it succeeds
+     *
+     * @return true once the memory can be mapped
+     */
+    boolean open();
+
+    /**
+     * @return a little endian view over the whole memory, null if it can't be mapped yet
+     */
+    ByteBuffer map();
+
+    /**
+     * Block until the producer signals a new tick
+     *
+     * @param timeoutMs max time to wait in ms
+     * @return true if a new tick was signaled, false on timeout
+     */
+    boolean waitForTick(int timeoutMs) throws InterruptedException;
+
+    /**
+     * Release the mapping and the handles, the source can be opened again afterwards
+     */
+    void close();
+
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.memory;
+
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.defines.Constant;
+import com.joffrey.iracing.irsdkjava.windows.WindowsService;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.WinNT;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The iRacing memory mapped file and its data valid event, opened through Kernel32
+ */
+@RequiredArgsConstructor
+public class WindowsSharedMemorySource implements SharedMemorySource {
+
+    private final WindowsService windowsService;
+
+    private WinNT.HANDLE memMapFile     = null;
+    private WinNT.HANDLE dataValidEvent = null;
+    private Pointer      sharedMemory   = null;
+
+    @Override
+    public boolean open() {
+        if (memMapFile == null) {
+            memMapFile = windowsService.openMemoryMapFile(Constant.IRSDK_MEMMAPFILENAME);
+        }
+        if (memMapFile != null && dataValidEvent == null) {
+            dataValidEvent = windowsService.openEvent(Constant.IRSDK_DATAVALIDEVENTNAME);
+        }
+        return memMapFile != null && dataValidEvent != null;
+    }
+
+    @Override
+    public ByteBuffer map() {
+        if (sharedMemory == null) {
+            sharedMemory = windowsService.mapViewOfFile(memMapFile);
+            if (sharedMemory == null) {
+                return null;
+            }
+        }
+        long size = windowsService.getMappedViewSize(sharedMemory);
+        if (size <= 0) {
+            size = Header.getMappedSize(new HeaderSnapshot(sharedMemory.getByteBuffer(0, Header.HEADER_SIZE)));
+        }
+        return sharedMemory.getByteBuffer(0, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public boolean waitForTick(int timeoutMs) throws InterruptedException {
+        if (dataValidEvent == null) {
+            Thread.sleep(timeoutMs);
+            return false;
+        }
+        return windowsService.waitForSingleObject(dataValidEvent, timeoutMs);
+    }
+
+    @Override
+    public void close() {
+        if (sharedMemory != null) {
+            windowsService.unmapViewOfFile(sharedMemory);
+            sharedMemory = null;
+        }
+        if (memMapFile != null) {
+            windowsService.closeHandle(memMapFile);
+            memMapFile = null;
+        }
+        if (dataValidEvent != null) {
+            windowsService.closeHandle(dataValidEvent);
+            dataValidEvent = null;
+        }
+    }
+
+}
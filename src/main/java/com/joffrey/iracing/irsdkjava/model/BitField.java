@@ -0,0 +1,154 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+import com.joffrey.iracing.irsdkjava.model.defines.BitFlag;
+import java.util.EnumSet;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Flag view of the raw value of an irsdk_bitField variable.
+ * <p>
+ * Only holds the raw int, the masks of each enum are computed once and shared so checking a flag doesn't allocate. A view can
+ * be reused from one tick to the next with {@link #set(int)}.
+ *
+ * @param <E> the flags enum ({@link com.joffrey.iracing.irsdkjava.model.defines.Flags}, ...)
+ */
+public final class BitField<E extends Enum<E> & BitFlag> {
+
+    private static final ClassValue<Masks<?>> MASKS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected Masks<?> computeValue(Class<?> flagType) {
+            return new Masks(flagType);
+        }
+    };
+
+    private final Masks<E> masks;
+    private       int      raw;
+
+    public BitField(Class<E> flagType) {
+        this(flagType, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BitField(Class<E> flagType, int raw) {
+        this.masks = (Masks<E>) MASKS.get(flagType);
+        this.raw = raw;
+    }
+
+    /**
+     * @param raw the new raw value
+     * @return this view
+     */
+    public BitField<E> set(int raw) {
+        this.raw = raw;
+        return this;
+    }
+
+    public int getRaw() {
+        return raw;
+    }
+
+    public boolean isSet(E flag) {
+        int mask = masks.masks[flag.ordinal()];
+        return mask != 0 && (raw & mask) == mask;
+    }
+
+    /**
+     * @return true if no known flag is set
+     */
+    public boolean isEmpty() {
+        return (raw & masks.all) == 0;
+    }
+
+    /**
+     * Call the action for each set flag in declaration order, without allocating
+     */
+    public void forEach(Consumer<? super E> action) {
+        for (E flag : masks.flags) {
+            if (isSet(flag)) {
+                action.accept(flag);
+            }
+        }
+    }
+
+    /**
+     * @return a new set of the set flags
+     */
+    public EnumSet<E> toEnumSet() {
+        EnumSet<E> set = EnumSet.noneOf(masks.flagType);
+        forEach(set::add);
+        return set;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BitField<?> bitField = (BitField<?>) o;
+        return masks == bitField.masks && raw == bitField.raw;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * masks.flagType.hashCode() + raw;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", masks.flagType.getSimpleName() + "[", "]");
+        forEach(flag -> joiner.add(flag.name()));
+        return joiner.toString();
+    }
+
+    /**
+     * Masks of an enum indexed by ordinal
+     */
+    private static final class Masks<E extends Enum<E> & BitFlag> {
+
+        private final Class<E> flagType;
+        private final E[]      flags;
+        private final int[]    masks;
+        private final int      all;
+
+        private Masks(Class<E> flagType) {
+            this.flagType = flagType;
+            this.flags = flagType.getEnumConstants();
+            this.masks = new int[flags.length];
+            int allMasks = 0;
+            for (E flag : flags) {
+                masks[flag.ordinal()] = flag.getValue();
+                allMasks |= flag.getValue();
+            }
+            this.all = allMasks;
+        }
+    }
+
+}
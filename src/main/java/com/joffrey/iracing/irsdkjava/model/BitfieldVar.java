@@ -0,0 +1,66 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+import com.joffrey.iracing.irsdkjava.model.defines.BitFlag;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import com.joffrey.iracing.irsdkjava.model.defines.VarTypeBytes;
+
+/**
+ * Handle on an irsdk_bitField variable, read as a {@link BitField} of the given flags enum
+ */
+public class BitfieldVar<E extends Enum<E> & BitFlag> extends TelemetryVar {
+
+    private final Class<E>                 flagType;
+    // One view per thread, updated in place by each read without a destination
+    private final ThreadLocal<BitField<E>> view;
+
+    public BitfieldVar(String name, Class<E> flagType) {
+        super(name);
+        this.flagType = flagType;
+        this.view = ThreadLocal.withInitial(() -> new BitField<>(flagType));
+    }
+
+    public Class<E> getFlagType() {
+        return flagType;
+    }
+
+    /**
+     * @return the view of this handle for the calling thread, valid until its next read on that thread
+     */
+    BitField<E> getView() {
+        return view.get();
+    }
+
+    @Override
+    protected boolean isCompatible(VarType type) {
+        return type == VarType.irsdk_bitField || type == VarType.irsdk_int;
+    }
+
+    @Override
+    protected VarTypeBytes getTypeBytes() {
+        return VarTypeBytes.IRSDK_BIT_FIELD;
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+/**
+ * Connection to the sim, as seen by {@link SdkStarter#poll()}
+ */
+public enum ConnectionState {
+
+    /**
+     * The shared memory can't be opened, the sim is not started
+     */
+    DISCONNECTED,
+    /**
+     * The shared memory is mapped, waiting for the sim to flag it connected
+     */
+    MAPPING,
+    /**
+     * Connected, a new tick was seen recently
+     */
+    CONNECTED,
+    /**
+     * Still flagged connected but no new tick was seen for a while, the last frame is kept
+     */
+    STALE;
+
+    /**
+     * @return true while the sim is flagged connected, the var table and the frames can be read
+     */
+    public boolean isConnected() {
+        return this == CONNECTED || this == STALE;
+    }
+
+}
@@ -44,6 +44,7 @@ package com.joffrey.iracing.irsdkjava.model;/*
 
 
 import com.sun.jna.Pointer;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import lombok.Data;
@@ -53,105 +54,178 @@ public class Header {
 
     public static final int HEADER_SIZE = 112; // All fields are int (4 bytes), there are 28 fields (28 * 4) = 112
     public final static int VARBUF_SIZE = 4 * 4;
+    public final static int FRAME_COPY_ATTEMPTS = 4;
 
     private Pointer    sharedMemory;
-    private ByteBuffer byteBuffer;
+    private ByteBuffer byteBuffer;             // little endian view over the whole mapped file, reads are not copied
 
+    /**
+     * Map a view over the memory described by the header itself
+     */
     public Header(Pointer sharedMemory) {
+        this(sharedMemory, getMappedSize(new HeaderSnapshot(ByteBuffer.wrap(sharedMemory.getByteArray(0, HEADER_SIZE)))));
+    }
+
+    public Header(Pointer sharedMemory, long size) {
         this.sharedMemory = sharedMemory;
+        this.byteBuffer = sharedMemory.getByteBuffer(0, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public Header(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return the number of bytes covered by the header, the var headers, the session info and the var buffers
+     */
+    public static long getMappedSize(HeaderSnapshot snapshot) {
+        long size = HEADER_SIZE;
+        size = Math.max(size, (long) snapshot.getSessionInfoOffset() + snapshot.getSessionInfoLen());
+        size = Math.max(size, snapshot.getVarHeaderOffset() + ((long) snapshot.getNumVars() * VarHeader.VAR_HEADER_SIZE));
+        for (int i = 0; i < snapshot.getNumBuf(); i++) {
+            size = Math.max(size, (long) snapshot.getVarBufOffset(i) + snapshot.getBufLen());
+        }
+        return size;
     }
 
     public ByteBuffer getHeaderByteBuffer() {
-        ByteBuffer headerByteBuffer = ByteBuffer.allocateDirect(HEADER_SIZE);
-        headerByteBuffer.put(sharedMemory.getByteArray(0, Header.HEADER_SIZE));
-        headerByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        return headerByteBuffer;
+        return copyOf(0, HEADER_SIZE);
+    }
+
+    /**
+     * Read the whole header at once, the result should be shared by every reader of the current tick
+     *
+     * @return an immutable {@link HeaderSnapshot}
+     */
+    public HeaderSnapshot snapshot() {
+        return new HeaderSnapshot(byteBuffer);
     }
 
     public ByteBuffer getSessionInfoByteBuffer() {
-        ByteBuffer sessionInfoByteBuffer =
-                ByteBuffer.wrap(sharedMemory.getByteArray(getSessionInfoOffset(), getSessionInfoLen()));
-        sessionInfoByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        return sessionInfoByteBuffer;
+        return copyOf(getSessionInfoOffset(), getSessionInfoLen());
     }
 
     public ByteBuffer getVarHeaderByteBuffer() {
-        ByteBuffer varHeaderByteBuffer =
-                ByteBuffer.wrap(sharedMemory.getByteArray(getVarHeaderOffset(), getNumVars() * HEADER_SIZE));
-        varHeaderByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        return varHeaderByteBuffer;
+        return copyOf(getVarHeaderOffset(), getNumVars() * VarHeader.VAR_HEADER_SIZE);
     }
 
     public ByteBuffer getVarByteBuffer(int idx) {
-        ByteBuffer varHeaderByteBuffer = ByteBuffer.wrap(sharedMemory.getByteArray(getVarBuf_BufOffset(idx), getBufLen()));
-        varHeaderByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        return varHeaderByteBuffer;
+        return copyOf(getVarBuf_BufOffset(idx), getBufLen());
     }
 
     public ByteBuffer getLatestVarByteBuffer() {
-        ByteBuffer varHeaderByteBuffer =
-                ByteBuffer.wrap(sharedMemory.getByteArray(getVarBuf_BufOffset(getLatestVarBuffIdx()), getBufLen()));
-        varHeaderByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        return varHeaderByteBuffer;
+        return getLatestVarByteBuffer(snapshot());
+    }
+
+    /**
+     * Copy the latest var buffer to the heap, prefer {@link #getLatestVarBufOffset(HeaderSnapshot)} with {@link
+     * #getByteBuffer()} to read values without copying
+     */
+    public ByteBuffer getLatestVarByteBuffer(HeaderSnapshot snapshot) {
+        return copyOf(getLatestVarBufOffset(snapshot), snapshot.getBufLen());
+    }
+
+    /**
+     * @return offset of the latest var buffer inside {@link #getByteBuffer()}
+     */
+    public int getLatestVarBufOffset(HeaderSnapshot snapshot) {
+        return snapshot.getVarBufOffset(snapshot.getLatestVarBufIdx());
+    }
+
+    /**
+     * Copy the latest var buffer into a {@link TelemetryFrame}.
+     * <p>
+     * iRacing keeps writing the rotating buffers while we copy, the tick count of the buffer is read again after the copy and
+     * the copy is retried on the new latest buffer when it changed.
+     *
+     * @return the frame, or null if every attempt was overwritten during the copy
+     */
+    public TelemetryFrame copyLatestFrame() {
+        return copyLatestFrame(null, null);
+    }
+
+    /**
+     * Same as {@link #copyLatestFrame()}, the retries and the copy time are counted in the recorder and the frame carries the
+     * var table
+     */
+    TelemetryFrame copyLatestFrame(ReaderStatsRecorder recorder, VarTable varTable) {
+        for (int attempt = 0; attempt < FRAME_COPY_ATTEMPTS; attempt++) {
+            long captureNanos = System.nanoTime();
+            HeaderSnapshot snapshot = snapshot();
+            int latest = snapshot.getLatestVarBufIdx();
+            int tickCount = snapshot.getVarBufTickCount(latest);
+            // Keep the copy between the two tick count reads
+            VarHandle.acquireFence();
+            ByteBuffer data = copyOf(snapshot.getVarBufOffset(latest), snapshot.getBufLen());
+            VarHandle.acquireFence();
+            if (getVarBuf_TickCount(latest) == tickCount) {
+                if (recorder != null) {
+                    recorder.recordCopy(System.nanoTime() - captureNanos, attempt);
+                }
+                return new TelemetryFrame(tickCount, data, captureNanos, varTable);
+            }
+        }
+        if (recorder != null) {
+            recorder.recordFailedCopy(FRAME_COPY_ATTEMPTS);
+        }
+        return null;
+    }
+
+    private ByteBuffer copyOf(int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = byteBuffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
     }
 
 
     public int getVer() {
-        return getHeaderByteBuffer().getInt(0);
+        return byteBuffer.getInt(0);
     }
 
     public int getStatus() {
-        return getHeaderByteBuffer().getInt(4);
+        return byteBuffer.getInt(4);
     }
 
     public int getTickRate() {
-        return getHeaderByteBuffer().getInt(8);
+        return byteBuffer.getInt(8);
     }
 
     public int getSessionInfoUpdate() {
-        return getHeaderByteBuffer().getInt(12);
+        return byteBuffer.getInt(12);
     }
 
     public int getSessionInfoLen() {
-        return getHeaderByteBuffer().getInt(16);
+        return byteBuffer.getInt(16);
     }
 
     public int getSessionInfoOffset() {
-        return getHeaderByteBuffer().getInt(20);
+        return byteBuffer.getInt(20);
     }
 
     public int getNumVars() {
-        return getHeaderByteBuffer().getInt(24);
+        return byteBuffer.getInt(24);
     }
 
     public int getVarHeaderOffset() {
-        return getHeaderByteBuffer().getInt(28);
+        return byteBuffer.getInt(28);
     }
 
     public int getNumBuf() {
-        return getHeaderByteBuffer().getInt(32);
+        return byteBuffer.getInt(32);
     }
 
     public int getBufLen() {
-        return getHeaderByteBuffer().getInt(36);
+        return byteBuffer.getInt(36);
     }
 
     public int getVarBuf_TickCount(int varBuf) {
-        return getSharedMemory().getInt((varBuf * VARBUF_SIZE) + 48);
+        return byteBuffer.getInt((varBuf * VARBUF_SIZE) + 48);
     }
 
     public int getVarBuf_BufOffset(int varBuf) {
-        return getSharedMemory().getInt((varBuf * VARBUF_SIZE) + 52);
-    }
-
-    private int getLatestVarBuffIdx() {
-        int latest = 0;
-        for (int i = 1; i < getNumBuf(); i++) {
-            if (getVarBuf_TickCount(latest) < getVarBuf_TickCount(i)) {
-                latest = i;
-            }
-        }
-        return latest;
+        return byteBuffer.getInt((varBuf * VARBUF_SIZE) + 52);
     }
 
 }
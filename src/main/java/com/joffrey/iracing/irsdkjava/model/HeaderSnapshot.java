@@ -0,0 +1,105 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+import com.joffrey.iracing.irsdkjava.model.defines.Constant;
+import com.joffrey.iracing.irsdkjava.model.defines.StatusField;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable copy of the irsdk_header, read once per tick and shared by every reader of that tick
+ */
+@Getter
+@ToString
+public final class HeaderSnapshot {
+
+    private final int ver;
+    private final int status;
+    private final int tickRate;
+    private final int sessionInfoUpdate;
+    private final int sessionInfoLen;
+    private final int sessionInfoOffset;
+    private final int numVars;
+    private final int varHeaderOffset;
+    private final int numBuf;
+    private final int bufLen;
+
+    @Getter(AccessLevel.NONE)
+    private final int[] varBufTickCount = new int[Constant.IRSDK_MAX_BUFS];
+    @Getter(AccessLevel.NONE)
+    private final int[] varBufOffset    = new int[Constant.IRSDK_MAX_BUFS];
+
+    /**
+     * @param headerByteBuffer a buffer holding at least {@link Header#HEADER_SIZE} bytes, starting at the header
+     */
+    public HeaderSnapshot(ByteBuffer headerByteBuffer) {
+        ByteBuffer buffer = headerByteBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int base = buffer.position();
+        ver = buffer.getInt(base);
+        status = buffer.getInt(base + 4);
+        tickRate = buffer.getInt(base + 8);
+        sessionInfoUpdate = buffer.getInt(base + 12);
+        sessionInfoLen = buffer.getInt(base + 16);
+        sessionInfoOffset = buffer.getInt(base + 20);
+        numVars = buffer.getInt(base + 24);
+        varHeaderOffset = buffer.getInt(base + 28);
+        numBuf = Math.max(0, Math.min(buffer.getInt(base + 32), Constant.IRSDK_MAX_BUFS));
+        bufLen = buffer.getInt(base + 36);
+
+        for (int i = 0; i < Constant.IRSDK_MAX_BUFS; i++) {
+            varBufTickCount[i] = buffer.getInt(base + (i * Header.VARBUF_SIZE) + 48);
+            varBufOffset[i] = buffer.getInt(base + (i * Header.VARBUF_SIZE) + 52);
+        }
+    }
+
+    public int getVarBufTickCount(int varBuf) {
+        return varBufTickCount[varBuf];
+    }
+
+    public int getVarBufOffset(int varBuf) {
+        return varBufOffset[varBuf];
+    }
+
+    /**
+     * @return index of the var buffer holding the highest tick count
+     */
+    public int getLatestVarBufIdx() {
+        int latest = 0;
+        for (int i = 1; i < numBuf; i++) {
+            if (varBufTickCount[latest] < varBufTickCount[i]) {
+                latest = i;
+            }
+        }
+        return latest;
+    }
+
+    public boolean isConnected() {
+        return (status & StatusField.IRSDK_STCONNECTED.getValue()) > 0;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.model;
+
+import java.util.Arrays;
+import lombok.Value;
+
+/**
+ * Counters of the shared memory reader, see {@link SdkStarter#getReaderStats()}.
+ * <p>
+ * Ticks are counted from the var buffers tick count, a skipped tick is one iRacing wrote but the reader never copied. The copy
+ * time histogram has one bucket per power of two microseconds, bucket {@code i} counts the copies that took less than {@link
+ * #getCopyTimeBucketUpperNanos(int)}, the last one everything slower.
+ */
+@Value
+public class ReaderStats {
+
+    public static final int         COPY_TIME_BUCKETS = 16;
+    public static final ReaderStats EMPTY             = new ReaderStats(0L, 0L, 0L, 0L, new long[COPY_TIME_BUCKETS]);
+
+    /**
+     * Ticks copied by the reader
+     */
+    long   ticksSeen;
+    /**
+     * Ticks written by iRacing between two copies of the reader
+     */
+    long   ticksSkipped;
+    /**
+     * Copies retried because iRacing wrote the var buffer during the copy
+     */
+    long   tornReads;
+    /**
+     * Ticks lost because every copy attempt was overwritten
+     */
+    long   failedCopies;
+    long[] copyTimeHistogram;
+
+    /**
+     * @return a copy of the histogram, {@link #COPY_TIME_BUCKETS} counts
+     */
+    public long[] getCopyTimeHistogram() {
+        return copyTimeHistogram.clone();
+    }
+
+    /**
+     * @return number of copies in the histogram
+     */
+    public long getCopyCount() {
+        return Arrays.stream(copyTimeHistogram).sum();
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return upper bound of the bucket holding this percentile of the copy times, 0 without any copy
+     */
+    public long getCopyTimePercentileNanos(double percentile) {
+        long count = getCopyCount();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < COPY_TIME_BUCKETS; bucket++) {
+            seen += copyTimeHistogram[bucket];
+            if (seen >= rank) {
+                return getCopyTimeBucketUpperNanos(bucket);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return exclusive upper bound of a bucket, {@link Long#MAX_VALUE} for the last one
+     */
+    public static long getCopyTimeBucketUpperNanos(int bucket) {
+        return bucket < COPY_TIME_BUCKETS - 1 ? 1000L << bucket : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the bucket of a copy time
+     */
+    static int getCopyTimeBucket(long nanos) {
+        int bucket = 64 - Long.numberOfLeadingZeros(Math.max(0L, nanos / 1000L));
+        return Math.min(bucket, COPY_TIME_BUCKETS - 1);
+    }
+
+}
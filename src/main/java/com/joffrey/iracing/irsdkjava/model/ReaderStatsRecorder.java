@@ -0,0 +1,84 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts what the single poller of {@link SdkStarter} reads, any thread can take a {@link ReaderStats} at any time
+ */
+final class ReaderStatsRecorder {
+
+    private final AtomicLongArray copyTimeHistogram = new AtomicLongArray(ReaderStats.COPY_TIME_BUCKETS);
+
+    // Single writer, the poller
+    private volatile long ticksSeen     = 0L;
+    private volatile long ticksSkipped  = 0L;
+    private volatile long tornReads     = 0L;
+    private volatile long failedCopies  = 0L;
+    private          int  lastTickCount = -1;
+
+    /**
+     * Count a copied tick and the ticks written since the previous one
+     */
+    void recordTick(int tickCount) {
+        if (lastTickCount >= 0 && tickCount > lastTickCount + 1) {
+            ticksSkipped += tickCount - lastTickCount - 1;
+        }
+        lastTickCount = tickCount;
+        ticksSeen++;
+    }
+
+    /**
+     * Forget the last tick, the next one is not compared to it (disconnection, new session)
+     */
+    void resetTick() {
+        lastTickCount = -1;
+    }
+
+    /**
+     * @param nanos   time spent in the successful attempt
+     * @param retries attempts overwritten before it
+     */
+    void recordCopy(long nanos, int retries) {
+        tornReads += retries;
+        copyTimeHistogram.incrementAndGet(ReaderStats.getCopyTimeBucket(nanos));
+    }
+
+    /**
+     * @param retries every attempt, all overwritten
+     */
+    void recordFailedCopy(int retries) {
+        tornReads += retries;
+        failedCopies++;
+    }
+
+    ReaderStats snapshot() {
+        long[] histogram = new long[ReaderStats.COPY_TIME_BUCKETS];
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            histogram[bucket] = copyTimeHistogram.get(bucket);
+        }
+        return new ReaderStats(ticksSeen, ticksSkipped, tornReads, failedCopies, histogram);
+    }
+
+}
@@ -23,107 +23,318 @@
 
 package com.joffrey.iracing.irsdkjava.model;
 
-import com.joffrey.iracing.irsdkjava.model.defines.StatusField;
+import com.joffrey.iracing.irsdkjava.memory.SharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.defines.BitFlag;
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
 import com.joffrey.iracing.irsdkjava.model.defines.VarTypeBytes;
-import com.joffrey.iracing.irsdkjava.windows.WindowsService;
-import com.sun.jna.Pointer;
-import com.sun.jna.platform.win32.WinNT;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
-public class SdkStarter {
+public class SdkStarter implements DisposableBean {
 
-    private final WindowsService windowsService;
-    private final Map<String, VarHeader> vars = new HashMap<>();
-    private WinNT.HANDLE memMapFile     = null;
-    private WinNT.HANDLE dataValidEvent = null;
-    @Getter
-    private Pointer      sharedMemory   = null;
+    static final long DEFAULT_STALE_TIMEOUT_MS = 1000L;
+
+    private final SharedMemorySource          sharedMemorySource;
+    private final Sinks.Many<VarTable>        varTableSink        = Sinks.many().replay().latest();
+    private final Sinks.Many<ConnectionState> connectionStateSink = Sinks.many().replay().latest();
+    private final ReaderStatsRecorder         readerStats         = new ReaderStatsRecorder();
     @Getter
-    private Header       header         = null;
-    private boolean isInitialized = false;
-    private boolean wasConnected  = false;
+    private Header header = null;
+    /**
+     * Max time without a new tick before a connected sim is {@link ConnectionState#STALE}
+     */
+    @Setter
+    private volatile long staleTimeoutMs = DEFAULT_STALE_TIMEOUT_MS;
+
+    // Written by the poller only, read by everyone without locking
+    private volatile SdkState state         = SdkState.INITIAL;
+    private          boolean  isInitialized = false;
+    private          long     lastTickNanos = 0L;
 
     private boolean isReady() {
         if (!isInitialized) {
-            // Try to open Memory Mapped File
-            if (memMapFile == null) {
-                memMapFile = windowsService.openMemoryMapFile(com.joffrey.iracing.irsdkjava.model.defines.Constant.IRSDK_MEMMAPFILENAME);
+            // Try to open and map the shared memory
+            if (!sharedMemorySource.open()) {
+                return false;
             }
+            ByteBuffer memory = sharedMemorySource.map();
+            if (memory == null) {
+                return false;
+            }
+            header = new Header(memory);
+            isInitialized = true;
+        }
+        return true;
+    }
 
-            if (memMapFile != null) {
-                if (sharedMemory == null) {
-                    sharedMemory = windowsService.mapViewOfFile(memMapFile);
-                    header = new Header(sharedMemory);
-
-                    if (header.getByteBuffer() == null) {
-                        return false;
-                    }
+    /**
+     * Read the header of the current tick and move the connection state machine, the var table is fetched on each connection and
+     * each layout change and the latest var buffer copied on each new tick.
+     * <p>
+     * Meant to be called once per tick by a single poller, the {@link com.joffrey.iracing.irsdkjava.tick.TickSource}, other
+     * threads read the published {@link SdkState}.
+     *
+     * @return the new connection state
+     */
+    public synchronized ConnectionState poll() {
+        SdkState current = state;
+        if (!isReady()) {
+            readerStats.resetTick();
+            publish(current.withConnectionState(ConnectionState.DISCONNECTED).withHeaderSnapshot(null));
+            return ConnectionState.DISCONNECTED;
+        }
 
-                }
+        // One header copy per tick, every getVar* call until the next tick reuses it
+        HeaderSnapshot snapshot = header.snapshot();
+        if (!snapshot.isConnected()) {
+            readerStats.resetTick();
+            publish(current.withConnectionState(ConnectionState.MAPPING).withHeaderSnapshot(snapshot));
+            return ConnectionState.MAPPING;
+        }
 
-                if (sharedMemory != null) {
-                    if (dataValidEvent == null) {
-                        dataValidEvent =
-                                windowsService.openEvent(com.joffrey.iracing.irsdkjava.model.defines.Constant.IRSDK_DATAVALIDEVENTNAME);
-                    }
-                }
+        VarTable varTable = current.getVarTable();
+        long now = System.nanoTime();
+        if (!current.getConnectionState().isConnected()) {
+            varTable = fetchVarTable();
+            lastTickNanos = now;
+        } else if (!varTable.getLayout().matches(header.getByteBuffer(), snapshot)) {
+            log.info("Var layout changed, fetching vars again.");
+            varTable = fetchVarTable();
+        }
 
-                if (dataValidEvent != null) {
-                    isInitialized = true;
-                    return true;
-                }
+        TelemetryFrame frame = current.getTelemetryFrame();
+        // A frame of the previous layout can't be read with the new var table
+        if (varTable != current.getVarTable() || frame.getTickCount() != snapshot.getVarBufTickCount(snapshot.getLatestVarBufIdx())) {
+            frame = copyLatestFrame(frame, varTable);
+            lastTickNanos = now;
+        }
+        ConnectionState connectionState = now - lastTickNanos < TimeUnit.MILLISECONDS.toNanos(staleTimeoutMs)
+                                          ? ConnectionState.CONNECTED
+                                          : ConnectionState.STALE;
 
-                return false;
-            }
-            return false;
+        publish(new SdkState(connectionState, snapshot, varTable, frame));
+        if (varTable != current.getVarTable()) {
+            varTableSink.tryEmitNext(varTable);
         }
-        return true;
+        return connectionState;
     }
 
+    /**
+     * Poll the sim, see {@link #poll()}
+     *
+     * @return true while the sim is connected, stale data included
+     */
     public boolean isRunning() {
-        boolean isConnected;
-
-        if (isReady()) {
-            isConnected = (header.getStatus() & StatusField.IRSDK_STCONNECTED.getValue()) > 0;
-        } else {
-            isConnected = false;
-        }
+        return poll().isConnected();
+    }
 
-        // keep track of connection status
-        if (wasConnected != isConnected) {
-            if (isConnected) {
+    private void publish(SdkState next) {
+        ConnectionState previous = state.getConnectionState();
+        state = next;
+        if (previous != next.getConnectionState()) {
+            if (next.getConnectionState().isConnected() && !previous.isConnected()) {
                 log.info("Connected to iRacing.");
-                fetchVars();
-            } else {
+            } else if (previous.isConnected() && !next.getConnectionState().isConnected()) {
                 log.info("Lost connection to iRacing");
             }
-            //****Note, put your connection handling here
-            wasConnected = isConnected;
+            log.debug("Connection state {} -> {}", previous, next.getConnectionState());
+            connectionStateSink.tryEmitNext(next.getConnectionState());
         }
+    }
+
+    /**
+     * Block until iRacing signals new data, same as irsdk_waitForDataReady
+     *
+     * @param timeout max time to wait in ms
+     * @return true if the source signaled a new tick, false on timeout or while the memory is not opened
+     */
+    public boolean waitForDataReady(int timeout) throws InterruptedException {
+        if (state.getConnectionState() == ConnectionState.DISCONNECTED) {
+            Thread.sleep(timeout);
+            return false;
+        }
+        return sharedMemorySource.waitForTick(timeout);
+    }
+
+    /**
+     * Build a new var table and swap it in, the var table subscribers are notified. Handles are never bound again, the frames
+     * copied from now on carry the new table and frames of the previous table are still read with their own
+     */
+    public synchronized void fetchVars() {
+        VarTable fetched = fetchVarTable();
+        publish(state.withVarTable(fetched));
+        varTableSink.tryEmitNext(fetched);
+    }
+
+    private VarTable fetchVarTable() {
+        return VarTable.parse(header.getByteBuffer(), header.snapshot());
+    }
+
+    /**
+     * Copy the latest var buffer, a frame overwritten during every copy attempt keeps the previous one
+     */
+    private TelemetryFrame copyLatestFrame(TelemetryFrame previous, VarTable varTable) {
+        TelemetryFrame frame = header.copyLatestFrame(readerStats, varTable);
+        if (frame == null) {
+            log.debug("Var buffer overwritten during each copy, keeping frame of tick {}", previous.getTickCount());
+            return previous;
+        }
+        if (frame.getTickCount() < previous.getTickCount()) {
+            // New session, the tick count starts again
+            readerStats.resetTick();
+        }
+        if (frame.getTickCount() != previous.getTickCount()) {
+            readerStats.recordTick(frame.getTickCount());
+        }
+        return frame;
+    }
+
+    /**
+     * @return the state published by the last {@link #poll()}, never null
+     */
+    public SdkState getState() {
+        return state;
+    }
+
+    /**
+     * @return the counters of the reader since startup, ticks seen and skipped, torn reads and copy times
+     */
+    public ReaderStats getReaderStats() {
+        return readerStats.snapshot();
+    }
+
+    /**
+     * Used to follow the reader health
+     *
+     * @param period time between two stats
+     * @return a {@literal Flux<ReaderStats>} emitting the counters each period
+     */
+    public Flux<ReaderStats> getReaderStatsFlux(Duration period) {
+        return Flux.interval(period).map(tick -> getReaderStats());
+    }
+
+    public ConnectionState getConnectionState() {
+        return state.getConnectionState();
+    }
+
+    /**
+     * Used to follow the connection, a state is emitted on each transition
+     *
+     * @return the hot {@literal Flux<ConnectionState>}, replaying the current state to a new subscriber
+     */
+    public Flux<ConnectionState> getConnectionStateFlux() {
+        return connectionStateSink.asFlux();
+    }
+
+    /**
+     * @return the header of the last poll, null while the shared memory is not mapped
+     */
+    public HeaderSnapshot getHeaderSnapshot() {
+        return state.getHeaderSnapshot();
+    }
 
-        return isConnected;
+    public VarTable getVarTable() {
+        return state.getVarTable();
     }
 
-    public void fetchVars() {
-        for (int index = 0; index < header.getNumVars(); index++) {
-            VarHeader vh = getVarHeaderEntry(index);
-            vars.put(vh.getName(), vh);
+    /**
+     * Used to follow the var layout, a new table is emitted on each connection and each layout change (car change, ...)
+     *
+     * @return the hot {@literal Flux<VarTable>}, replaying the current table to a new subscriber
+     */
+    public Flux<VarTable> getVarTableFlux() {
+        return varTableSink.asFlux();
+    }
+
+    /**
+     * @return the frame of the last tick seen by {@link #poll()}, all values of a frame come from the same tick
+     */
+    public TelemetryFrame getTelemetryFrame() {
+        return state.getTelemetryFrame();
+    }
+
+    public FloatVar floatVar(String varName) {
+        return register(new FloatVar(varName));
+    }
+
+    public IntVar intVar(String varName) {
+        return register(new IntVar(varName));
+    }
+
+    public DoubleVar doubleVar(String varName) {
+        return register(new DoubleVar(varName));
+    }
+
+    public BooleanVar booleanVar(String varName) {
+        return register(new BooleanVar(varName));
+    }
+
+    public <E extends Enum<E> & BitFlag> BitfieldVar<E> bitfieldVar(String varName, Class<E> flagType) {
+        return register(new BitfieldVar<>(varName, flagType));
+    }
+
+    /**
+     * Bind the handle to the current table, only used to warn about a type mismatch: frames are read with the table they carry
+     */
+    private <T extends TelemetryVar> T register(T handle) {
+        VarTable varTable = state.getVarTable();
+        VarHeader vh = varTable.bind(handle).isBound() ? null : varTable.get(handle.getName());
+        if (vh != null) {
+            log.warn("{} can't be bound to var of type {}", handle, VarType.get(vh.getType()));
         }
+        return handle;
+    }
+
+    public boolean getVarBoolean(BooleanVar var) {
+        return getVarBoolean(var, 0);
+    }
+
+    public boolean getVarBoolean(BooleanVar var, int entry) {
+        return getTelemetryFrame().getVarBoolean(var, entry);
+    }
+
+    public int getVarInt(IntVar var) {
+        return getVarInt(var, 0);
     }
 
-    private VarHeader getVarHeaderEntry(int index) {
-        return new VarHeader(ByteBuffer.wrap(sharedMemory.getByteArray(header.getVarHeaderOffset() + (VarHeader.VAR_HEADER_SIZE
-                                                                                                      * index),
-                                                                       VarHeader.VAR_HEADER_SIZE)));
+    public int getVarInt(IntVar var, int entry) {
+        return getTelemetryFrame().getVarInt(var, entry);
+    }
+
+    public float getVarFloat(FloatVar var) {
+        return getVarFloat(var, 0);
+    }
+
+    public float getVarFloat(FloatVar var, int entry) {
+        return getTelemetryFrame().getVarFloat(var, entry);
+    }
+
+    public double getVarDouble(DoubleVar var) {
+        return getVarDouble(var, 0);
+    }
+
+    public double getVarDouble(DoubleVar var, int entry) {
+        return getTelemetryFrame().getVarDouble(var, entry);
+    }
+
+    public <E extends Enum<E> & BitFlag> BitField<E> getVarBitfield(BitfieldVar<E> var) {
+        return getTelemetryFrame().getVarBitfield(var);
+    }
+
+    public <E extends Enum<E> & BitFlag> BitField<E> getVarBitfield(BitfieldVar<E> var, BitField<E> dest) {
+        return getTelemetryFrame().getVarBitfield(var, 0, dest);
     }
 
     public boolean getVarBoolean(String varName) {
@@ -131,14 +342,8 @@ public class SdkStarter {
     }
 
     public boolean getVarBoolean(String varName, int entry) {
-        VarHeader varHeader = vars.get(varName);
-        if (varHeader != null) {
-            if (entry >= 0 && entry < varHeader.getCount()) {
-                return (header.getLatestVarByteBuffer()
-                              .getChar(varHeader.getOffset() + (entry * VarTypeBytes.IRSDK_BOOL.getValue()))) != 0;
-            }
-        }
-        return false;
+        TelemetryFrame frame = getTelemetryFrame();
+        return frame.getBoolean(getOffset(frame, varName, entry, VarTypeBytes.IRSDK_BOOL));
     }
 
     public int getVarInt(String varName) {
@@ -146,13 +351,8 @@ public class SdkStarter {
     }
 
     public int getVarInt(String varName, int entry) {
-        VarHeader vh = vars.get(varName);
-        if (vh != null) {
-            if (entry >= 0 && entry < vh.getCount()) {
-                return header.getLatestVarByteBuffer().getInt(vh.getOffset() + (entry * VarTypeBytes.IRSDK_INT.getValue()));
-            }
-        }
-        return 0;
+        TelemetryFrame frame = getTelemetryFrame();
+        return frame.getInt(getOffset(frame, varName, entry, VarTypeBytes.IRSDK_INT));
     }
 
     public float getVarFloat(String varName) {
@@ -160,14 +360,8 @@ public class SdkStarter {
     }
 
     public float getVarFloat(String varName, int entry) {
-
-        VarHeader vh = vars.get(varName);
-        if (vh != null) {
-            if (entry >= 0 && entry < vh.getCount()) {
-                return header.getLatestVarByteBuffer().getFloat(vh.getOffset() + (entry * VarTypeBytes.IRSDK_FLOAT.getValue()));
-            }
-        }
-        return 0.0F;
+        TelemetryFrame frame = getTelemetryFrame();
+        return frame.getFloat(getOffset(frame, varName, entry, VarTypeBytes.IRSDK_FLOAT));
     }
 
     public double getVarDouble(String varName) {
@@ -175,16 +369,27 @@ public class SdkStarter {
     }
 
     public double getVarDouble(String varName, int entry) {
-        VarHeader vh = vars.get(varName);
-        if (vh != null) {
-            if (entry >= 0 && entry < vh.getCount()) {
-                return header.getLatestVarByteBuffer().getDouble(vh.getOffset() + (entry * VarTypeBytes.IRSDK_DOUBLE.getValue()));
+        TelemetryFrame frame = getTelemetryFrame();
+        return frame.getDouble(getOffset(frame, varName, entry, VarTypeBytes.IRSDK_DOUBLE));
+    }
 
-            }
+    /**
+     * Look the var up in the table the frame was copied with, not in the current one that may already be newer
+     *
+     * @return offset of the entry in the frame, -1 if the var or the entry doesn't exist
+     */
+    private static int getOffset(TelemetryFrame frame, String varName, int entry, VarTypeBytes typeBytes) {
+        VarTable varTable = frame.getVarTable();
+        VarHeader vh = varTable != null ? varTable.get(varName) : null;
+        if (vh != null && entry >= 0 && entry < vh.getCount()) {
+            return vh.getOffset() + (entry * typeBytes.getValue());
         }
-        return 0.0;
-
+        return -1;
     }
 
+    @Override
+    public void destroy() {
+        sharedMemorySource.close();
+    }
 
 }
@@ -0,0 +1,250 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.model;
+
+import com.joffrey.iracing.irsdkjava.model.defines.BitFlag;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Copy of one var buffer taken for a single sim tick.
+ * <p>
+ * Every value read from a frame belongs to the same tick, services receive one frame per tick from the {@link
+ * com.joffrey.iracing.irsdkjava.tick.TickSource} and read all their values from it. A frame carries the {@link VarTable} it was
+ * copied with, handles find their offsets in that table so a frame is read with its own layout even after the layout changed.
+ */
+public class TelemetryFrame {
+
+    /**
+     * Frame without any data, every read returns the default value
+     */
+    public static final TelemetryFrame EMPTY = new TelemetryFrame(-1, ByteBuffer.allocate(0));
+
+    private final int        tickCount;
+    private final ByteBuffer byteBuffer;
+    private final long       captureNanos;
+    private final VarTable   varTable;
+
+    /**
+     * @param tickCount  the tick count of the var buffer that was copied
+     * @param byteBuffer the copied var buffer, it must not be written afterwards
+     */
+    public TelemetryFrame(int tickCount, ByteBuffer byteBuffer) {
+        this(tickCount, byteBuffer, System.nanoTime());
+    }
+
+    /**
+     * @param tickCount    the tick count of the var buffer that was copied
+     * @param byteBuffer   the copied var buffer, it must not be written afterwards
+     * @param captureNanos {@link System#nanoTime()} when the copy started
+     */
+    public TelemetryFrame(int tickCount, ByteBuffer byteBuffer, long captureNanos) {
+        this(tickCount, byteBuffer, captureNanos, null);
+    }
+
+    /**
+     * @param tickCount  the tick count of the var buffer that was copied
+     * @param byteBuffer the copied var buffer, it must not be written afterwards
+     * @param varTable   the var table the buffer is laid out with
+     */
+    public TelemetryFrame(int tickCount, ByteBuffer byteBuffer, VarTable varTable) {
+        this(tickCount, byteBuffer, System.nanoTime(), varTable);
+    }
+
+    /**
+     * @param tickCount    the tick count of the var buffer that was copied
+     * @param byteBuffer   the copied var buffer, it must not be written afterwards
+     * @param captureNanos {@link System#nanoTime()} when the copy started
+     * @param varTable     the var table the buffer is laid out with, null to read it with the tables the handles were bound to
+     */
+    public TelemetryFrame(int tickCount, ByteBuffer byteBuffer, long captureNanos, VarTable varTable) {
+        this.tickCount = tickCount;
+        this.byteBuffer = byteBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.captureNanos = captureNanos;
+        this.varTable = varTable;
+    }
+
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return the var table the frame is laid out with, null if the frame was built without one
+     */
+    public VarTable getVarTable() {
+        return varTable;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the var buffer was copied, only comparable with other nanoTime values
+     */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * @return time elapsed since the var buffer was copied, the latency of the frame when read by a subscriber
+     */
+    public long getAgeNanos() {
+        return System.nanoTime() - captureNanos;
+    }
+
+    public int getBufLen() {
+        return byteBuffer.capacity();
+    }
+
+    /**
+     * @return a read only little endian view of the frame
+     */
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public boolean getVarBoolean(BooleanVar var) {
+        return getVarBoolean(var, 0);
+    }
+
+    public boolean getVarBoolean(BooleanVar var, int entry) {
+        return getBoolean(var.getOffset(varTable, entry));
+    }
+
+    public int getVarInt(IntVar var) {
+        return getVarInt(var, 0);
+    }
+
+    public int getVarInt(IntVar var, int entry) {
+        return getInt(var.getOffset(varTable, entry));
+    }
+
+    public float getVarFloat(FloatVar var) {
+        return getVarFloat(var, 0);
+    }
+
+    public float getVarFloat(FloatVar var, int entry) {
+        return getFloat(var.getOffset(varTable, entry));
+    }
+
+    public double getVarDouble(DoubleVar var) {
+        return getVarDouble(var, 0);
+    }
+
+    public double getVarDouble(DoubleVar var, int entry) {
+        return getDouble(var.getOffset(varTable, entry));
+    }
+
+    public <E extends Enum<E> & BitFlag> BitField<E> getVarBitfield(BitfieldVar<E> var) {
+        return getVarBitfield(var, 0);
+    }
+
+    /**
+     * Read a bitfield into the view of the handle for the calling thread, without allocating
+     *
+     * @return the view, updated in place by the next read of this handle on the same thread: copy it to keep the value
+     */
+    public <E extends Enum<E> & BitFlag> BitField<E> getVarBitfield(BitfieldVar<E> var, int entry) {
+        return getVarBitfield(var, entry, var.getView());
+    }
+
+    /**
+     * Read a bitfield without allocating
+     *
+     * @param dest the view to update, can be reused from one frame to the next
+     * @return {@code dest}, empty if the handle is unbound
+     */
+    public <E extends Enum<E> & BitFlag> BitField<E> getVarBitfield(BitfieldVar<E> var, int entry, BitField<E> dest) {
+        return dest.set(getInt(var.getOffset(varTable, entry)));
+    }
+
+    /**
+     * Copy a whole array var (CarIdx*, ...) with one bulk get, entries of {@code dest} past the var count are set to 0
+     *
+     * @param var  the var to read
+     * @param dest the destination, can be reused from one frame to the next
+     * @return number of entries copied, 0 while the handle is unbound
+     */
+    public int readFloats(FloatVar var, float[] dest) {
+        int count = getReadableCount(var, Float.BYTES, dest.length);
+        if (count > 0) {
+            slice(var.getOffset(varTable, 0)).asFloatBuffer().get(dest, 0, count);
+        }
+        Arrays.fill(dest, count, dest.length, 0.0F);
+        return count;
+    }
+
+    /**
+     * Copy a whole array var (CarIdx*, ...) with one bulk get, entries of {@code dest} past the var count are set to 0
+     *
+     * @param var  the var to read
+     * @param dest the destination, can be reused from one frame to the next
+     * @return number of entries copied, 0 while the handle is unbound
+     */
+    public int readInts(IntVar var, int[] dest) {
+        int count = getReadableCount(var, Integer.BYTES, dest.length);
+        if (count > 0) {
+            slice(var.getOffset(varTable, 0)).asIntBuffer().get(dest, 0, count);
+        }
+        Arrays.fill(dest, count, dest.length, 0);
+        return count;
+    }
+
+    private int getReadableCount(TelemetryVar var, int size, int max) {
+        int offset = var.getOffset(varTable, 0);
+        if (offset < 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(Math.min(var.getCount(varTable), max), (byteBuffer.capacity() - offset) / size));
+    }
+
+    private ByteBuffer slice(int offset) {
+        return byteBuffer.duplicate().position(offset).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Raw reads by offset from the start of the var buffer, out of range offsets give the default value
+
+    boolean getBoolean(int offset) {
+        return isReadable(offset, Byte.BYTES) && byteBuffer.get(offset) != 0;
+    }
+
+    int getInt(int offset) {
+        return isReadable(offset, Integer.BYTES) ? byteBuffer.getInt(offset) : 0;
+    }
+
+    float getFloat(int offset) {
+        return isReadable(offset, Float.BYTES) ? byteBuffer.getFloat(offset) : 0.0F;
+    }
+
+    double getDouble(int offset) {
+        return isReadable(offset, Double.BYTES) ? byteBuffer.getDouble(offset) : 0.0;
+    }
+
+    private boolean isReadable(int offset, int size) {
+        return offset >= 0 && offset + size <= byteBuffer.capacity();
+    }
+
+    @Override
+    public String toString() {
+        return "TelemetryFrame(tickCount=" + tickCount + ", bufLen=" + getBufLen() + ")";
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+import com.joffrey.iracing.irsdkjava.model.defines.VarType;
+import com.joffrey.iracing.irsdkjava.model.defines.VarTypeBytes;
+
+/**
+ * Typed handle on a telemetry variable.
+ * <p>
+ * The name is resolved against a {@link VarTable}, never once for all: a frame carries the table it was copied with and the
+ * handle finds its offset in that table, the last table resolved is cached so reading a value is only an offset plus an index
+ * as long as the layout doesn't change. A frame of the previous layout still read after a layout change is read with its own
+ * table. Frames that don't carry a table are read with the table the handle was bound to by {@link VarTable#bind}.
+ */
+public abstract class TelemetryVar {
+
+    private final    String  name;
+    // Set by VarTable#bind, used for frames without a table
+    private volatile Binding binding  = Binding.UNBOUND;
+    // Last table a frame was read with
+    private volatile Binding resolved = Binding.UNBOUND;
+
+    protected TelemetryVar(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return true if the var header type can be read through this handle
+     */
+    protected abstract boolean isCompatible(VarType type);
+
+    protected abstract VarTypeBytes getTypeBytes();
+
+    /**
+     * Bind this handle to the var of the table with the same name, an absent or incompatible var leaves the handle unbound
+     */
+    void bind(VarTable varTable) {
+        binding = resolve(varTable);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isBound() {
+        return binding.varHeader != null;
+    }
+
+    /**
+     * @return true if the table has a var of this name and of a compatible type
+     */
+    public boolean isBound(VarTable varTable) {
+        return getBinding(varTable).varHeader != null;
+    }
+
+    /**
+     * @return number of entries of the variable, 0 while unbound
+     */
+    public int getCount() {
+        return getCount(null);
+    }
+
+    /**
+     * @param varTable the table to resolve the var in, null for the table the handle was bound to
+     * @return number of entries of the variable in the table, 0 if it's not in the table
+     */
+    public int getCount(VarTable varTable) {
+        VarHeader vh = getBinding(varTable).varHeader;
+        return vh != null ? vh.getCount() : 0;
+    }
+
+    /**
+     * @param entry the array index, 0 for a scalar
+     * @return offset of the entry from the start of a var buffer, -1 if the handle is unbound or the entry out of range
+     */
+    public int getOffset(int entry) {
+        return getOffset(null, entry);
+    }
+
+    /**
+     * @param varTable the table to resolve the var in, null for the table the handle was bound to
+     * @param entry    the array index, 0 for a scalar
+     * @return offset of the entry from the start of a var buffer of this table, -1 if the var is not in the table or the entry
+     * out of range
+     */
+    public int getOffset(VarTable varTable, int entry) {
+        VarHeader vh = getBinding(varTable).varHeader;
+        if (vh != null && entry >= 0 && entry < vh.getCount()) {
+            return vh.getOffset() + (entry * getTypeBytes().getValue());
+        }
+        return -1;
+    }
+
+    private Binding getBinding(VarTable varTable) {
+        Binding bound = binding;
+        if (varTable == null || bound.varTable == varTable) {
+            return bound;
+        }
+        Binding last = resolved;
+        if (last.varTable != varTable) {
+            last = resolve(varTable);
+            resolved = last;
+        }
+        return last;
+    }
+
+    private Binding resolve(VarTable varTable) {
+        VarHeader vh = varTable.get(name);
+        return new Binding(varTable, vh != null && isCompatible(VarType.get(vh.getType())) ? vh : null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return name.equals(((TelemetryVar) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + name + ")";
+    }
+
+    /**
+     * The var header of the handle in one table, replaced as a whole so a reader never mixes two tables
+     */
+    private static final class Binding {
+
+        private static final Binding UNBOUND = new Binding(null, null);
+
+        private final VarTable  varTable;
+        private final VarHeader varHeader;
+
+        private Binding(VarTable varTable, VarHeader varHeader) {
+            this.varTable = varTable;
+            this.varHeader = varHeader;
+        }
+    }
+
+}
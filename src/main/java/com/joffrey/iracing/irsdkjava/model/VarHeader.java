@@ -45,10 +45,21 @@ package com.joffrey.iracing.irsdkjava.model;/*
 
 import com.joffrey.iracing.irsdkjava.model.defines.Constant;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+/**
+ * One entry of the var header table.
+ * <p>
+ * Built from the raw table, the name is decoded right away while {@code desc} and {@code unit} are only decoded on the first
+ * call of their getter.
+ */
 @Data
 @NoArgsConstructor
 public class VarHeader {
@@ -58,6 +69,10 @@ public class VarHeader {
     public static final int VAR_HEADER_SIZE  =
             (NUMBER_OF_FIELDS * SIZEOF_FIELDS) + Constant.IRSDK_MAX_STRING + Constant.IRSDK_MAX_DESC + Constant.IRSDK_MAX_STRING;
 
+    private static final int NAME_OFFSET = NUMBER_OF_FIELDS * SIZEOF_FIELDS;
+    private static final int DESC_OFFSET = NAME_OFFSET + Constant.IRSDK_MAX_STRING;
+    private static final int UNIT_OFFSET = DESC_OFFSET + Constant.IRSDK_MAX_DESC;
+
     private int type;                                                 // irsdk_VarType
     private int offset;                                               // offset fron start of buffer row
     private int count;                                                // number of entrys (array)
@@ -70,31 +85,73 @@ public class VarHeader {
     private String desc;
     private String unit;                                              // something like "kg/m^2"
 
+    // Raw var header table kept to decode desc and unit lazily
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] table;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private int    tableOffset;
+
     public VarHeader(ByteBuffer buffer) {
         this(buffer, 0);
     }
 
     public VarHeader(ByteBuffer buffer, int varOffset) {
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        byte[] localBuffer;
-        type = buffer.getInt(varOffset + 0);
-        offset = buffer.getInt(varOffset + 4);
-        count = buffer.getInt(varOffset + 8);
-
-        localBuffer = new byte[Constant.IRSDK_MAX_STRING];
-        buffer.position(varOffset + 16);
-        buffer.get(localBuffer, 0, localBuffer.length);
-        name = new String(localBuffer).replaceAll("[\000]", "");
-
-        buffer.position(varOffset + 16 + Constant.IRSDK_MAX_STRING + Constant.IRSDK_MAX_DESC);
-        buffer.get(localBuffer, 0, localBuffer.length);
-        unit = new String(localBuffer).replaceAll("[\000]", "");
-
-        localBuffer = new byte[Constant.IRSDK_MAX_DESC];
-        buffer.position(varOffset + 16 + Constant.IRSDK_MAX_STRING);
-        buffer.get(localBuffer, 0, localBuffer.length);
-        desc = new String(localBuffer).replaceAll("[\000]", "");
+        this(copyOf(buffer, varOffset), 0);
+    }
+
+    /**
+     * @param table       the raw var header table, only read and never modified
+     * @param tableOffset offset of this entry in the table
+     */
+    VarHeader(byte[] table, int tableOffset) {
+        this.table = table;
+        this.tableOffset = tableOffset;
+        type = getInt(table, tableOffset);
+        offset = getInt(table, tableOffset + 4);
+        count = getInt(table, tableOffset + 8);
+        countAsTime = table[tableOffset + 12] != 0;
+        name = decode(table, tableOffset + NAME_OFFSET, Constant.IRSDK_MAX_STRING);
+    }
+
+    public String getDesc() {
+        if (desc == null && table != null) {
+            desc = decode(table, tableOffset + DESC_OFFSET, Constant.IRSDK_MAX_DESC);
+        }
+        return desc;
     }
 
+    public String getUnit() {
+        if (unit == null && table != null) {
+            unit = decode(table, tableOffset + UNIT_OFFSET, Constant.IRSDK_MAX_STRING);
+        }
+        return unit;
+    }
+
+    private static byte[] copyOf(ByteBuffer buffer, int varOffset) {
+        byte[] entry = new byte[VAR_HEADER_SIZE];
+        buffer.duplicate().position(varOffset).get(entry);
+        return entry;
+    }
+
+    private static int getInt(byte[] table, int at) {
+        return (table[at] & 0xFF) | ((table[at + 1] & 0xFF) << 8) | ((table[at + 2] & 0xFF) << 16) | (table[at + 3] << 24);
+    }
+
+    /**
+     * Decode a NUL terminated string, the names are plain ASCII
+     */
+    static String decode(byte[] table, int from, int maxLength) {
+        int length = 0;
+        while (length < maxLength && table[from + length] != 0) {
+            length++;
+        }
+        return new String(table, from, length, StandardCharsets.ISO_8859_1);
+    }
 
 }
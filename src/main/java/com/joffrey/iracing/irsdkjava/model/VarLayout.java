@@ -0,0 +1,99 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Fingerprint of the var layout: the header fields describing the var headers and var buffers plus a hash of the var header
+ * table.
+ * <p>
+ * Checked on each tick, the header fields are compared first and the table is only hashed when they match.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class VarLayout {
+
+    public static final VarLayout NONE = new VarLayout(-1, -1, -1, 0L);
+
+    private final int  numVars;
+    private final int  varHeaderOffset;
+    private final int  bufLen;
+    private final long varHeadersHash;
+
+    private VarLayout(int numVars, int varHeaderOffset, int bufLen, long varHeadersHash) {
+        this.numVars = numVars;
+        this.varHeaderOffset = varHeaderOffset;
+        this.bufLen = bufLen;
+        this.varHeadersHash = varHeadersHash;
+    }
+
+    /**
+     * @param memory   the shared memory
+     * @param snapshot the header of the current tick
+     */
+    public static VarLayout of(ByteBuffer memory, HeaderSnapshot snapshot) {
+        return of(snapshot, hash(memory, snapshot.getVarHeaderOffset(), snapshot.getNumVars()));
+    }
+
+    static VarLayout of(HeaderSnapshot snapshot, long varHeadersHash) {
+        return new VarLayout(snapshot.getNumVars(), snapshot.getVarHeaderOffset(), snapshot.getBufLen(), varHeadersHash);
+    }
+
+    /**
+     * @return true if the shared memory still has this layout
+     */
+    public boolean matches(ByteBuffer memory, HeaderSnapshot snapshot) {
+        return numVars == snapshot.getNumVars()
+               && varHeaderOffset == snapshot.getVarHeaderOffset()
+               && bufLen == snapshot.getBufLen()
+               && varHeadersHash == hash(memory, varHeaderOffset, numVars);
+    }
+
+    /**
+     * Hash the var header table 8 bytes at a time, the table is truncated to what {@code memory} holds like in {@link
+     * VarTable#parse(ByteBuffer, int, int)}
+     */
+    static long hash(ByteBuffer memory, int varHeaderOffset, int numVars) {
+        if (numVars <= 0 || varHeaderOffset < 0 || varHeaderOffset >= memory.limit()) {
+            return 0L;
+        }
+        numVars = Math.min(numVars, (memory.limit() - varHeaderOffset) / VarHeader.VAR_HEADER_SIZE);
+        ByteBuffer table = memory.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int end = varHeaderOffset + (numVars * VarHeader.VAR_HEADER_SIZE);
+        long hash = numVars;
+        // VAR_HEADER_SIZE is a multiple of 8
+        for (int at = varHeaderOffset; at < end; at += Long.BYTES) {
+            hash = (hash ^ table.getLong(at)) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+}
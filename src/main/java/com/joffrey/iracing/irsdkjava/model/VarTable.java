@@ -0,0 +1,148 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava.model;
+
+import java.nio.ByteBuffer;
+import lombok.Getter;
+
+/**
+ * The var header table, indexed by name.
+ * <p>
+ * Parsed from a single bulk read of the table, lookups go through an open addressing table of var indexes so resolving a name
+ * doesn't allocate.
+ */
+public final class VarTable {
+
+    public static final VarTable EMPTY = new VarTable(new VarHeader[0], VarLayout.NONE);
+
+    @Getter
+    private final VarLayout   layout;
+    private final VarHeader[] varHeaders;
+    // var index + 1 for each slot, 0 for an empty slot
+    private final int[]       slots;
+    private final int         mask;
+
+    private VarTable(VarHeader[] varHeaders, VarLayout layout) {
+        this.varHeaders = varHeaders;
+        this.layout = layout;
+        int capacity = Integer.highestOneBit(Math.max(varHeaders.length, 1) * 2) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int index = 0; index < varHeaders.length; index++) {
+            int slot = findSlot(varHeaders[index].getName());
+            // A duplicated name resolves to its last var
+            slots[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Read the var header table of the shared memory, the table knows the {@link VarLayout} it was built from
+     *
+     * @param memory   the shared memory
+     * @param snapshot the header of the current tick
+     */
+    public static VarTable parse(ByteBuffer memory, HeaderSnapshot snapshot) {
+        byte[] table = copyTable(memory, snapshot.getVarHeaderOffset(), snapshot.getNumVars());
+        // Hash the copy so the layout always describes the parsed table
+        VarLayout layout = VarLayout.of(snapshot, VarLayout.hash(ByteBuffer.wrap(table), 0, table.length / VarHeader.VAR_HEADER_SIZE));
+        return new VarTable(toVarHeaders(table), layout);
+    }
+
+    /**
+     * Read the var header table in one bulk copy
+     *
+     * @param memory          the shared memory or an .ibt file, only absolute reads are done
+     * @param varHeaderOffset offset of the table in {@code memory}
+     * @param numVars         number of var headers, the table is truncated to what {@code memory} holds
+     */
+    public static VarTable parse(ByteBuffer memory, int varHeaderOffset, int numVars) {
+        byte[] table = copyTable(memory, varHeaderOffset, numVars);
+        return table.length == 0 ? EMPTY : new VarTable(toVarHeaders(table), VarLayout.NONE);
+    }
+
+    private static byte[] copyTable(ByteBuffer memory, int varHeaderOffset, int numVars) {
+        if (numVars <= 0 || varHeaderOffset < 0 || varHeaderOffset >= memory.limit()) {
+            return new byte[0];
+        }
+        numVars = Math.min(numVars, (memory.limit() - varHeaderOffset) / VarHeader.VAR_HEADER_SIZE);
+        byte[] table = new byte[numVars * VarHeader.VAR_HEADER_SIZE];
+        memory.duplicate().position(varHeaderOffset).get(table);
+        return table;
+    }
+
+    private static VarHeader[] toVarHeaders(byte[] table) {
+        VarHeader[] varHeaders = new VarHeader[table.length / VarHeader.VAR_HEADER_SIZE];
+        for (int index = 0; index < varHeaders.length; index++) {
+            varHeaders[index] = new VarHeader(table, index * VarHeader.VAR_HEADER_SIZE);
+        }
+        return varHeaders;
+    }
+
+    private int findSlot(String name) {
+        int slot = mix(name.hashCode()) & mask;
+        while (slots[slot] != 0 && !varHeaders[slots[slot] - 1].getName().equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return index of the var in the table, -1 if there's no var with this name
+     */
+    public int indexOf(String name) {
+        return slots[findSlot(name)] - 1;
+    }
+
+    /**
+     * @return the var header, null if there's no var with this name
+     */
+    public VarHeader get(String name) {
+        int index = indexOf(name);
+        return index >= 0 ? varHeaders[index] : null;
+    }
+
+    public VarHeader get(int index) {
+        return varHeaders[index];
+    }
+
+    /**
+     * Bind a handle to the var of this table with the same name, the handle stays unbound if there's none. Frames that don't
+     * carry their table are read with the table the handle was bound to
+     *
+     * @return the handle
+     */
+    public <T extends TelemetryVar> T bind(T handle) {
+        handle.bind(this);
+        return handle;
+    }
+
+    public int size() {
+        return varHeaders.length;
+    }
+
+}
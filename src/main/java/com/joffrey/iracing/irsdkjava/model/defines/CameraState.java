@@ -25,7 +25,7 @@ package com.joffrey.iracing.irsdkjava.model.defines;
 import lombok.Getter;
 
 @Getter
-public enum CameraState {
+public enum CameraState implements BitFlag {
     irsdk_IsSessionScreen(0x0001), // the camera tool can only be activated if viewing the session screen (out of car)
     irsdk_IsScenicActive(0x0002), // the scenic camera is active (no focus car)
 
@@ -56,6 +56,8 @@ public class Constant {
     public static final int IRSDK_MAX_STRING = 32;
     // descriptions can be longer than max_string!
     public static final int IRSDK_MAX_DESC   = 64;
+    // entries of the CarIdx* vars
+    public static final int IRSDK_MAX_CARS   = 64;
 
     public static final int   IRSDK_UNLIMITED_LAPS = 32767;
     public static final float IRSDK_UNLIMITED_TIME = 604800.0f;
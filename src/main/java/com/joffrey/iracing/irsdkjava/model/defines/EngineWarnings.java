@@ -23,7 +23,7 @@
 
 package com.joffrey.iracing.irsdkjava.model.defines;
 
-public enum EngineWarnings {
+public enum EngineWarnings implements BitFlag {
     irsdk_waterTempWarning((byte) 0x01),
     irsdk_fuelPressureWarning((byte) 0x02),
     irsdk_oilPressureWarning((byte) 0x04),
@@ -38,6 +38,7 @@ public enum EngineWarnings {
         this.value = value;
     }
 
+    @Override
     public int getValue() {
         return value;
     }
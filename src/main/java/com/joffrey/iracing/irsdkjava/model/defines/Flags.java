@@ -23,7 +23,7 @@
 
 package com.joffrey.iracing.irsdkjava.model.defines;
 
-public enum Flags {
+public enum Flags implements BitFlag {
     // global flags
     irsdk_checkered(0x00000001),
     irsdk_white(0x00000002),
@@ -62,6 +62,7 @@ public enum Flags {
         this.value = value;
     }
 
+    @Override
     public int getValue() {
         return value;
     }
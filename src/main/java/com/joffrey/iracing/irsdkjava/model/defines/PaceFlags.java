@@ -23,11 +23,18 @@
 
 package com.joffrey.iracing.irsdkjava.model.defines;
 
-public enum PaceFlags {
+public enum PaceFlags implements BitFlag {
     irsdk_PaceFlagsEndOfLine(0x01), irsdk_PaceFlagsFreePass(0x02), irsdk_PaceFlagsWavedAround(0x04),
     ;
 
+    private final int value;
+
     PaceFlags(int value) {
+        this.value = value;
+    }
 
+    @Override
+    public int getValue() {
+        return value;
     }
 }
@@ -23,12 +23,19 @@
 
 package com.joffrey.iracing.irsdkjava.model.defines;
 
-public enum PitSvFlags {
+public enum PitSvFlags implements BitFlag {
     irsdk_LFTireChange(0x0001), irsdk_RFTireChange(0x0002), irsdk_LRTireChange(0x0004), irsdk_RRTireChange(0x0008),
 
     irsdk_FuelFill(0x0010), irsdk_WindshieldTearoff(0x0020), irsdk_FastRepair(0x0040);
 
+    private final int value;
+
     PitSvFlags(int value) {
+        this.value = value;
+    }
 
+    @Override
+    public int getValue() {
+        return value;
     }
 }
@@ -42,7 +42,7 @@ package com.joffrey.iracing.irsdkjava.model.defines;/*
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-public enum StatusField {
+public enum StatusField implements BitFlag {
 
     IRSDK_STCONNECTED(1);
 
@@ -52,6 +52,7 @@ public enum StatusField {
         this.value = i;
     }
 
+    @Override
     public int getValue() {
         return value;
     }
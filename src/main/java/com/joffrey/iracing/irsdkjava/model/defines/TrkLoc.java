@@ -50,19 +50,24 @@ public enum TrkLoc {
     irsdk_NotInWorld(-1), irsdk_OffTrack(0), irsdk_InPitStall(1), irsdk_AproachingPits(2), irsdk_OnTrack(3),
     ;
 
+    // Indexed by value + 1
+    private static final TrkLoc[] BY_VALUE = {irsdk_NotInWorld, irsdk_OffTrack, irsdk_InPitStall, irsdk_AproachingPits, irsdk_OnTrack};
+
     private final int value;
 
     TrkLoc(int value) {
         this.value = value;
     }
 
+    /**
+     * @return the track location, {@link #irsdk_NotInWorld} for an unknown value
+     */
+    public static TrkLoc of(int value) {
+        return value >= -1 && value < BY_VALUE.length - 1 ? BY_VALUE[value + 1] : irsdk_NotInWorld;
+    }
+
     public static String valueOf(int value) {
-        for (TrkLoc t : TrkLoc.values()) {
-            if (t.value == value) {
-                return t.toString();
-            }
-        }
-        return irsdk_NotInWorld.toString();
+        return of(value).toString();
     }
 
 
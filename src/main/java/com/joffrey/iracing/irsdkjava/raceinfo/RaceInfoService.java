@@ -24,10 +24,15 @@
 package com.joffrey.iracing.irsdkjava.raceinfo;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
 import com.joffrey.iracing.irsdkjava.raceinfo.model.RaceInfo;
 import com.joffrey.iracing.irsdkjava.raceinfo.model.RaceInfo.LiveData;
 import com.joffrey.iracing.irsdkjava.raceinfo.model.RaceInfo.YamlData;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import java.time.Duration;
 import lombok.extern.java.Log;
@@ -41,29 +46,42 @@ public class RaceInfoService {
 
     private final FluxProperties fluxProperties;
     private final SdkStarter     sdkStarter;
+    private final TickSource     tickSource;
     private final YamlService    yamlService;
 
     private final Flux<RaceInfo> raceInfoFlux;
 
-    public RaceInfoService(FluxProperties fluxProperties, SdkStarter sdkStarter, YamlService yamlService) {
+    private final DoubleVar sessionTimeRemain;
+    private final IntVar    sessionLapsRemain;
+    private final FloatVar  fuelLevel;
+    private final FloatVar  fuelLevelPct;
+    private final FloatVar  fuelUsePerHour;
+
+    public RaceInfoService(FluxProperties fluxProperties, SdkStarter sdkStarter, TickSource tickSource, YamlService yamlService) {
         this.fluxProperties = fluxProperties;
         this.sdkStarter = sdkStarter;
+        this.tickSource = tickSource;
         this.yamlService = yamlService;
+        this.sessionTimeRemain = sdkStarter.doubleVar("SessionTimeRemain");
+        this.sessionLapsRemain = sdkStarter.intVar("SessionLapsRemain");
+        this.fuelLevel = sdkStarter.floatVar("FuelLevel");
+        this.fuelLevelPct = sdkStarter.floatVar("FuelLevelPct");
+        this.fuelUsePerHour = sdkStarter.floatVar("FuelUsePerHour");
         this.raceInfoFlux =
-                Flux.interval(Duration.ofMillis(fluxProperties.getRaceInfoIntervalInMs())).filter(aLong -> sdkStarter.isRunning())
-                    .flatMap(aLong -> loadRaceInfo());
+                tickSource.getFrameFlux(Duration.ofMillis(fluxProperties.getRaceInfoIntervalInMs()))
+                    .flatMap(this::loadRaceInfo);
     }
 
     public Flux<RaceInfo> getRaceInfoFlux() {
         return raceInfoFlux;
     }
 
-    private Flux<RaceInfo> loadRaceInfo() {
-        Flux<LiveData> firstGroup = Flux.zip(Mono.just(sdkStarter.getVarDouble("SessionTimeRemain")),
-                                             Mono.just(sdkStarter.getVarInt("SessionLapsRemain")),
-                                             Mono.just(sdkStarter.getVarFloat("FuelLevel")),
-                                             Mono.just(sdkStarter.getVarFloat("FuelLevelPct")),
-                                             Mono.just(sdkStarter.getVarFloat("FuelUsePerHour")))
+    private Flux<RaceInfo> loadRaceInfo(TelemetryFrame frame) {
+        Flux<LiveData> firstGroup = Flux.zip(Mono.just(frame.getVarDouble(sessionTimeRemain)),
+                                             Mono.just(frame.getVarInt(sessionLapsRemain)),
+                                             Mono.just(frame.getVarFloat(fuelLevel)),
+                                             Mono.just(frame.getVarFloat(fuelLevelPct)),
+                                             Mono.just(frame.getVarFloat(fuelUsePerHour)))
                                         .map(o -> new LiveData(o.getT1(), o.getT2(), o.getT3(), o.getT4(), o.getT5()));
 
         Flux<YamlData> secondGroup = Flux.zip(Mono.just(yamlService.getYamlFile().getWeekendInfo()),
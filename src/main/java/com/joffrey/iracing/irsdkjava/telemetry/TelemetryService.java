@@ -25,15 +25,19 @@
 package com.joffrey.iracing.irsdkjava.telemetry;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
 import com.joffrey.iracing.irsdkjava.telemetry.model.TelemetryData;
 import com.joffrey.iracing.irsdkjava.telemetry.model.TelemetryData.FuelAndAngles;
 import com.joffrey.iracing.irsdkjava.telemetry.model.TelemetryData.PedalsAndSpeed;
 import com.joffrey.iracing.irsdkjava.telemetry.model.TelemetryData.Session;
 import com.joffrey.iracing.irsdkjava.telemetry.model.TelemetryData.Weather;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 
 import java.time.Duration;
-import java.util.Arrays;
 
 import lombok.extern.java.Log;
 import org.springframework.stereotype.Service;
@@ -45,15 +49,95 @@ import reactor.core.publisher.Mono;
 @Service
 public class TelemetryService {
 
+    private static final String[] TYRES = {"LF", "RF", "LR", "RR"};
+
     private final FluxProperties fluxProperties;
     private final SdkStarter sdkStarter;
+    private final TickSource tickSource;
     private final ConnectableFlux<TelemetryData> telemetryDataFlux;
 
-    public TelemetryService(FluxProperties fluxProperties, SdkStarter sdkStarter) {
+    // Pedals && Speed
+    private final FloatVar throttle;
+    private final FloatVar brake;
+    private final FloatVar clutch;
+    private final IntVar   gear;
+    private final FloatVar shiftGrindRPM;
+    private final FloatVar rpm;
+    private final FloatVar speed;
+
+    // Fuel && Angles
+    private final FloatVar fuelLevel;
+    private final FloatVar fuelLevelPct;
+    private final FloatVar fuelUsePerHour;
+    private final FloatVar latAccel;
+    private final FloatVar longAccel;
+    private final FloatVar steeringWheelAngle;
+
+    // Tyres, same order as TYRES
+    private final TyreVars[] tyres = new TyreVars[TYRES.length];
+
+    // Weather
+    private final FloatVar airPressure;
+    private final FloatVar airTemp;
+    private final FloatVar relativeHumidity;
+    private final IntVar   skies;
+    private final FloatVar trackTemp;
+    private final FloatVar windDir;
+    private final FloatVar windVel;
+    private final IntVar   weatherType;
+
+    // Session
+    private final DoubleVar sessionTime;
+    private final DoubleVar sessionTimeRemain;
+    private final FloatVar  lapBestLapTime;
+    private final IntVar    lap;
+    private final FloatVar  lapCurrentLapTime;
+    private final IntVar    lapBestLap;
+    private final FloatVar  lapDistPct;
+
+    public TelemetryService(FluxProperties fluxProperties, SdkStarter sdkStarter, TickSource tickSource) {
         this.fluxProperties = fluxProperties;
         this.sdkStarter = sdkStarter;
-        this.telemetryDataFlux = Flux.interval(Duration.ofMillis(this.fluxProperties.getTelemetryIntervalInMs()))
-                .filter(aLong -> sdkStarter.isRunning()).flatMap(aLong -> loadTelemetryData()).publish();
+        this.tickSource = tickSource;
+
+        this.throttle = sdkStarter.floatVar("Throttle");
+        this.brake = sdkStarter.floatVar("Brake");
+        this.clutch = sdkStarter.floatVar("Clutch");
+        this.gear = sdkStarter.intVar("Gear");
+        this.shiftGrindRPM = sdkStarter.floatVar("ShiftGrindRPM");
+        this.rpm = sdkStarter.floatVar("RPM");
+        this.speed = sdkStarter.floatVar("Speed");
+
+        this.fuelLevel = sdkStarter.floatVar("FuelLevel");
+        this.fuelLevelPct = sdkStarter.floatVar("FuelLevelPct");
+        this.fuelUsePerHour = sdkStarter.floatVar("FuelUsePerHour");
+        this.latAccel = sdkStarter.floatVar("LatAccel");
+        this.longAccel = sdkStarter.floatVar("LongAccel");
+        this.steeringWheelAngle = sdkStarter.floatVar("SteeringWheelAngle");
+
+        for (int i = 0; i < TYRES.length; i++) {
+            this.tyres[i] = new TyreVars(sdkStarter, TYRES[i]);
+        }
+
+        this.airPressure = sdkStarter.floatVar("AirPressure");
+        this.airTemp = sdkStarter.floatVar("AirTemp");
+        this.relativeHumidity = sdkStarter.floatVar("RelativeHumidity");
+        this.skies = sdkStarter.intVar("Skies");
+        this.trackTemp = sdkStarter.floatVar("TrackTemp");
+        this.windDir = sdkStarter.floatVar("WindDir");
+        this.windVel = sdkStarter.floatVar("WindVel");
+        this.weatherType = sdkStarter.intVar("WeatherType");
+
+        this.sessionTime = sdkStarter.doubleVar("SessionTime");
+        this.sessionTimeRemain = sdkStarter.doubleVar("SessionTimeRemain");
+        this.lapBestLapTime = sdkStarter.floatVar("LapBestLapTime");
+        this.lap = sdkStarter.intVar("Lap");
+        this.lapCurrentLapTime = sdkStarter.floatVar("LapCurrentLapTime");
+        this.lapBestLap = sdkStarter.intVar("LapBestLap");
+        this.lapDistPct = sdkStarter.floatVar("LapDistPct");
+
+        this.telemetryDataFlux = tickSource.getFrameFlux(Duration.ofMillis(this.fluxProperties.getTelemetryIntervalInMs()))
+                .flatMap(this::loadTelemetryData).publish();
 
     }
 
@@ -61,63 +145,64 @@ public class TelemetryService {
         return telemetryDataFlux.autoConnect();
     }
 
-    private Flux<TelemetryData> loadTelemetryData() {
+    private Flux<TelemetryData> loadTelemetryData(TelemetryFrame frame) {
 
         final TelemetryData telemetryData = new TelemetryData();
 
         telemetryData.setPedalsAndSpeed(new PedalsAndSpeed(
-                sdkStarter.getVarFloat("Throttle"),
-                sdkStarter.getVarFloat("Brake"),
-                sdkStarter.getVarFloat("Clutch"),
-                sdkStarter.getVarInt("Gear"),
-                sdkStarter.getVarFloat("ShiftGrindRPM"),
-                sdkStarter.getVarFloat("RPM"),
-                sdkStarter.getVarFloat("Speed")
+                frame.getVarFloat(throttle),
+                frame.getVarFloat(brake),
+                frame.getVarFloat(clutch),
+                frame.getVarInt(gear),
+                frame.getVarFloat(shiftGrindRPM),
+                frame.getVarFloat(rpm),
+                frame.getVarFloat(speed)
         ));
 
         telemetryData.setFuelAndAngles(new FuelAndAngles(
-                sdkStarter.getVarFloat("FuelLevel"),
-                sdkStarter.getVarFloat("FuelLevelPct"),
-                sdkStarter.getVarFloat("FuelUsePerHour"),
-                sdkStarter.getVarFloat("LatAccel"),
-                sdkStarter.getVarFloat("LongAccel"),
-                sdkStarter.getVarFloat("SteeringWheelAngle")
+                frame.getVarFloat(fuelLevel),
+                frame.getVarFloat(fuelLevelPct),
+                frame.getVarFloat(fuelUsePerHour),
+                frame.getVarFloat(latAccel),
+                frame.getVarFloat(longAccel),
+                frame.getVarFloat(steeringWheelAngle)
         ));
 
-        Arrays.stream(new String[]{"LF", "RF", "LR", "RR"}).forEach(tyre ->
-                telemetryData.setTyre(tyre, new TelemetryData.Tyre(
-                        sdkStarter.getVarFloat(tyre + "wearL"),
-                        sdkStarter.getVarFloat(tyre + "wearM"),
-                        sdkStarter.getVarFloat(tyre + "wearR"),
-                        sdkStarter.getVarFloat(tyre + "tempL"),
-                        sdkStarter.getVarFloat(tyre + "tempM"),
-                        sdkStarter.getVarFloat(tyre + "tempR"),
-                        sdkStarter.getVarFloat(tyre + "tempCL"),
-                        sdkStarter.getVarFloat(tyre + "tempCM"),
-                        sdkStarter.getVarFloat(tyre + "tempCR"),
-                        sdkStarter.getVarFloat(tyre + "pressure"),
-                        sdkStarter.getVarFloat(tyre + "speed")))
-        );
+        for (int i = 0; i < TYRES.length; i++) {
+            TyreVars tyre = tyres[i];
+            telemetryData.setTyre(TYRES[i], new TelemetryData.Tyre(
+                    frame.getVarFloat(tyre.wearL),
+                    frame.getVarFloat(tyre.wearM),
+                    frame.getVarFloat(tyre.wearR),
+                    frame.getVarFloat(tyre.tempL),
+                    frame.getVarFloat(tyre.tempM),
+                    frame.getVarFloat(tyre.tempR),
+                    frame.getVarFloat(tyre.tempCL),
+                    frame.getVarFloat(tyre.tempCM),
+                    frame.getVarFloat(tyre.tempCR),
+                    frame.getVarFloat(tyre.pressure),
+                    frame.getVarFloat(tyre.speed)));
+        }
 
         telemetryData.setWeather(new Weather(
-                sdkStarter.getVarFloat("AirPressure"),
-                sdkStarter.getVarFloat("AirTemp"),
-                sdkStarter.getVarFloat("RelativeHumidity"),
-                getSkies(sdkStarter.getVarInt("Skies")),
-                sdkStarter.getVarFloat("TrackTemp"),
-                sdkStarter.getVarFloat("WindDir"),
-                sdkStarter.getVarFloat("WindVel"),
-                getWeatherType(sdkStarter.getVarInt("WeatherType"))
+                frame.getVarFloat(airPressure),
+                frame.getVarFloat(airTemp),
+                frame.getVarFloat(relativeHumidity),
+                getSkies(frame.getVarInt(skies)),
+                frame.getVarFloat(trackTemp),
+                frame.getVarFloat(windDir),
+                frame.getVarFloat(windVel),
+                getWeatherType(frame.getVarInt(weatherType))
         ));
 
         telemetryData.setSession(new Session(
-                sdkStarter.getVarDouble("SessionTime"),
-                sdkStarter.getVarDouble("SessionTimeRemain"),
-                sdkStarter.getVarFloat("LapBestLapTime"),
-                sdkStarter.getVarInt("Lap"),
-                sdkStarter.getVarFloat("LapCurrentLapTime"),
-                sdkStarter.getVarInt("LapBestLap"),
-                sdkStarter.getVarFloat("LapDistPct")
+                frame.getVarDouble(sessionTime),
+                frame.getVarDouble(sessionTimeRemain),
+                frame.getVarFloat(lapBestLapTime),
+                frame.getVarInt(lap),
+                frame.getVarFloat(lapCurrentLapTime),
+                frame.getVarInt(lapBestLap),
+                frame.getVarFloat(lapDistPct)
         ));
 
         return Flux.just(telemetryData);
@@ -147,4 +232,36 @@ public class TelemetryService {
     }
 
 
+    /**
+     * Handles of one tyre, names are built once instead of on every tick
+     */
+    private static class TyreVars {
+
+        private final FloatVar wearL;
+        private final FloatVar wearM;
+        private final FloatVar wearR;
+        private final FloatVar tempL;
+        private final FloatVar tempM;
+        private final FloatVar tempR;
+        private final FloatVar tempCL;
+        private final FloatVar tempCM;
+        private final FloatVar tempCR;
+        private final FloatVar pressure;
+        private final FloatVar speed;
+
+        private TyreVars(SdkStarter sdkStarter, String tyre) {
+            this.wearL = sdkStarter.floatVar(tyre + "wearL");
+            this.wearM = sdkStarter.floatVar(tyre + "wearM");
+            this.wearR = sdkStarter.floatVar(tyre + "wearR");
+            this.tempL = sdkStarter.floatVar(tyre + "tempL");
+            this.tempM = sdkStarter.floatVar(tyre + "tempM");
+            this.tempR = sdkStarter.floatVar(tyre + "tempR");
+            this.tempCL = sdkStarter.floatVar(tyre + "tempCL");
+            this.tempCM = sdkStarter.floatVar(tyre + "tempCM");
+            this.tempCR = sdkStarter.floatVar(tyre + "tempCR");
+            this.pressure = sdkStarter.floatVar(tyre + "pressure");
+            this.speed = sdkStarter.floatVar(tyre + "speed");
+        }
+    }
+
 }
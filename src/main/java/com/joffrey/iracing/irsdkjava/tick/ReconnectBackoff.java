@@ -0,0 +1,65 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.tick;
+
+/**
+ * Exponential backoff between two attempts to open the shared memory while the sim is not running.
+ * <p>
+ * Not thread safe, owned by the {@link TickSource} reader thread.
+ */
+public class ReconnectBackoff {
+
+    private final long   minDelayMs;
+    private final long   maxDelayMs;
+    private final double multiplier;
+
+    private long nextDelayMs;
+
+    public ReconnectBackoff(long minDelayMs, long maxDelayMs, double multiplier) {
+        if (minDelayMs <= 0 || maxDelayMs < minDelayMs || multiplier < 1.0) {
+            throw new IllegalArgumentException(
+                    "Invalid backoff: min " + minDelayMs + " ms, max " + maxDelayMs + " ms, multiplier " + multiplier);
+        }
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.multiplier = multiplier;
+        this.nextDelayMs = minDelayMs;
+    }
+
+    /**
+     * @return the delay to wait before the next attempt, each call grows the following one up to the max delay
+     */
+    public long nextDelayMs() {
+        long delay = nextDelayMs;
+        nextDelayMs = (long) Math.min(maxDelayMs, delay * multiplier);
+        return delay;
+    }
+
+    /**
+     * Back to the min delay, called once the sim is found
+     */
+    public void reset() {
+        nextDelayMs = minDelayMs;
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava.tick;
+
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Single reader of the sim.
+ * <p>
+ * A dedicated thread waits for each tick with the {@link WaitStrategy} and publishes exactly one {@link TelemetryFrame} per new
+ * tick on a hot flux. The thread is started by the first subscriber, services sample the flux at their own rate. Each frame is
+ * also kept in the {@link FrameHistory}.
+ * <p>
+ * Frames are handed off to the {@code irsdkjava-frames} scheduler, each subscriber gets them in order on its own worker and
+ * only the latest frame waits while it is busy: a slow or blocking subscriber skips frames, the reader thread never waits.
+ * <p>
+ * While the sim is not running nothing is published and the shared memory is only opened again on a {@link ReconnectBackoff}
+ * schedule.
+ */
+@Slf4j
+@Service
+public class TickSource implements DisposableBean {
+
+    static final long WAIT_TIMEOUT_MS = 200L;
+
+    private final SdkStarter                 sdkStarter;
+    private final WaitStrategy               waitStrategy;
+    private final ReconnectBackoff           reconnectBackoff;
+    private final FrameHistory               frameHistory;
+    private final Sinks.Many<TelemetryFrame> sink    = Sinks.many().multicast().directBestEffort();
+    private final AtomicBoolean              started = new AtomicBoolean(false);
+    private final Scheduler                  scheduler = Schedulers.newBoundedElastic(
+            Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "irsdkjava-frames", 60, true);
+    private final Flux<TelemetryFrame>       frameFlux;
+    private final Flux<TelemetryFrame>       publishedFlux;
+
+    private volatile boolean running       = false;
+    private          Thread  readerThread  = null;
+    private          int     lastTickCount = -1;
+
+    public TickSource(SdkStarter sdkStarter, WaitStrategy waitStrategy, ReconnectBackoff reconnectBackoff,
+                      FrameHistory frameHistory) {
+        this.sdkStarter = sdkStarter;
+        this.waitStrategy = waitStrategy;
+        this.reconnectBackoff = reconnectBackoff;
+        this.frameHistory = frameHistory;
+        this.frameFlux = sink.asFlux().doOnSubscribe(subscription -> start());
+        this.publishedFlux = handOff(frameFlux);
+    }
+
+    /**
+     * Used to connect to the {@literal Flux<TelemetryFrame>}, a slow subscriber misses frames instead of slowing the reader
+     *
+     * @return the hot {@literal Flux<TelemetryFrame>}, one frame per sim tick, emitted off the reader thread
+     */
+    public Flux<TelemetryFrame> getFrameFlux() {
+        return publishedFlux;
+    }
+
+    /**
+     * Same frames throttled for a subscriber that doesn't need every tick, a frame is passed on when the period has elapsed since
+     * the previous one so each emission is still aligned on a sim tick
+     *
+     * @param period min time between two frames
+     * @return the hot {@literal Flux<TelemetryFrame>}, at most one frame per period
+     */
+    public Flux<TelemetryFrame> getFrameFlux(Duration period) {
+        long periodNanos = period.toNanos();
+        // Throttled on the reader thread, only the frames passed on are handed off
+        return handOff(Flux.defer(() -> {
+            AtomicLong nextEmission = new AtomicLong(System.nanoTime());
+            return frameFlux.handle((frame, sink) -> {
+                long now = System.nanoTime();
+                if (now - nextEmission.get() >= 0) {
+                    nextEmission.set(now + periodNanos);
+                    sink.next(frame);
+                }
+            });
+        }));
+    }
+
+    /**
+     * The reader thread only stores the latest frame, the subscriber reads it on a worker of the scheduler
+     */
+    private Flux<TelemetryFrame> handOff(Flux<TelemetryFrame> frames) {
+        return frames.onBackpressureLatest().publishOn(scheduler, 1);
+    }
+
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            running = true;
+            readerThread = new Thread(this::run, "irsdkjava-tick");
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (readerThread != null) {
+            readerThread.interrupt();
+            readerThread.join(WAIT_TIMEOUT_MS);
+        }
+        sink.tryEmitComplete();
+        scheduler.dispose();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (readTick() == ConnectionState.DISCONNECTED) {
+                    // Nothing to wait on, retry to open the shared memory later and later
+                    Thread.sleep(reconnectBackoff.nextDelayMs());
+                } else {
+                    reconnectBackoff.reset();
+                    waitStrategy.await(WAIT_TIMEOUT_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Can't read tick: {}", e.getMessage());
+            } catch (LinkageError e) {
+                log.error("Tick reader stopped, the shared memory can't be opened on this platform", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publish the frame of the current tick if it was not published yet
+     *
+     * @return the connection state of this tick
+     */
+    private ConnectionState readTick() {
+        ConnectionState connectionState = sdkStarter.poll();
+        if (!connectionState.isConnected()) {
+            lastTickCount = -1;
+            return connectionState;
+        }
+        TelemetryFrame frame = sdkStarter.getTelemetryFrame();
+        if (frame.getTickCount() != lastTickCount) {
+            lastTickCount = frame.getTickCount();
+            frameHistory.append(frame);
+            sink.tryEmitNext(frame);
+        }
+        return connectionState;
+    }
+
+}
@@ -24,19 +24,22 @@
 package com.joffrey.iracing.irsdkjava.trackmaptracker;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.defines.Constant;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.trackmaptracker.model.TrackmapTrackerDriver;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.DriverInfoYaml;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.java.Log;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.ConnectableFlux;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Log
 @Service
@@ -44,36 +47,46 @@ public class TrackmapTrackerService {
 
     private final FluxProperties fluxProperties;
     private final SdkStarter     sdkStarter;
+    private final TickSource     tickSource;
     private final YamlService    yamlService;
 
     private final ConnectableFlux<List<TrackmapTrackerDriver>> trackmapTrackerListFlux;
 
-    public TrackmapTrackerService(FluxProperties fluxProperties, SdkStarter sdkStarter, YamlService yamlService) {
+    private final FloatVar carIdxLapDistPct;
+
+    public TrackmapTrackerService(FluxProperties fluxProperties, SdkStarter sdkStarter, TickSource tickSource, YamlService yamlService) {
         this.fluxProperties = fluxProperties;
         this.sdkStarter = sdkStarter;
+        this.tickSource = tickSource;
         this.yamlService = yamlService;
-        this.trackmapTrackerListFlux = Flux.interval(Duration.ofMillis(fluxProperties.getTrackmapTrackerIntervalInMs()))
-                                           .filter(aLong -> sdkStarter.isRunning())
-                                           .flatMap(aLong -> loadTrackmapTrackerDataList()).publish();
+        this.carIdxLapDistPct = sdkStarter.floatVar("CarIdxLapDistPct");
+        this.trackmapTrackerListFlux = tickSource.getFrameFlux(Duration.ofMillis(fluxProperties.getTrackmapTrackerIntervalInMs()))
+                                           .flatMap(this::loadTrackmapTrackerDataList).publish();
     }
 
     public Flux<List<TrackmapTrackerDriver>> getTrackmapTrackerListFlux() {
         return trackmapTrackerListFlux.autoConnect();
     }
 
-    private Flux<List<TrackmapTrackerDriver>> loadTrackmapTrackerDataList() {
+    private Flux<List<TrackmapTrackerDriver>> loadTrackmapTrackerDataList(TelemetryFrame frame) {
         List<DriverInfoYaml> driverInfoYamlList = yamlService.getYamlFile().getDriverInfo().getDrivers();
-        return Flux.range(0, driverInfoYamlList.size()).subscribeOn(Schedulers.parallel())
-                   .flatMap(idx -> getTrackmapTrackerCarIdx(driverInfoYamlList.get(idx))).buffer(driverInfoYamlList.size());
+        float[] lapDistPct = new float[Constant.IRSDK_MAX_CARS];
+        frame.readFloats(carIdxLapDistPct, lapDistPct);
+
+        List<TrackmapTrackerDriver> trackmapTrackerDrivers = new ArrayList<>(driverInfoYamlList.size());
+        for (DriverInfoYaml driverInfoYaml : driverInfoYamlList) {
+            trackmapTrackerDrivers.add(getTrackmapTrackerCarIdx(driverInfoYaml, lapDistPct));
+        }
+        return Flux.just(trackmapTrackerDrivers);
     }
 
-    private Flux<TrackmapTrackerDriver> getTrackmapTrackerCarIdx(DriverInfoYaml driverInfoYaml) {
-        return Flux.zip(Mono.just(Integer.parseInt(driverInfoYaml.getCarIdx())),
-                        Mono.just(Integer.parseInt(driverInfoYaml.getCarNumber())),
-                        Mono.just(Optional.ofNullable(driverInfoYaml.getInitials()).orElse("")),
-                        Mono.just(driverInfoYaml.getUserName().substring(0, 2).toUpperCase()),
-                        Mono.just(sdkStarter.getVarFloat("CarIdxLapDistPct", Integer.parseInt(driverInfoYaml.getCarIdx()))))
-                   .map(o -> new TrackmapTrackerDriver(o.getT1(), o.getT2(), getDriverInitials(o.getT3(), o.getT4()), o.getT5()));
+    private TrackmapTrackerDriver getTrackmapTrackerCarIdx(DriverInfoYaml driverInfoYaml, float[] lapDistPct) {
+        int carIdx = Integer.parseInt(driverInfoYaml.getCarIdx());
+        return new TrackmapTrackerDriver(carIdx,
+                                         Integer.parseInt(driverInfoYaml.getCarNumber()),
+                                         getDriverInitials(Optional.ofNullable(driverInfoYaml.getInitials()).orElse(""),
+                                                           driverInfoYaml.getUserName().substring(0, 2).toUpperCase()),
+                                         carIdx >= 0 && carIdx < lapDistPct.length ? lapDistPct[carIdx] : 0.0f);
     }
 
     private String getDriverInitials(String t3, String t4) {
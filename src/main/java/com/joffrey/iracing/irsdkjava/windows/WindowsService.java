@@ -44,8 +44,10 @@ package com.joffrey.iracing.irsdkjava.windows;/*
 
 
 import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.BaseTSD;
 import com.sun.jna.platform.win32.Kernel32;
 import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinBase;
 import com.sun.jna.platform.win32.Win32Exception;
 import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.platform.win32.WinNT;
@@ -77,16 +79,37 @@ public class WindowsService {
         return Kernel32.INSTANCE.MapViewOfFile(handle, WinNT.SECTION_MAP_READ, 0, 0, 0);
     }
 
+    /**
+     * @return the size in bytes of the view mapped at the given address, 0 if unknown
+     */
+    public long getMappedViewSize(Pointer sharedMemory) {
+        if (sharedMemory == null) {
+            return 0;
+        }
+        WinNT.MEMORY_BASIC_INFORMATION memoryInfo = new WinNT.MEMORY_BASIC_INFORMATION();
+        BaseTSD.SIZE_T written = Kernel32.INSTANCE.VirtualQueryEx(Kernel32.INSTANCE.GetCurrentProcess(),
+                                                                  sharedMemory,
+                                                                  memoryInfo,
+                                                                  new BaseTSD.SIZE_T(memoryInfo.size()));
+        lastError = Kernel32.INSTANCE.GetLastError();
+        return written.longValue() == 0 ? 0 : memoryInfo.regionSize.longValue();
+    }
+
     public void unmapViewOfFile(Pointer sharedMemory) {
         Kernel32Impl.KERNEL_32.UnmapViewOfFile(sharedMemory);
         lastError = Kernel32Impl.KERNEL_32.GetLastError();
     }
 
-    public void waitForSingleObject(WinNT.HANDLE handle, int timeout) {
+    /**
+     * @return true if the object was signaled before the timeout
+     */
+    public boolean waitForSingleObject(WinNT.HANDLE handle, int timeout) {
         if (handle != null) {
-            Kernel32.INSTANCE.WaitForSingleObject(handle, timeout);
+            int result = Kernel32.INSTANCE.WaitForSingleObject(handle, timeout);
             lastError = Kernel32.INSTANCE.GetLastError();
+            return result == WinBase.WAIT_OBJECT_0;
         }
+        return false;
     }
 
     public WinNT.HANDLE openEvent(String eventName) {
@@ -25,41 +25,78 @@ package com.joffrey.iracing.irsdkjava.yaml;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.YamlFile;
 import java.io.IOException;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.java.Log;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+/**
+ * Keeps the session info YAML of the sim parsed.
+ * <p>
+ * The sessionInfoUpdate counter of the header is checked on each tick, the YAML is copied on the tick it changed (and on the
+ * first tick of each connection) and parsed on its own thread so the reader thread never waits for Jackson. If the sim updates
+ * the YAML again while it is copied, the counter has moved and the next tick copies it again.
+ * <p>
+ * Subscribed when the bean is created, so the YAML is parsed from the first tick: {@link #getYamlFile()} returns the empty YAML
+ * only until the first one of the sim is parsed, not until it is first asked for. The subscriptions and the parser thread
+ * end with the bean.
+ */
 @Log
 @Service
-public class YamlService {
+public class YamlService implements DisposableBean {
+
+    private final SdkStarter           sdkStarter;
+    private final ObjectMapper         objectMapper  = new ObjectMapper(new YAMLFactory());
+    private final Scheduler            scheduler     = Schedulers.newSingle("irsdkjava-yaml", true);
+    private final Disposable.Composite subscriptions = Disposables.composite();
 
-    private final FluxProperties fluxProperties;
-    private final SdkStarter     sdkStarter;
-    private final ObjectMapper   objectMapper = new ObjectMapper(new YAMLFactory());
-    private       YamlFile       yamlFile;
+    private volatile YamlFile yamlFile;
+    // Read on the frames worker, reset on disconnection, -1 until the first tick of a connection
+    private volatile int      sessionInfoUpdate = -1;
 
-    public YamlService(FluxProperties fluxProperties, SdkStarter sdkStarter) {
-        this.fluxProperties = fluxProperties;
+    public YamlService(SdkStarter sdkStarter, TickSource tickSource) {
         this.sdkStarter = sdkStarter;
         this.yamlFile = YamlFile.initEmpty();
-        Flux<YamlFile> map =
-                Flux.interval(Duration.ofMillis(fluxProperties.getYamlIntervalInMs())).filter(aLong -> sdkStarter.isRunning())
-                    .map(aLong -> yamlFile = loadYamlObject());
-
-        map.subscribe();
+        subscriptions.add(sdkStarter.getConnectionStateFlux()
+                                    .filter(connectionState -> !connectionState.isConnected())
+                                    .subscribe(connectionState -> sessionInfoUpdate = -1));
+        subscriptions.add(tickSource.getFrameFlux()
+                                    .filter(frame -> isSessionInfoUpdated())
+                                    // The session info is ISO-8859-1 whatever the platform charset
+                                    .map(frame -> new String(sdkStarter.getHeader().getSessionInfoByteBuffer().array(),
+                                                             StandardCharsets.ISO_8859_1))
+                                    // Only the latest YAML is worth parsing when updates come faster than the parser
+                                    .onBackpressureLatest()
+                                    .publishOn(scheduler, 1)
+                                    .subscribe(yamlString -> yamlFile = loadYamlObject(yamlString)));
     }
 
+    /**
+     * @return the latest parsed YAML, empty until the first one is parsed
+     */
     public YamlFile getYamlFile() {
         return yamlFile;
     }
 
-    private YamlFile loadYamlObject() {
-        String yamlString = new String(sdkStarter.getHeader().getSessionInfoByteBuffer().array());
+    private boolean isSessionInfoUpdated() {
+        HeaderSnapshot snapshot = sdkStarter.getHeaderSnapshot();
+        if (snapshot == null || snapshot.getSessionInfoUpdate() == sessionInfoUpdate) {
+            return false;
+        }
+        sessionInfoUpdate = snapshot.getSessionInfoUpdate();
+        return true;
+    }
+
+    private YamlFile loadYamlObject(String yamlString) {
         if (!yamlString.isEmpty()) {
             // Remove 'null' ascii char after '...' yaml ending
             yamlString = yamlString.substring(0, yamlString.indexOf("...") + 3);
@@ -72,4 +109,10 @@ public class YamlService {
         return yamlFile;
     }
 
+    @Override
+    public void destroy() {
+        subscriptions.dispose();
+        scheduler.dispose();
+    }
+
 }
@@ -0,0 +1,295 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import com.joffrey.iracing.irsdkjava.ibt.IbtDiskHeader;
+import com.joffrey.iracing.irsdkjava.memory.SharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.defines.StatusField;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Build a fake iRacing shared memory: the header, the var headers, then the rotating var buffers
+ */
+public class MemoryHelperTest {
+
+    static final int TYPE_INT    = 2;
+    static final int TYPE_FLOAT  = 4;
+    static final int TYPE_DOUBLE = 5;
+
+    static final int VAR_BUF_OFFSET = 48;
+
+    /**
+     * @param numBuf number of rotating var buffers
+     * @param vars   the vars, laid out one after the other in each var buffer
+     * @return a direct little endian buffer, every var buffer is zeroed with a tick count of 0
+     */
+    static ByteBuffer createMemory(int numBuf, Var... vars) {
+        int bufLen = 0;
+        for (Var var : vars) {
+            bufLen += var.bytes * var.count;
+        }
+        int varHeaderOffset = Header.HEADER_SIZE;
+        int firstBufOffset = varHeaderOffset + (vars.length * VarHeader.VAR_HEADER_SIZE);
+
+        ByteBuffer memory = ByteBuffer.allocateDirect(firstBufOffset + (numBuf * bufLen)).order(ByteOrder.LITTLE_ENDIAN);
+        memory.putInt(0, 2);
+        memory.putInt(4, StatusField.IRSDK_STCONNECTED.getValue());
+        memory.putInt(8, 60);
+        memory.putInt(24, vars.length);
+        memory.putInt(28, varHeaderOffset);
+        memory.putInt(32, numBuf);
+        memory.putInt(36, bufLen);
+        for (int i = 0; i < numBuf; i++) {
+            memory.putInt(VAR_BUF_OFFSET + (i * Header.VARBUF_SIZE) + 4, firstBufOffset + (i * bufLen));
+        }
+
+        int offset = 0;
+        for (int i = 0; i < vars.length; i++) {
+            int at = varHeaderOffset + (i * VarHeader.VAR_HEADER_SIZE);
+            memory.putInt(at, vars[i].type);
+            memory.putInt(at + 4, offset);
+            memory.putInt(at + 8, vars[i].count);
+            byte[] name = vars[i].name.getBytes(StandardCharsets.US_ASCII);
+            for (int c = 0; c < name.length; c++) {
+                memory.put(at + 16 + c, name[c]);
+            }
+            offset += vars[i].bytes * vars[i].count;
+        }
+        return memory;
+    }
+
+    /**
+     * Build an .ibt file: the header, the disk header, the var headers, the session info, then the rows
+     *
+     * @param sessionInfo the session info YAML
+     * @param rows        number of rows, all zeroed
+     * @param vars        the vars, laid out one after the other in each row
+     * @return a heap little endian buffer holding the whole file
+     */
+    static ByteBuffer createIbt(String sessionInfo, int rows, Var... vars) {
+        ByteBuffer layout = createMemory(1, vars);
+        int varHeaderOffset = Header.HEADER_SIZE + IbtDiskHeader.SIZE;
+        int varHeadersSize = vars.length * VarHeader.VAR_HEADER_SIZE;
+        byte[] yaml = sessionInfo.getBytes(StandardCharsets.ISO_8859_1);
+        int sessionInfoOffset = varHeaderOffset + varHeadersSize;
+        int rowsOffset = sessionInfoOffset + yaml.length + 1;
+        int bufLen = getBufLen(layout);
+
+        ByteBuffer ibt = ByteBuffer.allocate(rowsOffset + (rows * bufLen)).order(ByteOrder.LITTLE_ENDIAN);
+        ibt.put(layout.duplicate().position(0).limit(Header.HEADER_SIZE));
+        ibt.putInt(16, yaml.length);
+        ibt.putInt(20, sessionInfoOffset);
+        ibt.putInt(28, varHeaderOffset);
+        ibt.putInt(VAR_BUF_OFFSET + 4, rowsOffset);
+        ibt.putLong(IbtDiskHeader.OFFSET, 1_600_000_000L);
+        ibt.putInt(IbtDiskHeader.OFFSET + 28, rows);
+        ibt.position(varHeaderOffset);
+        ibt.put(layout.duplicate().position(Header.HEADER_SIZE).limit(Header.HEADER_SIZE + varHeadersSize));
+        ibt.put(yaml);
+        return ibt.clear();
+    }
+
+    /**
+     * Build an .ibt file with an empty session info and write it
+     *
+     * @see #writeIbt(Path, String, int, RowFiller, Var...)
+     */
+    static Path writeIbt(Path file, int rows, RowFiller filler, Var... vars) throws IOException {
+        return writeIbt(file, "---\n...\n", rows, filler, vars);
+    }
+
+    /**
+     * Build an .ibt file and write it, each row is filled by var name so the fixtures don't depend on the layout
+     *
+     * @param filler called once per row, in row order
+     */
+    static Path writeIbt(Path file, String sessionInfo, int rows, RowFiller filler, Var... vars) throws IOException {
+        ByteBuffer ibt = createIbt(sessionInfo, rows, vars);
+        Row values = new Row(ibt, vars);
+        for (int row = 0; row < rows; row++) {
+            values.at = getIbtRowOffset(ibt, row);
+            filler.fill(row, values);
+        }
+        return writeToFile(ibt, file);
+    }
+
+    static int getIbtRowOffset(ByteBuffer ibt, int row) {
+        return getVarBufOffset(ibt, 0) + (row * getBufLen(ibt));
+    }
+
+    /**
+     * Write the whole memory in place, a mapping of the file sees the new content
+     */
+    static Path writeToFile(ByteBuffer memory, Path file) throws IOException {
+        ByteBuffer content = memory.duplicate();
+        content.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(content, 0);
+        }
+        return file;
+    }
+
+    static int getBufLen(ByteBuffer memory) {
+        return memory.getInt(36);
+    }
+
+    static int getVarBufOffset(ByteBuffer memory, int varBuf) {
+        return memory.getInt(VAR_BUF_OFFSET + (varBuf * Header.VARBUF_SIZE) + 4);
+    }
+
+    static void setTickCount(ByteBuffer memory, int varBuf, int tickCount) {
+        memory.putInt(VAR_BUF_OFFSET + (varBuf * Header.VARBUF_SIZE), tickCount);
+    }
+
+    static Var floatVar(String name, int count) {
+        return new Var(name, TYPE_FLOAT, Float.BYTES, count);
+    }
+
+    static Var intVar(String name, int count) {
+        return new Var(name, TYPE_INT, Integer.BYTES, count);
+    }
+
+    static Var doubleVar(String name, int count) {
+        return new Var(name, TYPE_DOUBLE, Double.BYTES, count);
+    }
+
+    /**
+     * A shared memory that is always there, with room to rewrite a larger layout in place
+     */
+    static class InMemorySource implements SharedMemorySource {
+
+        private final ByteBuffer memory;
+
+        InMemorySource(ByteBuffer initial) {
+            this(initial, 1);
+        }
+
+        InMemorySource(ByteBuffer initial, int capacityFactor) {
+            memory = ByteBuffer.allocateDirect(initial.capacity() * capacityFactor).order(ByteOrder.LITTLE_ENDIAN);
+            memory.put(initial.duplicate().clear()).clear();
+        }
+
+        ByteBuffer getMemory() {
+            return memory;
+        }
+
+        @Override
+        public boolean open() {
+            return true;
+        }
+
+        @Override
+        public ByteBuffer map() {
+            return memory;
+        }
+
+        @Override
+        public boolean waitForTick(int timeoutMs) {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @FunctionalInterface
+    interface RowFiller {
+
+        void fill(int row, Row values);
+    }
+
+    /**
+     * The row being filled, values are put at the offset of their var
+     */
+    static class Row {
+
+        private final ByteBuffer           ibt;
+        private final Map<String, Var>     vars    = new HashMap<>();
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private       int                  at;
+
+        private Row(ByteBuffer ibt, Var... vars) {
+            this.ibt = ibt;
+            int offset = 0;
+            for (Var var : vars) {
+                this.vars.put(var.name, var);
+                this.offsets.put(var.name, offset);
+                offset += var.bytes * var.count;
+            }
+        }
+
+        Row putDouble(String name, double value) {
+            ibt.putDouble(getOffset(name, 0, TYPE_DOUBLE), value);
+            return this;
+        }
+
+        Row putFloat(String name, float value) {
+            ibt.putFloat(getOffset(name, 0, TYPE_FLOAT), value);
+            return this;
+        }
+
+        Row putInt(String name, int value) {
+            return putInt(name, 0, value);
+        }
+
+        Row putInt(String name, int entry, int value) {
+            ibt.putInt(getOffset(name, entry, TYPE_INT), value);
+            return this;
+        }
+
+        private int getOffset(String name, int entry, int type) {
+            Var var = vars.get(name);
+            if (var == null || var.type != type || entry < 0 || entry >= var.count) {
+                throw new IllegalArgumentException("No entry " + entry + " of type " + type + " for var " + name);
+            }
+            return at + offsets.get(name) + (entry * var.bytes);
+        }
+    }
+
+    static class Var {
+
+        final String name;
+        final int    type;
+        final int    bytes;
+        final int    count;
+
+        Var(String name, int type, int bytes, int count) {
+            this.name = name;
+            this.type = type;
+            this.bytes = bytes;
+            this.count = count;
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.joffrey.iracing.irsdkjava;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import com.joffrey.iracing.irsdkjava.model.BooleanVar;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
+import java.time.Duration;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+
+public class SdkStarterHelperTest {
+
+    /**
+     * Make the mocked {@link SdkStarter} hand out real handles, they are equal by name so getVar* calls can be stubbed with
+     * {@code new FloatVar("Speed")}
+     */
+    static void mockVarHandles(SdkStarter sdkStarter) {
+        Mockito.doAnswer(invocation -> new FloatVar(invocation.getArgument(0))).when(sdkStarter).floatVar(anyString());
+        Mockito.doAnswer(invocation -> new IntVar(invocation.getArgument(0))).when(sdkStarter).intVar(anyString());
+        Mockito.doAnswer(invocation -> new DoubleVar(invocation.getArgument(0))).when(sdkStarter).doubleVar(anyString());
+        Mockito.doAnswer(invocation -> new BooleanVar(invocation.getArgument(0))).when(sdkStarter).booleanVar(anyString());
+    }
+
+    /**
+     * Make the bulk reads of a mocked {@link TelemetryFrame} go through its stubbed getVar* calls, one per entry
+     */
+    static void mockArrayReads(TelemetryFrame frame) {
+        Mockito.doAnswer(invocation -> {
+            float[] dest = invocation.getArgument(1);
+            for (int entry = 0; entry < dest.length; entry++) {
+                dest[entry] = frame.getVarFloat(invocation.<FloatVar>getArgument(0), entry);
+            }
+            return dest.length;
+        }).when(frame).readFloats(any(FloatVar.class), any(float[].class));
+        Mockito.doAnswer(invocation -> {
+            int[] dest = invocation.getArgument(1);
+            for (int entry = 0; entry < dest.length; entry++) {
+                dest[entry] = frame.getVarInt(invocation.<IntVar>getArgument(0), entry);
+            }
+            return dest.length;
+        }).when(frame).readInts(any(IntVar.class), any(int[].class));
+    }
+
+    /**
+     * Make the mocked {@link TickSource} publish the given frame once per requested period
+     */
+    static void mockTickSource(TickSource tickSource, TelemetryFrame frame) {
+        Mockito.doAnswer(invocation -> Flux.interval(invocation.<Duration>getArgument(0)).map(tick -> frame))
+               .when(tickSource).getFrameFlux(any());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getVarBufOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.model.BitField;
+import com.joffrey.iracing.irsdkjava.model.BitfieldVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.defines.EngineWarnings;
+import com.joffrey.iracing.irsdkjava.model.defines.Flags;
+import com.joffrey.iracing.irsdkjava.model.defines.TrkLoc;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestBitField {
+
+    @DisplayName("isSet() - Each flag is checked against its own mask, the sign bit included")
+    @Test
+    void Given_RawValue_When_CheckingFlags_Then_OnlySetFlagsAreReported() {
+        BitField<Flags> flags = new BitField<>(Flags.class, Flags.irsdk_green.getValue() | Flags.irsdk_startGo.getValue());
+
+        assertThat(flags.isSet(Flags.irsdk_green)).isTrue();
+        assertThat(flags.isSet(Flags.irsdk_startGo)).isTrue();
+        assertThat(flags.isSet(Flags.irsdk_yellow)).isFalse();
+        assertThat(flags.toEnumSet()).isEqualTo(EnumSet.of(Flags.irsdk_green, Flags.irsdk_startGo));
+        assertThat(flags).hasToString("Flags[irsdk_green, irsdk_startGo]");
+
+        List<Flags> visited = new ArrayList<>();
+        flags.set(Flags.irsdk_checkered.getValue()).forEach(visited::add);
+        assertThat(visited).containsExactly(Flags.irsdk_checkered);
+        assertThat(flags.set(0).isEmpty()).isTrue();
+        assertThat(new BitField<>(Flags.class, 0x08000000).isEmpty()).isTrue();
+    }
+
+    @DisplayName("getVarBitfield() - A bitfield var is read from the frame into a reusable view")
+    @Test
+    void Given_BitfieldVar_When_ReadFromFrame_Then_ViewHoldsRawValue() {
+        ByteBuffer memory = createMemory(1, intVar("EngineWarnings", 1));
+        memory.putInt(getVarBufOffset(memory, 0),
+                      EngineWarnings.irsdk_pitSpeedLimiter.getValue() | EngineWarnings.irsdk_waterTempWarning.getValue());
+        setTickCount(memory, 0, 1);
+        SdkStarter sdkStarter = new SdkStarter(new InMemorySource(memory));
+        BitfieldVar<EngineWarnings> engineWarnings = sdkStarter.bitfieldVar("EngineWarnings", EngineWarnings.class);
+        assertThat(sdkStarter.isRunning()).isTrue();
+
+        BitField<EngineWarnings> view = new BitField<>(EngineWarnings.class);
+        assertThat(sdkStarter.getVarBitfield(engineWarnings, view)).isSameAs(view);
+        assertThat(view.isSet(EngineWarnings.irsdk_pitSpeedLimiter)).isTrue();
+        assertThat(view.isSet(EngineWarnings.irsdk_revLimiterActive)).isFalse();
+        assertThat(sdkStarter.getVarBitfield(engineWarnings)).isEqualTo(view)
+                                                             .isSameAs(sdkStarter.getVarBitfield(engineWarnings));
+        assertThat(TelemetryFrame.EMPTY.getVarBitfield(engineWarnings, 0, view).isEmpty()).isTrue();
+    }
+
+    @DisplayName("TrkLoc.of() - Every value maps to its track location, unknown ones are not in world")
+    @Test
+    void Given_TrackSurfaceValues_When_Decoded_Then_MatchingTrkLoc() {
+        for (TrkLoc trkLoc : TrkLoc.values()) {
+            assertThat(TrkLoc.of(trkLoc.getValue())).isSameAs(trkLoc);
+            assertThat(TrkLoc.valueOf(trkLoc.getValue())).isEqualTo(trkLoc.toString());
+        }
+        assertThat(TrkLoc.of(42)).isSameAs(TrkLoc.irsdk_NotInWorld);
+        assertThat(TrkLoc.of(-2)).isSameAs(TrkLoc.irsdk_NotInWorld);
+    }
+
+}
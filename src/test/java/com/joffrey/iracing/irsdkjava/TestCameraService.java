@@ -23,6 +23,7 @@
 
 package com.joffrey.iracing.irsdkjava;
 
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockTickSource;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.createByteBufferYamlFile;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.loadYamlObject;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +32,8 @@ import com.joffrey.iracing.irsdkjava.camera.CameraService;
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
 import com.joffrey.iracing.irsdkjava.model.Header;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.CamerasGroupsYaml;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.YamlFile;
@@ -51,6 +54,8 @@ class TestCameraService {
     @MockBean
     private SdkStarter  sdkStarter;
     @MockBean
+    private TickSource  tickSource;
+    @MockBean
     private Header      header;
     @MockBean
     private YamlService yamlService;
@@ -63,13 +68,13 @@ class TestCameraService {
 
     @BeforeEach
     void init() {
-        cameraService = new CameraService(new FluxProperties(), sdkStarter, yamlService);
+        mockTickSource(tickSource, TelemetryFrame.EMPTY);
+        cameraService = new CameraService(new FluxProperties(), sdkStarter, tickSource, yamlService);
         byteBufferYamlFile = createByteBufferYamlFile("camera/cameras.yml");
         YamlFile yamlFile = loadYamlObject(byteBufferYamlFile);
 
         Mockito.when(sdkStarter.getHeader()).thenReturn(header);
         Mockito.when(sdkStarter.getHeader().getSessionInfoByteBuffer()).thenReturn(byteBufferYamlFile);
-        Mockito.when(sdkStarter.isRunning()).thenReturn(true);
         Mockito.when(yamlService.getYamlFile()).thenReturn(yamlFile);
     }
 
@@ -0,0 +1,94 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createIbt;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getIbtRowOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeToFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.joffrey.iracing.irsdkjava.columnar.ColumnStore;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnarConverter;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestColumnStore {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("convert() - Each entry of each var becomes one column, read back as a primitive buffer")
+    @Test
+    void Given_IbtFile_When_Convert_Then_ColumnsHoldEveryRow() throws Exception {
+        int rows = 10;
+        ByteBuffer ibt = createIbt(SESSION_INFO, rows, doubleVar("SessionTime", 1), floatVar("Speed", 1), intVar("CarIdxLap", 3));
+        for (int row = 0; row < rows; row++) {
+            int at = getIbtRowOffset(ibt, row);
+            ibt.putDouble(at, row * 0.5);
+            ibt.putFloat(at + 8, row * 10.0F);
+            for (int carIdx = 0; carIdx < 3; carIdx++) {
+                ibt.putInt(at + 12 + (carIdx * 4), (carIdx * 100) + row);
+            }
+        }
+        Path file = writeToFile(ibt, tempDir.resolve("session.ibt"));
+
+        ColumnStore columnStore;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (IbtFile ibtFile = IbtFile.open(file)) {
+            // Blocks smaller than the file
+            columnStore = new ColumnarConverter(pool, 3).convert(ibtFile, tempDir.resolve("columns"));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(columnStore.getRowCount()).isEqualTo(rows);
+        assertThat(columnStore.getColumnNames()).containsExactly("SessionTime", "Speed", "CarIdxLap");
+        assertThat(columnStore.getSessionInfo()).isEqualTo(SESSION_INFO);
+        DoubleBuffer sessionTime = columnStore.getDoubles("SessionTime", 0);
+        FloatBuffer speed = columnStore.getFloats("Speed", 0);
+        IntBuffer lapOfCar2 = columnStore.getInts("CarIdxLap", 2);
+        assertThat(speed.remaining()).isEqualTo(rows);
+        for (int row = 0; row < rows; row++) {
+            assertThat(sessionTime.get(row)).isEqualTo(row * 0.5);
+            assertThat(speed.get(row)).isEqualTo(row * 10.0F);
+            assertThat(lapOfCar2.get(row)).isEqualTo(200 + row);
+        }
+        assertThatThrownBy(() -> columnStore.getDoubles("Speed", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> columnStore.getInts("CarIdxLap", 3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+}
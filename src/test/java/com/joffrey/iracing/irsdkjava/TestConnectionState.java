@@ -0,0 +1,149 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.memory.FileSharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.SdkState;
+import com.joffrey.iracing.irsdkjava.model.defines.StatusField;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+class TestConnectionState {
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("poll() - The state goes through DISCONNECTED, MAPPING, CONNECTED, STALE and back, each transition is emitted once")
+    @Test
+    void Given_SimLifecycle_When_Polling_Then_EveryTransitionIsEmitted() {
+        ByteBuffer memory = createMemory(1, floatVar("Speed", 1));
+        memory.putInt(4, 0);
+        InMemorySource source = new InMemorySource(memory);
+        SdkStarter sdkStarter = new SdkStarter(source);
+        sdkStarter.setStaleTimeoutMs(50);
+
+        StepVerifier.create(sdkStarter.getConnectionStateFlux())
+                    .then(() -> assertThat(new SdkStarter(new FileSharedMemorySource(tempDir.resolve("missing.bin"))).poll())
+                            .isEqualTo(ConnectionState.DISCONNECTED))
+                    .then(sdkStarter::poll)
+                    .expectNext(ConnectionState.MAPPING)
+                    .then(() -> {
+                        source.getMemory().putInt(4, StatusField.IRSDK_STCONNECTED.getValue());
+                        setTickCount(source.getMemory(), 0, 1);
+                        sdkStarter.poll();
+                        sdkStarter.poll();
+                    })
+                    .expectNext(ConnectionState.CONNECTED)
+                    .then(() -> {
+                        sleep(100);
+                        sdkStarter.poll();
+                        sdkStarter.poll();
+                    })
+                    .expectNext(ConnectionState.STALE)
+                    .then(() -> {
+                        assertThat(sdkStarter.isRunning()).isTrue();
+                        setTickCount(source.getMemory(), 0, 2);
+                        sdkStarter.poll();
+                    })
+                    .expectNext(ConnectionState.CONNECTED)
+                    .then(() -> {
+                        source.getMemory().putInt(4, 0);
+                        assertThat(sdkStarter.isRunning()).isFalse();
+                    })
+                    .expectNext(ConnectionState.MAPPING)
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+
+        assertThat(sdkStarter.getTelemetryFrame().getTickCount()).isEqualTo(2);
+    }
+
+    @DisplayName("getState() - Readers polling concurrently with a writer always see a frame and a var table of the same poll")
+    @Test
+    void Given_ConcurrentReaders_When_Polling_Then_StateIsConsistent() throws InterruptedException {
+        ByteBuffer memory = createMemory(1, floatVar("Speed", 1));
+        InMemorySource source = new InMemorySource(memory);
+        SdkStarter sdkStarter = new SdkStarter(source);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<String> errors = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(4);
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                started.countDown();
+                while (running.get()) {
+                    SdkState state = sdkStarter.getState();
+                    if (state.getConnectionState().isConnected()
+                        && (state.getHeaderSnapshot() == null || state.getVarTable().get("Speed") == null)) {
+                        synchronized (errors) {
+                            errors.add(state.toString());
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        started.await(1, TimeUnit.SECONDS);
+
+        for (int tick = 1; tick < 2000; tick++) {
+            setTickCount(source.getMemory(), 0, tick);
+            sdkStarter.poll();
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(sdkStarter.getTelemetryFrame().getTickCount()).isEqualTo(1999);
+        assertThat(sdkStarter.getConnectionState()).isEqualTo(ConnectionState.CONNECTED);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
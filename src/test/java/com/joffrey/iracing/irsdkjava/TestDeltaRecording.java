@@ -0,0 +1,185 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getBufLen;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.ibt.DeltaReader;
+import com.joffrey.iracing.irsdkjava.ibt.DeltaWriter;
+import com.joffrey.iracing.irsdkjava.ibt.IbtRecorder;
+import com.joffrey.iracing.irsdkjava.ibt.RecordingFormat;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestDeltaRecording {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    private final ExecutorService ioExecutor  = Executors.newSingleThreadExecutor();
+    private final ByteBuffer      memory      = createMemory(1, doubleVar("SessionTime", 1), floatVar("Speed", 1),
+                                                             intVar("Lap", 1));
+    private final ByteBuffer      header      = memory.duplicate().position(0).limit(Header.HEADER_SIZE).slice();
+    private final ByteBuffer      varHeaders  = memory.duplicate().position(Header.HEADER_SIZE)
+                                                      .limit(Header.HEADER_SIZE + (3 * VarHeader.VAR_HEADER_SIZE)).slice();
+    private final ByteBuffer      sessionInfo = ByteBuffer.wrap(SESSION_INFO.getBytes(StandardCharsets.ISO_8859_1));
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdownNow();
+    }
+
+    @DisplayName("DeltaReader - Rows recorded as deltas are read back in order and by seeking across keyframes")
+    @Test
+    void Given_DeltaRecording_When_ReadAndSeek_Then_RowsAreRebuilt() throws Exception {
+        // Enough buffers to never wait for the disk, keyframes at rows 0, 10 and 20
+        IbtRecorder recorder = new IbtRecorder(tempDir.resolve("session.ibd"), ioExecutor, header, varHeaders, sessionInfo, 10, 3,
+                                               RecordingFormat.DELTA, 10);
+        for (int tick = 1; tick <= 25; tick++) {
+            recorder.record(new TelemetryFrame(tick, row(tick)));
+        }
+        Path path = recorder.close().get(5, TimeUnit.SECONDS);
+
+        try (DeltaReader reader = DeltaReader.open(path)) {
+            DoubleVar sessionTime = reader.doubleVar("SessionTime");
+            FloatVar speed = reader.floatVar("Speed");
+            IntVar lap = reader.intVar("Lap");
+            assertThat(reader.getRowCount()).isEqualTo(25);
+            assertThat(reader.getSessionInfo()).isEqualTo(SESSION_INFO);
+            for (int tick = 1; tick <= 25; tick++) {
+                assertThat(reader.next()).isTrue();
+                assertThat(reader.getFrame().getVarDouble(sessionTime)).isEqualTo(tick * 0.5);
+                assertThat(reader.getFrame().getVarFloat(speed)).isEqualTo(tick * 10.0F);
+                assertThat(reader.getFrame().getVarInt(lap)).isEqualTo(tick / 10);
+            }
+            assertThat(reader.next()).isFalse();
+
+            assertThat(reader.seek(23)).isTrue();
+            assertThat(reader.getFrame().getVarDouble(sessionTime)).isEqualTo(12.0);
+            assertThat(reader.seek(4)).isTrue();
+            assertThat(reader.getFrame().getVarFloat(speed)).isEqualTo(50.0F);
+            assertThat(reader.seek(25)).isFalse();
+        }
+    }
+
+    @DisplayName("DeltaReader - A file that was not closed is read up to its last whole row, each written batch is on disk")
+    @Test
+    void Given_UnclosedDeltaFile_When_Open_Then_WholeRowsAreRead() throws Exception {
+        Path path = tempDir.resolve("crashed.ibd");
+        DeltaWriter writer = DeltaWriter.create(path, header, varHeaders, sessionInfo, 10);
+        ByteBuffer rows = ByteBuffer.allocate(25 * getBufLen(memory));
+        for (int tick = 1; tick <= 25; tick++) {
+            rows.put(row(tick));
+        }
+        try {
+            writer.write(rows.flip());
+            // Not closed: no keyframe index
+            try (DeltaReader reader = DeltaReader.open(path)) {
+                assertThat(reader.getRowCount()).isEqualTo(25);
+            }
+            // Half of the last row
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(Files.size(path) - 3);
+            }
+
+            try (DeltaReader reader = DeltaReader.open(path)) {
+                DoubleVar sessionTime = reader.doubleVar("SessionTime");
+                assertThat(reader.getRowCount()).isEqualTo(24);
+                assertThat(reader.seek(23)).isTrue();
+                assertThat(reader.getFrame().getVarDouble(sessionTime)).isEqualTo(12.0);
+                assertThat(reader.next()).isFalse();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @DisplayName("DeltaReader - A delta whose changed count doesn't match its mask ends the rows")
+    @Test
+    void Given_CorruptChangedCount_When_Open_Then_RowsEndBeforeIt() throws Exception {
+        Path path = tempDir.resolve("corrupt.ibd");
+        DeltaWriter writer = DeltaWriter.create(path, header, varHeaders, sessionInfo, 10);
+        ByteBuffer rows = ByteBuffer.allocate(25 * getBufLen(memory));
+        for (int tick = 1; tick <= 25; tick++) {
+            rows.put(row(tick));
+        }
+        writer.write(rows.flip());
+        writer.close();
+        // No keyframe index, the rows are counted by reading them
+        long indexSize = 1 + Integer.BYTES + (3 * Long.BYTES) + Integer.BYTES + Long.BYTES + Integer.BYTES;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - indexSize);
+        }
+        // Changed count of the delta of row 1, right after the keyframe of row 0
+        long rowsOffset = 16 + Header.HEADER_SIZE + varHeaders.remaining() + Integer.BYTES + SESSION_INFO.length();
+        long changedOffset = rowsOffset + 1 + getBufLen(memory) + 1;
+        for (int changed : new int[]{0, -1}) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Integer.BYTES).order(memory.order()).putInt(0, changed), changedOffset);
+            }
+
+            try (DeltaReader reader = DeltaReader.open(path)) {
+                assertThat(reader.getRowCount()).isEqualTo(1);
+                assertThat(reader.next()).isTrue();
+                assertThat(reader.getFrame().getVarDouble(reader.doubleVar("SessionTime"))).isEqualTo(0.5);
+                assertThat(reader.next()).isFalse();
+            }
+        }
+    }
+
+    /**
+     * A session time of half the tick count, a speed of 10 times the tick count and a lap every 10 ticks
+     */
+    private ByteBuffer row(int tick) {
+        ByteBuffer row = ByteBuffer.allocate(getBufLen(memory)).order(memory.order());
+        row.putDouble(0, tick * 0.5);
+        row.putFloat(8, tick * 10.0F);
+        row.putInt(12, tick / 10);
+        return row;
+    }
+
+}
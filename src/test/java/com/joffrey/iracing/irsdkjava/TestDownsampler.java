@@ -0,0 +1,121 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.columnar.ColumnStore;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnarConverter;
+import com.joffrey.iracing.irsdkjava.downsampling.Downsampler;
+import com.joffrey.iracing.irsdkjava.downsampling.Downsampler.Method;
+import com.joffrey.iracing.irsdkjava.downsampling.Downsampling;
+import com.joffrey.iracing.irsdkjava.downsampling.Series;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestDownsampler {
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("minMax(), lttb() - A single peak is kept whatever the number of points")
+    @Test
+    void Given_Peak_When_Downsample_Then_PeakIsKept() {
+        double[] x = new double[1000];
+        float[] y = new float[1000];
+        for (int i = 0; i < y.length; i++) {
+            x[i] = i / 60.0;
+            y[i] = (float) Math.sin(i / 100.0);
+        }
+        y[517] = 42.0F;
+        y[803] = -42.0F;
+
+        int[] minMax = Downsampling.minMax(y, y.length, 20);
+        assertThat(minMax).hasSizeLessThanOrEqualTo(20).contains(517, 803).isSorted();
+        int[] lttb = Downsampling.lttb(x, y, y.length, 20);
+        assertThat(lttb).hasSize(20).startsWith(0).endsWith(999).contains(517, 803).isSorted();
+        assertThat(Downsampling.lttb(x, y, 10, 20)).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @DisplayName("downsample() - Channels of a file are read in parallel and a range is read once")
+    @Test
+    void Given_IbtFile_When_Downsample_Then_SeriesAreCached() throws IOException {
+        Downsampler downsampler = new Downsampler();
+        try (IbtFile ibtFile = IbtFile.open(createFile(600))) {
+            Map<String, Series> series = downsampler.downsample(ibtFile, Arrays.asList("Speed", "Gear", "RPM"), 0, 600, 60,
+                                                                Method.MIN_MAX);
+
+            assertThat(series).containsOnlyKeys("Speed", "Gear", "RPM");
+            Series speed = series.get("Speed");
+            assertThat(speed.size()).isEqualTo(60);
+            assertThat(speed.getY()).contains(0.0F, 599.0F);
+            assertThat(speed.getX()[speed.size() - 1]).isEqualTo(599 / 60.0);
+            assertThat(series.get("Gear").getY()).contains(1.0F, 6.0F);
+            assertThat(series.get("RPM").size()).isZero();
+
+            assertThat(downsampler.downsample(ibtFile, "Speed", 0, 0, 600, 60, Method.MIN_MAX)).isSameAs(speed);
+            Series zoomed = downsampler.downsample(ibtFile, "Speed", 0, 100, 200, 10, Method.LTTB);
+            assertThat(zoomed.getY()).hasSize(10).startsWith(100.0F).endsWith(199.0F);
+        }
+    }
+
+    @DisplayName("downsample() - Columns converted from a file give the points of the file")
+    @Test
+    void Given_ColumnStore_When_Downsample_Then_SamePointsAsFile() throws IOException {
+        Downsampler downsampler = new Downsampler();
+        try (IbtFile ibtFile = IbtFile.open(createFile(600))) {
+            ColumnStore columnStore = new ColumnarConverter().convert(ibtFile, tempDir.resolve("columns"));
+
+            for (String varName : Arrays.asList("Speed", "Gear")) {
+                Series columns = downsampler.downsample(columnStore, varName, 0, 100, 500, 40, Method.LTTB);
+                Series rows = downsampler.downsample(ibtFile, varName, 0, 100, 500, 40, Method.LTTB);
+                assertThat(columns.getX()).containsExactly(rows.getX());
+                assertThat(columns.getY()).containsExactly(rows.getY());
+            }
+            assertThat(downsampler.downsample(columnStore, "RPM", 0, 0, 600, 60, Method.MIN_MAX).size()).isZero();
+            assertThat(downsampler.downsample(columnStore, "Speed", 0, 700, 800, 60, Method.MIN_MAX).size()).isZero();
+        }
+    }
+
+    /**
+     * Rows at 60Hz, the speed is the row index and the gear goes from 1 to 6
+     */
+    private Path createFile(int rows) throws IOException {
+        return writeIbt(tempDir.resolve("session.ibt"), rows,
+                        (row, values) -> values.putDouble("SessionTime", row / 60.0)
+                                               .putFloat("Speed", row)
+                                               .putInt("Gear", 1 + (row * 6 / rows)),
+                        doubleVar("SessionTime", 1), floatVar("Speed", 1), intVar("Gear", 1));
+    }
+
+}
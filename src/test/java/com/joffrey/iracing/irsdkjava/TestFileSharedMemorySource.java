@@ -0,0 +1,114 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getVarBufOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeToFile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.memory.FileSharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestFileSharedMemorySource {
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("isRunning() - A memory image file is read like the iRacing shared memory, handles are bound and read the latest tick")
+    @Test
+    void Given_MemoryImageFile_When_Running_Then_HandlesReadLatestTick() throws IOException {
+        ByteBuffer memory = createMemory(3, floatVar("Speed", 1), intVar("CarIdxLap", 4));
+        writeTick(memory, 0, 10, 50.0f, 1);
+        writeTick(memory, 1, 11, 52.5f, 2);
+        Path file = writeToFile(memory, tempDir.resolve("memory.bin"));
+
+        SdkStarter sdkStarter = new SdkStarter(new FileSharedMemorySource(file));
+        FloatVar speed = sdkStarter.floatVar("Speed");
+        IntVar carIdxLap = sdkStarter.intVar("CarIdxLap");
+
+        assertThat(speed.isBound(sdkStarter.getVarTable())).isFalse();
+        assertThat(sdkStarter.isRunning()).isTrue();
+        assertThat(speed.isBound(sdkStarter.getVarTable())).isTrue();
+        assertThat(carIdxLap.getCount(sdkStarter.getVarTable())).isEqualTo(4);
+        assertThat(sdkStarter.getTelemetryFrame().getTickCount()).isEqualTo(11);
+        assertThat(sdkStarter.getVarFloat(speed)).isEqualTo(52.5f);
+        assertThat(sdkStarter.getVarInt(carIdxLap, 3)).isEqualTo(2);
+        assertThat(sdkStarter.getVarInt(carIdxLap, 4)).isZero();
+        assertThat(sdkStarter.getVarFloat("Speed")).isEqualTo(52.5f);
+        sdkStarter.destroy();
+    }
+
+    @DisplayName("waitForTick() - A new tick written in the file is signaled, no new tick times out")
+    @Test
+    void Given_FileRewritten_When_WaitingForTick_Then_NewTickIsSignaled() throws Exception {
+        ByteBuffer memory = createMemory(3, floatVar("Speed", 1));
+        writeTick(memory, 0, 1, 10.0f, 0);
+        Path file = writeToFile(memory, tempDir.resolve("memory.bin"));
+
+        FileSharedMemorySource source = new FileSharedMemorySource(file);
+        assertThat(source.open()).isTrue();
+        assertThat(source.map()).isNotNull();
+
+        assertThat(source.waitForTick(10)).isTrue();
+        assertThat(source.waitForTick(10)).isFalse();
+
+        writeTick(memory, 1, 2, 11.0f, 0);
+        writeToFile(memory, file);
+        assertThat(source.waitForTick(1000)).isTrue();
+        source.close();
+    }
+
+    @DisplayName("isRunning() - Not running while the file doesn't exist")
+    @Test
+    void Given_NoFile_When_Running_Then_NotRunning() {
+        SdkStarter sdkStarter = new SdkStarter(new FileSharedMemorySource(tempDir.resolve("missing.bin")));
+
+        assertThat(sdkStarter.isRunning()).isFalse();
+        assertThat(sdkStarter.getTelemetryFrame().getTickCount()).isEqualTo(-1);
+    }
+
+    /**
+     * Fill the var buffer with a speed followed by the same lap for every car
+     */
+    private static void writeTick(ByteBuffer memory, int varBuf, int tickCount, float speed, int lap) {
+        int offset = getVarBufOffset(memory, varBuf);
+        memory.putFloat(offset, speed);
+        for (int carIdx = 0; carIdx < 4 && offset + Float.BYTES + (carIdx * Integer.BYTES) < memory.capacity(); carIdx++) {
+            memory.putInt(offset + Float.BYTES + (carIdx * Integer.BYTES), lap);
+        }
+        setTickCount(memory, varBuf, tickCount);
+    }
+
+}
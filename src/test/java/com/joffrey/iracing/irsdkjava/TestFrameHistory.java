@@ -0,0 +1,139 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getVarBufOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestFrameHistory {
+
+    private InMemorySource source;
+    private SdkStarter     sdkStarter;
+    private FloatVar       speed;
+
+    @BeforeEach
+    void setUp() {
+        source = new InMemorySource(createMemory(1, doubleVar("SessionTime", 1), floatVar("Speed", 1)));
+        sdkStarter = new SdkStarter(source);
+        speed = sdkStarter.floatVar("Speed");
+        assertThat(sdkStarter.isRunning()).isTrue();
+    }
+
+    @DisplayName("append() - Only the last frames are kept, read back by tick, session time or as a column")
+    @Test
+    void Given_MoreFramesThanCapacity_When_Read_Then_LastFramesAreReturned() {
+        FrameHistory frameHistory = new FrameHistory(4, sdkStarter.doubleVar("SessionTime"));
+        for (int tick = 1; tick <= 6; tick++) {
+            append(frameHistory, tick);
+        }
+
+        assertThat(frameHistory.size()).isEqualTo(4);
+        assertThat(frameHistory.getFirstTick()).isEqualTo(3);
+        assertThat(frameHistory.getLatestTick()).isEqualTo(6);
+        assertThat(frameHistory.getFrame(2)).isNull();
+        TelemetryFrame frame = frameHistory.getFrame(5);
+        assertThat(frame.getTickCount()).isEqualTo(5);
+        assertThat(frame.getVarFloat(speed)).isEqualTo(50.0F);
+        assertThat(frameHistory.getFrameAt(5.5).getTickCount()).isEqualTo(5);
+        assertThat(frameHistory.getFrameAt(1.0)).isNull();
+
+        float[] speeds = new float[10];
+        assertThat(frameHistory.readFloats(speed, 0, 0, Integer.MAX_VALUE, speeds)).isEqualTo(4);
+        assertThat(speeds).startsWith(30.0F, 40.0F, 50.0F, 60.0F);
+        double[] sessionTimes = new double[2];
+        assertThat(frameHistory.readSessionTimes(4, 6, sessionTimes)).isEqualTo(2);
+        assertThat(sessionTimes).containsExactly(4.0, 5.0);
+        double[] x = new double[10];
+        float[] y = new float[3];
+        assertThat(frameHistory.readPoints(speed, 0, 4, 6, x, y)).isEqualTo(3);
+        assertThat(x).startsWith(4.0, 5.0, 6.0);
+        assertThat(y).containsExactly(40.0F, 50.0F, 60.0F);
+    }
+
+    @DisplayName("append() - The history is cleared when the tick count goes backwards")
+    @Test
+    void Given_TickCountBackwards_When_Append_Then_HistoryIsCleared() {
+        FrameHistory frameHistory = new FrameHistory(4, sdkStarter.doubleVar("SessionTime"));
+        for (int tick = 10; tick <= 12; tick++) {
+            append(frameHistory, tick);
+        }
+        append(frameHistory, 1);
+
+        assertThat(frameHistory.size()).isEqualTo(1);
+        assertThat(frameHistory.getFrame(10)).isNull();
+        assertThat(frameHistory.getFrame(1).getVarFloat(speed)).isEqualTo(10.0F);
+    }
+
+    @DisplayName("readFloats() - A reader never sees a slot written during its copy")
+    @Test
+    void Given_ConcurrentWriter_When_ReadFloats_Then_ValuesAreConsistent() throws InterruptedException {
+        FrameHistory frameHistory = new FrameHistory(8, sdkStarter.doubleVar("SessionTime"));
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int tick = 1; tick <= 50_000; tick++) {
+                append(frameHistory, tick);
+            }
+        });
+        writer.start();
+        float[] speeds = new float[8];
+        while (writer.isAlive() && failure.get() == null) {
+            int count = frameHistory.readFloats(speed, 0, 0, Integer.MAX_VALUE, speeds);
+            for (int i = 1; i < count; i++) {
+                if (speeds[i] != speeds[i - 1] + 10.0F) {
+                    failure.set("Torn read " + speeds[i - 1] + " then " + speeds[i]);
+                }
+            }
+        }
+        writer.join();
+
+        assertThat(failure.get()).isNull();
+        assertThat(frameHistory.getLatestTick()).isEqualTo(50_000);
+    }
+
+    /**
+     * Publish a tick with a speed of 10 times the tick count and a session time of the tick count, then keep its frame
+     */
+    private void append(FrameHistory frameHistory, int tick) {
+        int varBuf = getVarBufOffset(source.getMemory(), 0);
+        source.getMemory().putDouble(varBuf + sdkStarter.getVarTable().get("SessionTime").getOffset(), tick);
+        source.getMemory().putFloat(varBuf + sdkStarter.getVarTable().get("Speed").getOffset(), tick * 10.0F);
+        setTickCount(source.getMemory(), 0, tick);
+        assertThat(sdkStarter.isRunning()).isTrue();
+        frameHistory.append(sdkStarter.getTelemetryFrame());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.joffrey.iracing.irsdkjava.ibt.IbtCursor;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestIbtFile {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("open() - Header, session info and rows are read with the same handles as live data")
+    @Test
+    void Given_IbtFile_When_Open_Then_RowsAreReadable() throws IOException {
+        try (IbtFile ibtFile = IbtFile.open(createFile(10))) {
+            FloatVar speed = ibtFile.floatVar("Speed");
+            IntVar lap = ibtFile.intVar("Lap");
+
+            assertThat(ibtFile.getRowCount()).isEqualTo(10);
+            assertThat(ibtFile.getDiskHeader().getSessionStartDate()).isEqualTo(Instant.ofEpochSecond(1_600_000_000L));
+            assertThat(ibtFile.getSessionInfo()).isEqualTo(SESSION_INFO);
+            assertThat(ibtFile.getVarTable().size()).isEqualTo(2);
+            assertThat(speed.isBound()).isTrue();
+            assertThat(ibtFile.getRow(7).getVarFloat(speed)).isEqualTo(70.0F);
+            assertThat(ibtFile.getRow(7).getVarInt(lap)).isEqualTo(3);
+            assertThat(ibtFile.getRow(7).getTickCount()).isEqualTo(7);
+            assertThatThrownBy(() -> ibtFile.getRow(10)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    @DisplayName("cursor() - Rows are walked in order across mapped windows smaller than the file")
+    @Test
+    void Given_SmallWindows_When_Cursor_Then_EveryRowIsRead() throws IOException {
+        // Two rows of 8 bytes per window
+        try (IbtFile ibtFile = IbtFile.open(createFile(9), 20)) {
+            FloatVar speed = ibtFile.floatVar("Speed");
+            IbtCursor cursor = ibtFile.cursor();
+
+            int rows = 0;
+            while (cursor.next()) {
+                assertThat(cursor.getFrame().getVarFloat(speed)).isEqualTo(cursor.getRow() * 10.0F);
+                rows++;
+            }
+            assertThat(rows).isEqualTo(9);
+            assertThat(cursor.seek(4)).isTrue();
+            assertThat(cursor.next()).isTrue();
+            assertThat(cursor.getFrame().getVarFloat(speed)).isEqualTo(50.0F);
+        }
+    }
+
+    /**
+     * Rows with a speed of 10 times the row index and a lap every 2 rows
+     */
+    private Path createFile(int rows) throws IOException {
+        return writeIbt(tempDir.resolve("session.ibt"), SESSION_INFO, rows,
+                        (row, values) -> values.putFloat("Speed", row * 10.0F).putInt("Lap", row / 2),
+                        floatVar("Speed", 1), intVar("Lap", 1));
+    }
+
+}
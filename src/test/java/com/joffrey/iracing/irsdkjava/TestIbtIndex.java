@@ -0,0 +1,149 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.ibt.IbtCursor;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.ibt.IbtIndex;
+import com.joffrey.iracing.irsdkjava.memory.ReplaySharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestIbtIndex {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("getIndex() - Rows are found by lap, session and session time, cursors and replays seek with them")
+    @Test
+    void Given_IbtFile_When_Find_Then_FirstRowIsFound() throws Exception {
+        Path file = createFile();
+        try (IbtFile ibtFile = IbtFile.open(file)) {
+            IbtIndex index = ibtFile.getIndex();
+
+            assertThat(index.getSessionNums()).containsExactly(0, 1);
+            assertThat(index.findSession(1)).isEqualTo(10);
+            assertThat(index.findSession(2)).isEqualTo(-1);
+            assertThat(index.findLap(0, 1)).isEqualTo(5);
+            assertThat(index.findLap(1, 3)).isEqualTo(22);
+            assertThat(index.findLap(1, 5)).isEqualTo(-1);
+            // Session time starts again at 0 in each session
+            assertThat(index.findTime(1, 2.7)).isEqualTo(15);
+            assertThat(index.findTime(1, -1.0)).isEqualTo(10);
+            assertThat(index.findTime(0, 100.0)).isEqualTo(9);
+
+            IbtCursor cursor = ibtFile.cursor();
+            assertThat(cursor.seekLap(1, 2)).isTrue();
+            assertThat(cursor.getRow()).isEqualTo(18);
+            assertThat(cursor.seekTime(0, 1.0)).isTrue();
+            assertThat(cursor.getRow()).isEqualTo(2);
+            assertThat(cursor.seekLap(3, 0)).isFalse();
+            assertThat(cursor.getRow()).isEqualTo(2);
+        }
+
+        ReplaySharedMemorySource source = new ReplaySharedMemorySource(file, ReplaySharedMemorySource.AS_FAST_AS_POSSIBLE, false);
+        SdkStarter sdkStarter = new SdkStarter(source);
+        IntVar lap = sdkStarter.intVar("Lap");
+        assertThat(source.open()).isTrue();
+        assertThat(source.seekLap(1, 4)).isTrue();
+        assertThat(source.waitForTick(100)).isTrue();
+        sdkStarter.poll();
+        assertThat(sdkStarter.getVarInt(lap)).isEqualTo(4);
+        source.close();
+    }
+
+    @DisplayName("getIndex() - The index is saved next to the file and built again once the file changed")
+    @Test
+    void Given_SavedIndex_When_Load_Then_ReusedUntilFileChanges() throws IOException {
+        Path file = createFile();
+        Path sidecar = file.resolveSibling(file.getFileName() + IbtIndex.FILE_EXTENSION);
+        try (IbtFile ibtFile = IbtFile.open(file)) {
+            assertThat(ibtFile.getIndex().findLap(0, 0)).isEqualTo(0);
+        }
+        assertThat(sidecar).exists();
+
+        // Row of the first lap changed in the saved index, after the 32 bytes of its header and the first key
+        ByteBuffer saved = ByteBuffer.wrap(Files.readAllBytes(sidecar));
+        saved.putInt(40, 7);
+        Files.write(sidecar, saved.array());
+        try (IbtFile ibtFile = IbtFile.open(file)) {
+            assertThat(ibtFile.getIndex().findLap(0, 0)).isEqualTo(7);
+        }
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        try (IbtFile ibtFile = IbtFile.open(file)) {
+            assertThat(ibtFile.getIndex().findLap(0, 0)).isEqualTo(0);
+        }
+    }
+
+    @DisplayName("getIndex() - A session starts at its first row even when a lower lap comes later in it")
+    @Test
+    void Given_LapsNotInRowOrder_When_FindSession_Then_FirstRowOfSession() throws IOException {
+        // Session 0: lap 1 from row 0, lap 0 from row 5. Session 1: lap 2 from row 10, lap 1 from row 15
+        Path file = writeIbt(tempDir.resolve("reset.ibt"), SESSION_INFO, 20, (row, values) -> {
+            int sessionStart = row < 10 ? 0 : 10;
+            values.putDouble("SessionTime", (row - sessionStart) * 0.5)
+                  .putInt("SessionNum", row < 10 ? 0 : 1)
+                  .putInt("Lap", (sessionStart / 10) + (row - sessionStart < 5 ? 1 : 0));
+        }, doubleVar("SessionTime", 1), intVar("SessionNum", 1), intVar("Lap", 1));
+        try (IbtFile ibtFile = IbtFile.open(file)) {
+            IbtIndex index = ibtFile.getIndex();
+
+            assertThat(index.findSession(0)).isEqualTo(0);
+            assertThat(index.findSession(1)).isEqualTo(10);
+            assertThat(index.findLap(0, 0)).isEqualTo(5);
+            assertThat(index.findTime(0, 0.0)).isEqualTo(0);
+            assertThat(index.findTime(0, 100.0)).isEqualTo(9);
+            assertThat(index.findTime(1, -1.0)).isEqualTo(10);
+            assertThat(index.findTime(1, 100.0)).isEqualTo(19);
+        }
+    }
+
+    /**
+     * Session 0 from row 0 to 9 with 5 rows per lap, session 1 from row 10 to 29 with 4 rows per lap, rows 0.5s apart
+     */
+    private Path createFile() throws IOException {
+        return writeIbt(tempDir.resolve("session.ibt"), SESSION_INFO, 30, (row, values) -> {
+            int sessionStart = row < 10 ? 0 : 10;
+            values.putDouble("SessionTime", (row - sessionStart) * 0.5)
+                  .putInt("SessionNum", row < 10 ? 0 : 1)
+                  .putInt("Lap", row < 10 ? row / 5 : (row - 10) / 4);
+        }, doubleVar("SessionTime", 1), intVar("SessionNum", 1), intVar("Lap", 1));
+    }
+
+}
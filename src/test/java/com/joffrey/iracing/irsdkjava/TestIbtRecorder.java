@@ -0,0 +1,174 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createIbt;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getBufLen;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getIbtRowOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeToFile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.ibt.IbtDiskHeader;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.ibt.IbtRecorder;
+import com.joffrey.iracing.irsdkjava.ibt.IbtWriter;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestIbtRecorder {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private final ByteBuffer      memory     = createMemory(1, doubleVar("SessionTime", 1), floatVar("Speed", 1), intVar("Lap", 1));
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdownNow();
+    }
+
+    @DisplayName("record() - Frames are written in batches and the disk header is finished on close")
+    @Test
+    void Given_Frames_When_Close_Then_IbtFileIsComplete() throws Exception {
+        // Enough buffers to never wait for the disk
+        IbtRecorder recorder = newRecorder(10, 3);
+        for (int tick = 1; tick <= 25; tick++) {
+            recorder.record(frame(tick));
+        }
+        Path path = recorder.close().get(5, TimeUnit.SECONDS);
+
+        try (IbtFile ibtFile = IbtFile.open(path)) {
+            DoubleVar sessionTime = ibtFile.doubleVar("SessionTime");
+            IbtDiskHeader diskHeader = ibtFile.getDiskHeader();
+            assertThat(ibtFile.getRowCount()).isEqualTo(25);
+            assertThat(diskHeader.getSessionRecordCount()).isEqualTo(25);
+            assertThat(diskHeader.getSessionStartTime()).isEqualTo(0.5);
+            assertThat(diskHeader.getSessionEndTime()).isEqualTo(12.5);
+            assertThat(diskHeader.getSessionLapCount()).isEqualTo(2);
+            assertThat(ibtFile.getSessionInfo()).isEqualTo(SESSION_INFO);
+            assertThat(ibtFile.getRow(24).getVarDouble(sessionTime)).isEqualTo(12.5);
+            assertThat(ibtFile.getRow(24).getVarFloat(ibtFile.floatVar("Speed"))).isEqualTo(250.0F);
+        }
+        assertThat(recorder.getDroppedRows()).isZero();
+    }
+
+    @DisplayName("record() - Frames are dropped instead of blocking when every buffer waits for the disk")
+    @Test
+    void Given_SlowDisk_When_Record_Then_FramesAreDropped() throws Exception {
+        IbtRecorder recorder = newRecorder(1, 2);
+        CountDownLatch disk = new CountDownLatch(1);
+        ioExecutor.execute(() -> {
+            try {
+                disk.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int tick = 1; tick <= 5; tick++) {
+            recorder.record(frame(tick));
+        }
+        assertThat(recorder.getDroppedRows()).isEqualTo(3);
+        disk.countDown();
+
+        try (IbtFile ibtFile = IbtFile.open(recorder.close().get(5, TimeUnit.SECONDS))) {
+            assertThat(ibtFile.getRowCount()).isEqualTo(2);
+        }
+    }
+
+    @DisplayName("recover() - A file that was never closed gets its record count and session times back")
+    @Test
+    void Given_UnfinishedFile_When_Recover_Then_DiskHeaderIsWritten() throws Exception {
+        ByteBuffer ibt = createIbt(SESSION_INFO, 4, doubleVar("SessionTime", 1), floatVar("Speed", 1), intVar("Lap", 1));
+        for (int row = 0; row < 4; row++) {
+            ibt.putDouble(getIbtRowOffset(ibt, row), (row + 1) * 0.5);
+        }
+        ibt.putInt(IbtDiskHeader.OFFSET + 28, 0);
+        Path path = writeToFile(ibt, tempDir.resolve("crashed.ibt"));
+        // Half of a fifth row
+        Files.write(path, new byte[getBufLen(ibt) / 2], StandardOpenOption.APPEND);
+
+        assertThat(IbtWriter.recover(path)).isEqualTo(4);
+        assertThat(IbtWriter.recover(path)).isEqualTo(-1);
+        try (IbtFile ibtFile = IbtFile.open(path)) {
+            assertThat(ibtFile.getRowCount()).isEqualTo(4);
+            assertThat(ibtFile.getDiskHeader().getSessionRecordCount()).isEqualTo(4);
+            assertThat(ibtFile.getDiskHeader().getSessionStartTime()).isEqualTo(0.5);
+            assertThat(ibtFile.getDiskHeader().getSessionEndTime()).isEqualTo(2.0);
+        }
+        assertThat(Files.size(path)).isEqualTo(getIbtRowOffset(ibt, 4));
+    }
+
+    @DisplayName("recover() - A file that was never closed and holds no whole row is deleted instead of recovered on each startup")
+    @Test
+    void Given_UnfinishedFileWithoutRow_When_Recover_Then_FileIsDeleted() throws Exception {
+        ByteBuffer ibt = createIbt(SESSION_INFO, 0, doubleVar("SessionTime", 1), floatVar("Speed", 1), intVar("Lap", 1));
+        Path path = writeToFile(ibt, tempDir.resolve("empty.ibt"));
+        // Half of a first row
+        Files.write(path, new byte[getBufLen(ibt) / 2], StandardOpenOption.APPEND);
+
+        assertThat(IbtWriter.recover(path)).isZero();
+        assertThat(path).doesNotExist();
+    }
+
+    private IbtRecorder newRecorder(int batchRows, int buffers) {
+        ByteBuffer header = memory.duplicate().position(0).limit(Header.HEADER_SIZE).slice();
+        ByteBuffer varHeaders = memory.duplicate().position(Header.HEADER_SIZE)
+                                      .limit(Header.HEADER_SIZE + (3 * VarHeader.VAR_HEADER_SIZE)).slice();
+        ByteBuffer sessionInfo = ByteBuffer.wrap(SESSION_INFO.getBytes(StandardCharsets.ISO_8859_1));
+        return new IbtRecorder(tempDir.resolve("session.ibt"), ioExecutor, header, varHeaders, sessionInfo, batchRows, buffers);
+    }
+
+    /**
+     * A session time of half the tick count, a speed of 10 times the tick count and a lap every 10 ticks
+     */
+    private TelemetryFrame frame(int tick) {
+        ByteBuffer row = ByteBuffer.allocate(getBufLen(memory)).order(memory.order());
+        row.putDouble(0, tick * 0.5);
+        row.putFloat(8, tick * 10.0F);
+        row.putInt(12, tick / 10);
+        return new TelemetryFrame(tick, row);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.joffrey.iracing.irsdkjava.analytics.LapAggregator;
+import com.joffrey.iracing.irsdkjava.analytics.LapAggregator.Statistic;
+import com.joffrey.iracing.irsdkjava.analytics.LapAnalyzer;
+import com.joffrey.iracing.irsdkjava.analytics.LapStats;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnStore;
+import com.joffrey.iracing.irsdkjava.columnar.ColumnarConverter;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestLapAnalyzer {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    @TempDir
+    Path tempDir;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @DisplayName("analyze() - Each lap gets its lap time and the values of every aggregator, whatever the lap is split in")
+    @Test
+    void Given_Aggregators_When_Analyze_Then_ValuesArePerLap() throws IOException {
+        // Rows of a lap are split in tasks of 3 rows at most
+        LapAnalyzer lapAnalyzer = newLapAnalyzer(3);
+        try (IbtFile ibtFile = IbtFile.open(createFile("session.ibt"))) {
+            List<LapStats> laps = lapAnalyzer.analyze(ibtFile);
+
+            assertThat(laps).extracting(LapStats::getSessionNum).containsExactly(0, 0, 1);
+            assertThat(laps).extracting(LapStats::getLap).containsExactly(1, 2, 0);
+            assertThat(laps).extracting(LapStats::getRowCount).containsExactly(10, 10, 10);
+
+            LapStats first = laps.get(0);
+            assertThat(first.getLapTime()).isEqualTo(5.0);
+            assertThat(first.getValue("MinSpeed")).isEqualTo(0.0);
+            assertThat(first.getValue("MaxSpeed")).isEqualTo(9.0);
+            assertThat(first.getValue("AverageSpeed")).isEqualTo(4.5);
+            assertThat(first.getValue("FuelUsed")).isEqualTo(9.0);
+            assertThat(first.getValue("LapOfCar1")).isEqualTo(18.0);
+            // Next session starts at 0, the last lap of a session ends one tick after its last row
+            assertThat(laps.get(1).getLapTime()).isCloseTo(4.5 + (1.0 / 60), within(1e-9));
+            assertThat(laps.get(2).getValue("MaxSpeed")).isEqualTo(29.0);
+            assertThat(laps.get(2).getValue("SpeedGain")).isEqualTo(9.0);
+        }
+    }
+
+    @DisplayName("analyze() - Files are analyzed together, a var missing from a file gives NaN")
+    @Test
+    void Given_Files_When_Analyze_Then_StatsByFile() throws IOException {
+        LapAnalyzer lapAnalyzer = newLapAnalyzer(LapAnalyzer.DEFAULT_SPLIT_ROWS).register(
+                LapAggregator.of("MaxRpm", "RPM", Statistic.MAX));
+        try (IbtFile first = IbtFile.open(createFile("first.ibt")); IbtFile second = IbtFile.open(createFile("second.ibt"))) {
+            Map<Path, List<LapStats>> stats = lapAnalyzer.analyze(Arrays.asList(first, second));
+
+            assertThat(stats).containsOnlyKeys(first.getPath(), second.getPath());
+            assertThat(stats.get(second.getPath())).hasSize(3);
+            assertThat(stats.get(second.getPath()).get(2).getValue("FuelUsed")).isEqualTo(9.0);
+            assertThat(stats.get(first.getPath()).get(0).getValue("MaxRpm")).isNaN();
+        }
+    }
+
+    @DisplayName("analyze() - Values read from the columns converted from a file are the values read from its rows")
+    @Test
+    void Given_ColumnStore_When_Analyze_Then_SameStatsAsRows() throws IOException {
+        LapAnalyzer lapAnalyzer = newLapAnalyzer(3).register(LapAggregator.of("MaxRpm", "RPM", Statistic.MAX));
+        try (IbtFile ibtFile = IbtFile.open(createFile("session.ibt"))) {
+            ColumnStore columnStore = new ColumnarConverter(pool, 7).convert(ibtFile, tempDir.resolve("columns"));
+
+            List<LapStats> laps = lapAnalyzer.analyze(ibtFile, columnStore);
+
+            assertThat(laps).isEqualTo(lapAnalyzer.analyze(ibtFile));
+            assertThat(laps.get(2).getValue("FuelUsed")).isEqualTo(9.0);
+            assertThat(laps.get(0).getValue("MaxRpm")).isNaN();
+        }
+    }
+
+    private LapAnalyzer newLapAnalyzer(int splitRows) {
+        return new LapAnalyzer(pool, splitRows).register(LapAggregator.of("MinSpeed", "Speed", Statistic.MIN))
+                                               .register(LapAggregator.of("MaxSpeed", "Speed", Statistic.MAX))
+                                               .register(LapAggregator.of("AverageSpeed", "Speed", Statistic.AVERAGE))
+                                               .register(LapAggregator.of("SpeedGain", "Speed", Statistic.DELTA))
+                                               .register(LapAggregator.of("FuelUsed", "FuelLevel", Statistic.USED))
+                                               .register(LapAggregator.of("LapOfCar1", "CarIdxLap", 1, Statistic.LAST));
+    }
+
+    /**
+     * Laps 1 and 2 of session 0 then lap 0 of session 1, 10 rows 0.5s apart each, the speed is the row index, the fuel level
+     * 100 minus the row index and the lap of car 1 twice the row index
+     */
+    private Path createFile(String name) throws IOException {
+        return writeIbt(tempDir.resolve(name), SESSION_INFO, 30,
+                        (row, values) -> values.putDouble("SessionTime", (row < 20 ? row : row - 20) * 0.5)
+                                               .putInt("SessionNum", row < 20 ? 0 : 1)
+                                               .putInt("Lap", row < 20 ? 1 + (row / 10) : 0)
+                                               .putFloat("Speed", row)
+                                               .putFloat("FuelLevel", 100.0F - row)
+                                               .putInt("CarIdxLap", 1, row * 2),
+                        doubleVar("SessionTime", 1), intVar("SessionNum", 1), intVar("Lap", 1), floatVar("Speed", 1),
+                        floatVar("FuelLevel", 1), intVar("CarIdxLap", 2));
+    }
+
+}
@@ -23,6 +23,9 @@
 
 package com.joffrey.iracing.irsdkjava;
 
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockArrayReads;
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockTickSource;
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockVarHandles;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.createByteBufferYamlFile;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.loadYamlObject;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,8 +33,13 @@ import static org.mockito.Mockito.doReturn;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
 import com.joffrey.iracing.irsdkjava.laptiming.LapTimingService;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
 import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.defines.TrkLoc;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.YamlFile;
 import java.nio.ByteBuffer;
@@ -52,6 +60,10 @@ class TestLapTimingService {
     @MockBean
     private SdkStarter  sdkStarter;
     @MockBean
+    private TickSource tickSource;
+    @MockBean
+    private TelemetryFrame telemetryFrame;
+    @MockBean
     private Header      header;
     @MockBean
     private YamlService yamlService;
@@ -63,12 +75,14 @@ class TestLapTimingService {
     private ByteBuffer byteBufferYamlFile;
 
     void setupGeneral() {
-        lapTimingService = new LapTimingService(new FluxProperties(), sdkStarter, yamlService);
+        mockVarHandles(sdkStarter);
+        mockTickSource(tickSource, telemetryFrame);
+        mockArrayReads(telemetryFrame);
+        lapTimingService = new LapTimingService(new FluxProperties(), sdkStarter, tickSource, yamlService);
         YamlFile yamlFile = loadYamlObject(byteBufferYamlFile);
 
-        Mockito.when(sdkStarter.getHeader()).thenReturn(header);
-        Mockito.when(sdkStarter.getHeader().getSessionInfoByteBuffer()).thenReturn(byteBufferYamlFile);
-        Mockito.when(sdkStarter.isRunning()).thenReturn(true);
+        doReturn(header).when(sdkStarter).getHeader();
+        doReturn(byteBufferYamlFile).when(header).getSessionInfoByteBuffer();
         Mockito.when(yamlService.getYamlFile()).thenReturn(yamlFile);
 
     }
@@ -80,42 +94,43 @@ class TestLapTimingService {
         // Generate Fake data for replace data from MemoryMappedFile
         byteBufferYamlFile = createByteBufferYamlFile("laptiming/Laptiming_one_driver.yml");
 
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxPosition", 0);
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxClassPosition", 0);
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxF2Time", 0);
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(30.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(0f).when(sdkStarter).getVarFloat("CarIdxLastLapTime", 0);
-        doReturn(0f).when(sdkStarter).getVarFloat("CarIdxBestLapTime", 0);
-        doReturn(0).when(sdkStarter).getVarInt("CarIdxTrackSurface", 0);
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxPosition"), 0);
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxClassPosition"), 0);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxF2Time"), 0);
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(30.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLastLapTime"), 0);
+        doReturn(0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxBestLapTime"), 0);
+        doReturn(0).when(telemetryFrame).getVarInt(new IntVar("CarIdxTrackSurface"), 0);
 
         setupGeneral();
 
         // Launch flux, expect that the flux returned is filled with data generated with 'setupVarsForOneDriver()'
         StepVerifier.create(lapTimingService.getLapTimingDataListFlux()).assertNext(lapTimingData -> {
             assertThat(lapTimingData.get(0).getCarIdx()).isZero();
-            assertThat(lapTimingData.get(0).getUserName()).isEqualTo("Joffrey Bonifay");
+            assertThat(lapTimingData.get(0).getYamlData().getUserName()).isEqualTo("Joffrey Bonifay");
             assertThat(lapTimingData.get(0).getCarLivePosition()).isEqualTo(1);
-            assertThat(lapTimingData.get(0).getCarIdxPosition()).isEqualTo(1);
-            assertThat(lapTimingData.get(0).getCarIdxClassPosition()).isEqualTo(1);
-            assertThat(lapTimingData.get(0).getCarIdxEstTime()).isEqualTo(0.0f);
-            assertThat(lapTimingData.get(0).getCarIdxF2Time()).isEqualTo(0.0f);
-            assertThat(lapTimingData.get(0).getCarIdxLap()).isEqualTo(1);
-            assertThat(lapTimingData.get(0).getCarIdxLapDistPct()).isEqualTo(30.0f);
-            assertThat(lapTimingData.get(0).getCarIdxLastLapTime()).isEqualTo(0.0f);
-            assertThat(lapTimingData.get(0).getCarIdxBestLapTime()).isEqualTo(0.0f);
-            assertThat(lapTimingData.get(0).getCarIdxTrackSurface()).isEqualTo("irsdk_OffTrack");
-            assertThat(lapTimingData.get(0).getUserName()).isEqualTo("Joffrey Bonifay");
-            assertThat(lapTimingData.get(0).getTeamName()).isEqualTo("Joffrey Bonifay");
-            assertThat(lapTimingData.get(0).getCarNumber()).isEmpty();
-            assertThat(lapTimingData.get(0).getIRating()).isEqualTo("876");
-            assertThat(lapTimingData.get(0).getLicLevel()).isEqualTo("7");
-            assertThat(lapTimingData.get(0).getLicString()).isEqualTo("D 3.41");
-            assertThat(lapTimingData.get(0).getLicColor()).isEqualTo("0xfc8a27");
-            assertThat(lapTimingData.get(0).getIsSpectator()).isEqualTo("1");
-            assertThat(lapTimingData.get(0).getClubName()).isEqualTo("France");
-            assertThat(lapTimingData.get(0).getDivisionName()).isEqualTo("Division 1");
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxPosition()).isEqualTo(1);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxClassPosition()).isEqualTo(1);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxEstTime()).isEqualTo(0.0f);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxF2Time()).isEqualTo(0.0f);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxLap()).isEqualTo(1);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxLapDistPct()).isEqualTo(30.0f);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxLastLapTime()).isEqualTo(0.0f);
+            assertThat(lapTimingData.get(0).getLiveData().getCarIdxBestLapTime()).isEqualTo(0.0f);
+            assertThat(lapTimingData.get(0).getYamlData().getCarIdxTrackSurface()).isEqualTo("irsdk_OffTrack");
+            assertThat(lapTimingData.get(0).getYamlData().getCarIdxTrkLoc()).isEqualTo(TrkLoc.irsdk_OffTrack);
+            assertThat(lapTimingData.get(0).getYamlData().getUserName()).isEqualTo("Joffrey Bonifay");
+            assertThat(lapTimingData.get(0).getYamlData().getTeamName()).isEqualTo("Joffrey Bonifay");
+            assertThat(lapTimingData.get(0).getYamlData().getCarNumber()).isEmpty();
+            assertThat(lapTimingData.get(0).getYamlData().getIRating()).isEqualTo("876");
+            assertThat(lapTimingData.get(0).getYamlData().getLicLevel()).isEqualTo("7");
+            assertThat(lapTimingData.get(0).getYamlData().getLicString()).isEqualTo("D 3.41");
+            assertThat(lapTimingData.get(0).getYamlData().getLicColor()).isEqualTo("0xfc8a27");
+            assertThat(lapTimingData.get(0).getYamlData().getIsSpectator()).isEqualTo("1");
+            assertThat(lapTimingData.get(0).getYamlData().getClubName()).isEqualTo("France");
+            assertThat(lapTimingData.get(0).getYamlData().getDivisionName()).isEqualTo("Division 1");
         }).thenCancel().log().verify();
     }
 
@@ -130,10 +145,10 @@ class TestLapTimingService {
             float fourthPct, int firstIdxExpected, int secondIdxExpected, int thirdIdxExpected, int fourthIdxExpected) {
         byteBufferYamlFile = createByteBufferYamlFile("laptiming/Laptiming_four_driver.yml");
 
-        doReturn(firstPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(secondPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(thirdPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(fourthPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(firstPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(secondPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(thirdPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(fourthPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
 
         setupGeneral();
 
@@ -143,10 +158,10 @@ class TestLapTimingService {
             assertThat(lapTimingData.get(2).getCarLivePosition()).isEqualTo(3);
             assertThat(lapTimingData.get(3).getCarLivePosition()).isEqualTo(4);
 
-            assertThat(lapTimingData.get(firstIdxExpected).getCarIdxLapDistPct()).isEqualTo(firstPct);
-            assertThat(lapTimingData.get(secondIdxExpected).getCarIdxLapDistPct()).isEqualTo(secondPct);
-            assertThat(lapTimingData.get(thirdIdxExpected).getCarIdxLapDistPct()).isEqualTo(thirdPct);
-            assertThat(lapTimingData.get(fourthIdxExpected).getCarIdxLapDistPct()).isEqualTo(fourthPct);
+            assertThat(lapTimingData.get(firstIdxExpected).getLiveData().getCarIdxLapDistPct()).isEqualTo(firstPct);
+            assertThat(lapTimingData.get(secondIdxExpected).getLiveData().getCarIdxLapDistPct()).isEqualTo(secondPct);
+            assertThat(lapTimingData.get(thirdIdxExpected).getLiveData().getCarIdxLapDistPct()).isEqualTo(thirdPct);
+            assertThat(lapTimingData.get(fourthIdxExpected).getLiveData().getCarIdxLapDistPct()).isEqualTo(fourthPct);
         }).thenCancel().verifyThenAssertThat().hasNotDroppedElements();
     }
 
@@ -161,15 +176,15 @@ class TestLapTimingService {
             int fourthIdxExpected, int firstPlayerLap, int secondPlayerLap, int thirdPlayerLap, int fourthPlayerLap) {
         byteBufferYamlFile = createByteBufferYamlFile("laptiming/Laptiming_four_driver.yml");
 
-        doReturn(firstPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(secondPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(thirdPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(fourthPct).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(firstPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(secondPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(thirdPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(fourthPct).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
 
-        doReturn(firstPlayerLap).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(secondPlayerLap).when(sdkStarter).getVarInt("CarIdxLap", 1);
-        doReturn(thirdPlayerLap).when(sdkStarter).getVarInt("CarIdxLap", 2);
-        doReturn(fourthPlayerLap).when(sdkStarter).getVarInt("CarIdxLap", 3);
+        doReturn(firstPlayerLap).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(secondPlayerLap).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 1);
+        doReturn(thirdPlayerLap).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 2);
+        doReturn(fourthPlayerLap).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 3);
 
         setupGeneral();
 
@@ -190,7 +205,7 @@ class TestLapTimingService {
             float firstDriverEstTime) {
         byteBufferYamlFile = createByteBufferYamlFile("laptiming/Laptiming_one_driver.yml");
 
-        doReturn(firstDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
+        doReturn(firstDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
 
         setupGeneral();
 
@@ -207,12 +222,12 @@ class TestLapTimingService {
             float firstDriverEstTime, float secondDriverEstTime, float realInterval) {
         byteBufferYamlFile = createByteBufferYamlFile("laptiming/Laptiming_two_driver.yml");
 
-        doReturn(firstDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(secondDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 1);
+        doReturn(firstDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(secondDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 1);
 
         // Set drivers a CarIdxLapDistPct for simulate ordering -> list is sorted by CarIdxLapDistPct
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(9.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(9.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
 
         setupGeneral();
 
@@ -232,16 +247,16 @@ class TestLapTimingService {
             float firstDriverEstTime, float secondDriverEstTime, float thirdDriverEstTime, float fourthDriverEstTime) {
         byteBufferYamlFile = createByteBufferYamlFile("laptiming/Laptiming_four_driver.yml");
 
-        doReturn(firstDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(secondDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 1);
-        doReturn(thirdDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 2);
-        doReturn(fourthDriverEstTime).when(sdkStarter).getVarFloat("CarIdxEstTime", 3);
+        doReturn(firstDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(secondDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 1);
+        doReturn(thirdDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 2);
+        doReturn(fourthDriverEstTime).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 3);
 
         // Set drivers a CarIdxLapDistPct for simulate ordering -> list is sorted by CarIdxLapDistPct
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(9.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(8.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(7.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(9.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(8.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(7.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
 
         setupGeneral();
 
@@ -329,54 +344,54 @@ class TestLapTimingService {
     }
 
     private void startingLine() {
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(-0.5f).when(sdkStarter).getVarFloat("CarIdxEstTime", 1);
-        doReturn(-1.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 2);
-        doReturn(-1.5f).when(sdkStarter).getVarFloat("CarIdxEstTime", 3);
-
-        doReturn(0).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(0).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(0).when(sdkStarter).getVarInt("CarIdxLap", 2);
-        doReturn(0).when(sdkStarter).getVarInt("CarIdxLap", 3);
-
-        doReturn(1.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(0.6f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(0.3f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(-0.5f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 1);
+        doReturn(-1.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 2);
+        doReturn(-1.5f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 3);
+
+        doReturn(0).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(0).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(0).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 2);
+        doReturn(0).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 3);
+
+        doReturn(1.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(0.6f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(0.3f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
     }
 
     private void lapOne() {
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(5.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 1);
-        doReturn(3.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 2);
-        doReturn(4.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 3);
-
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxLap", 1);
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxLap", 2);
-        doReturn(1).when(sdkStarter).getVarInt("CarIdxLap", 3);
-
-        doReturn(15.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(8.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(9.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(5.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 1);
+        doReturn(3.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 2);
+        doReturn(4.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 3);
+
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 1);
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 2);
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 3);
+
+        doReturn(15.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(8.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(9.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
     }
 
     private void lapTwo() {
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(30.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 1);
-        doReturn(50.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 2);
-        doReturn(90.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 3);
-
-        doReturn(2).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(2).when(sdkStarter).getVarInt("CarIdxLap", 1);
-        doReturn(2).when(sdkStarter).getVarInt("CarIdxLap", 2);
-        doReturn(2).when(sdkStarter).getVarInt("CarIdxLap", 3);
-
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(30.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(50.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(90.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(30.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 1);
+        doReturn(50.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 2);
+        doReturn(90.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 3);
+
+        doReturn(2).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(2).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 1);
+        doReturn(2).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 2);
+        doReturn(2).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 3);
+
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(30.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(50.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(90.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
     }
 
     /*
@@ -384,20 +399,20 @@ class TestLapTimingService {
      *
      */
     private void lapThree() {
-        doReturn(60.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 0);
-        doReturn(65.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 1);
-        doReturn(57.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 2);
-        doReturn(43.0f).when(sdkStarter).getVarFloat("CarIdxEstTime", 3);
-
-        doReturn(4).when(sdkStarter).getVarInt("CarIdxLap", 0);
-        doReturn(3).when(sdkStarter).getVarInt("CarIdxLap", 1);
-        doReturn(4).when(sdkStarter).getVarInt("CarIdxLap", 2);
-        doReturn(4).when(sdkStarter).getVarInt("CarIdxLap", 3);
-
-        doReturn(60.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 0);
-        doReturn(65.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 1);
-        doReturn(57.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 2);
-        doReturn(43.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 3);
+        doReturn(60.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 0);
+        doReturn(65.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 1);
+        doReturn(57.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 2);
+        doReturn(43.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxEstTime"), 3);
+
+        doReturn(4).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 0);
+        doReturn(3).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 1);
+        doReturn(4).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 2);
+        doReturn(4).when(telemetryFrame).getVarInt(new IntVar("CarIdxLap"), 3);
+
+        doReturn(60.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 0);
+        doReturn(65.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 1);
+        doReturn(57.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 2);
+        doReturn(43.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 3);
     }
 
 
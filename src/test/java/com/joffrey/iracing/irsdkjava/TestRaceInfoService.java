@@ -23,15 +23,22 @@
 
 package com.joffrey.iracing.irsdkjava;
 
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockTickSource;
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockVarHandles;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.createByteBufferYamlFile;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.loadYamlObject;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doReturn;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
 import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
 import com.joffrey.iracing.irsdkjava.raceinfo.RaceInfoService;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.YamlFile;
 import java.nio.ByteBuffer;
@@ -50,6 +57,10 @@ public class TestRaceInfoService {
     @MockBean
     private SdkStarter  sdkStarter;
     @MockBean
+    private TickSource tickSource;
+    @MockBean
+    private TelemetryFrame telemetryFrame;
+    @MockBean
     private Header      header;
     @MockBean
     private YamlService yamlService;
@@ -62,20 +73,21 @@ public class TestRaceInfoService {
 
     @BeforeEach
     void init() {
-        raceInfoService = new RaceInfoService(new FluxProperties(), sdkStarter, yamlService);
+        mockVarHandles(sdkStarter);
+        mockTickSource(tickSource, telemetryFrame);
+        raceInfoService = new RaceInfoService(new FluxProperties(), sdkStarter, tickSource, yamlService);
         byteBufferYamlFile = createByteBufferYamlFile("raceinfo/raceinfo.yml");
         YamlFile yamlFile = loadYamlObject(byteBufferYamlFile);
 
-        Mockito.when(sdkStarter.getHeader()).thenReturn(header);
-        Mockito.when(sdkStarter.getHeader().getSessionInfoByteBuffer()).thenReturn(byteBufferYamlFile);
-        Mockito.when(sdkStarter.isRunning()).thenReturn(true);
+        doReturn(header).when(sdkStarter).getHeader();
+        doReturn(byteBufferYamlFile).when(header).getSessionInfoByteBuffer();
         Mockito.when(yamlService.getYamlFile()).thenReturn(yamlFile);
 
-        doReturn(9999d).when(sdkStarter).getVarDouble("SessionTimeRemain");
-        doReturn(100).when(sdkStarter).getVarInt("SessionLapsRemain");
-        doReturn(50.0f).when(sdkStarter).getVarFloat("FuelLevel");
-        doReturn(13.7f).when(sdkStarter).getVarFloat("FuelLevelPct");
-        doReturn(9.9f).when(sdkStarter).getVarFloat("FuelUsePerHour");
+        doReturn(9999d).when(telemetryFrame).getVarDouble(new DoubleVar("SessionTimeRemain"));
+        doReturn(100).when(telemetryFrame).getVarInt(new IntVar("SessionLapsRemain"));
+        doReturn(50.0f).when(telemetryFrame).getVarFloat(new FloatVar("FuelLevel"));
+        doReturn(13.7f).when(telemetryFrame).getVarFloat(new FloatVar("FuelLevelPct"));
+        doReturn(9.9f).when(telemetryFrame).getVarFloat(new FloatVar("FuelUsePerHour"));
     }
 
 
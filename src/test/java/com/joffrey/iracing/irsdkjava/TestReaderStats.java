@@ -0,0 +1,81 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.model.ReaderStats;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class TestReaderStats {
+
+    @DisplayName("getReaderStats() - Each copied tick is counted and the gaps between tick counts are skipped ticks")
+    @Test
+    void Given_TickGaps_When_Poll_Then_SkippedTicksAreCounted() {
+        InMemorySource source = new InMemorySource(createMemory(1, floatVar("Speed", 1)));
+        SdkStarter sdkStarter = new SdkStarter(source);
+
+        long before = System.nanoTime();
+        for (int tickCount : new int[]{1, 2, 5, 5, 6}) {
+            setTickCount(source.getMemory(), 0, tickCount);
+            assertThat(sdkStarter.isRunning()).isTrue();
+        }
+        TelemetryFrame frame = sdkStarter.getTelemetryFrame();
+        ReaderStats stats = sdkStarter.getReaderStats();
+
+        assertThat(stats.getTicksSeen()).isEqualTo(4);
+        assertThat(stats.getTicksSkipped()).isEqualTo(2);
+        assertThat(stats.getTornReads()).isZero();
+        assertThat(stats.getFailedCopies()).isZero();
+        // Tick 1 is copied once on connection, each new tick once
+        assertThat(stats.getCopyCount()).isEqualTo(4);
+        assertThat(stats.getCopyTimePercentileNanos(0.5)).isPositive();
+        assertThat(frame.getCaptureNanos()).isBetween(before, System.nanoTime());
+        assertThat(frame.getAgeNanos()).isNotNegative();
+    }
+
+    @DisplayName("getReaderStatsFlux() - The counters are emitted each period")
+    @Test
+    void Given_Period_When_Subscribe_Then_StatsAreEmitted() {
+        InMemorySource source = new InMemorySource(createMemory(1, floatVar("Speed", 1)));
+        SdkStarter sdkStarter = new SdkStarter(source);
+        setTickCount(source.getMemory(), 0, 1);
+        assertThat(sdkStarter.isRunning()).isTrue();
+
+        StepVerifier.create(sdkStarter.getReaderStatsFlux(Duration.ofMillis(10)))
+                    .assertNext(stats -> assertThat(stats.getTicksSeen()).isEqualTo(1))
+                    .assertNext(stats -> assertThat(stats.getCopyTimeHistogram()).hasSize(ReaderStats.COPY_TIME_BUCKETS))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+}
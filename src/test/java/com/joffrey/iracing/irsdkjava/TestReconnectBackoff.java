@@ -0,0 +1,122 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.defines.StatusField;
+import com.joffrey.iracing.irsdkjava.tick.ReconnectBackoff;
+import com.joffrey.iracing.irsdkjava.tick.SleepWaitStrategy;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class TestReconnectBackoff {
+
+    @DisplayName("nextDelayMs() - The delay grows up to the max delay and starts again from the min delay after a reset")
+    @Test
+    void Given_Backoff_When_Retrying_Then_DelayGrowsUpToMax() {
+        ReconnectBackoff backoff = new ReconnectBackoff(100L, 1000L, 2.0);
+
+        assertThat(backoff.nextDelayMs()).isEqualTo(100L);
+        assertThat(backoff.nextDelayMs()).isEqualTo(200L);
+        assertThat(backoff.nextDelayMs()).isEqualTo(400L);
+        assertThat(backoff.nextDelayMs()).isEqualTo(800L);
+        assertThat(backoff.nextDelayMs()).isEqualTo(1000L);
+        assertThat(backoff.nextDelayMs()).isEqualTo(1000L);
+        backoff.reset();
+        assertThat(backoff.nextDelayMs()).isEqualTo(100L);
+        assertThatThrownBy(() -> new ReconnectBackoff(100L, 10L, 2.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DisplayName("TickSource - The shared memory is opened on the backoff schedule while absent, frames flow as soon as it appears")
+    @Test
+    void Given_SourceAppearingAndDisappearing_When_Subscribed_Then_BackoffWhileAbsentAndFullRateOnceConnected() throws Exception {
+        ToggledSource source = new ToggledSource(createMemory(1, floatVar("Speed", 1)));
+        SdkStarter sdkStarter = new SdkStarter(source);
+        TickSource tickSource = new TickSource(sdkStarter, new SleepWaitStrategy(5L), new ReconnectBackoff(20L, 160L, 2.0),
+                                                 new FrameHistory(0, new DoubleVar("SessionTime")));
+
+        try {
+            StepVerifier.create(tickSource.getFrameFlux())
+                        .expectSubscription()
+                        // Absent for 1 s: 20 + 40 + 80 + 160 + 160 + ... ms, far from one attempt per service interval
+                        .expectNoEvent(Duration.ofSeconds(1))
+                        .then(() -> {
+                            assertThat(source.openCalls.get()).isBetween(4, 10);
+                            source.present.set(true);
+                            setTickCount(source.getMemory(), 0, 1);
+                        })
+                        .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(1))
+                        .then(() -> setTickCount(source.getMemory(), 0, 2))
+                        .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(2))
+                        // The sim quits: the memory stays mapped but is no longer flagged connected
+                        .then(() -> source.getMemory().putInt(4, 0))
+                        .then(() -> setTickCount(source.getMemory(), 0, 3))
+                        .expectNoEvent(Duration.ofMillis(200))
+                        .then(() -> {
+                            source.getMemory().putInt(4, StatusField.IRSDK_STCONNECTED.getValue());
+                            setTickCount(source.getMemory(), 0, 4);
+                        })
+                        .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(4))
+                        .thenCancel()
+                        .verify(Duration.ofSeconds(5));
+        } finally {
+            tickSource.destroy();
+        }
+        assertThat(source.openCalls.get()).isLessThan(12);
+    }
+
+    /**
+     * A shared memory that can only be opened once present, counting the attempts
+     */
+    private static class ToggledSource extends InMemorySource {
+
+        private final AtomicBoolean present   = new AtomicBoolean(false);
+        private final AtomicInteger openCalls = new AtomicInteger();
+
+        ToggledSource(ByteBuffer initial) {
+            super(initial);
+        }
+
+        @Override
+        public boolean open() {
+            openCalls.incrementAndGet();
+            return present.get();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.catalog.CatalogEntry;
+import com.joffrey.iracing.irsdkjava.catalog.RecordingCatalog;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestRecordingCatalog {
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("scan() - Track, car, driver, sessions and best lap are read from the files of the tree")
+    @Test
+    void Given_IbtFiles_When_Scan_Then_EntriesAreFound() throws IOException {
+        Files.createDirectories(tempDir.resolve("2021/03"));
+        createFile("spa.ibt", "spa 2021", "GT3 Class");
+        createFile("2021/03/monza.ibt", "monza full", "GT3 Class");
+        createFile("2021/03/spa-lmp.ibt", "spa 2021", "LMP2");
+        RecordingCatalog catalog = new RecordingCatalog(tempDir);
+
+        assertThat(catalog.scan()).isEqualTo(3);
+
+        List<CatalogEntry> found = catalog.find(entry -> entry.getTrackName().startsWith("spa")
+                                                         && entry.getCarClass().contains("GT3"));
+        assertThat(found).hasSize(1);
+        CatalogEntry entry = found.get(0);
+        assertThat(entry.getPath()).isEqualTo(tempDir.resolve("spa.ibt"));
+        assertThat(entry.getTrackDisplayName()).isEqualTo("Circuit de Spa-Francorchamps");
+        assertThat(entry.getDriverName()).isEqualTo("Joffrey Bonifay");
+        assertThat(entry.getCarName()).isEqualTo("Porsche 911 GT3 R");
+        assertThat(entry.getSessionTypes()).containsExactly("Practice", "Race");
+        assertThat(entry.getBestLapTime()).isEqualTo(137.5);
+        assertThat(entry.getRecordCount()).isEqualTo(5);
+    }
+
+    @DisplayName("scan() - Only new and changed files are read, the catalog is loaded back from its file")
+    @Test
+    void Given_SavedCatalog_When_Scan_Then_OnlyChangesAreRead() throws IOException {
+        Path spa = createFile("spa.ibt", "spa 2021", "GT3 Class");
+        Path monza = createFile("monza.ibt", "monza full", "GT3 Class");
+        assertThat(new RecordingCatalog(tempDir).scan()).isEqualTo(2);
+        assertThat(tempDir.resolve(RecordingCatalog.DEFAULT_FILE_NAME)).exists();
+
+        RecordingCatalog catalog = new RecordingCatalog(tempDir, tempDir.resolve(RecordingCatalog.DEFAULT_FILE_NAME),
+                                                        ForkJoinPool.commonPool());
+        assertThat(catalog.getEntries()).hasSize(2);
+        assertThat(catalog.scan()).isZero();
+
+        Files.setLastModifiedTime(spa, FileTime.fromMillis(Files.getLastModifiedTime(spa).toMillis() + 1000));
+        Files.delete(monza);
+        createFile("imola.ibt", "imola", "GT3 Class");
+        assertThat(catalog.scan()).isEqualTo(2);
+        assertThat(catalog.getEntries()).extracting(CatalogEntry::getTrackName).containsOnly("spa 2021", "imola");
+    }
+
+    /**
+     * A practice and a race where the driver (car 1) did a 137.5 best lap, a lap of another car is faster
+     */
+    private Path createFile(String name, String trackName, String carClass) throws IOException {
+        String sessionInfo = "---\n"
+                             + "WeekendInfo:\n"
+                             + " TrackName: " + trackName + "\n"
+                             + " TrackDisplayName: Circuit de Spa-Francorchamps\n"
+                             + " WeekendOptions:\n"
+                             + "  NumStarters: 2\n"
+                             + "SessionInfo:\n"
+                             + " Sessions:\n"
+                             + " - SessionNum: 0\n"
+                             + "   SessionType: Practice\n"
+                             + "   ResultsPositions:\n"
+                             + "   - CarIdx: 1\n"
+                             + "     FastestTime: 139.2\n"
+                             + " - SessionNum: 1\n"
+                             + "   SessionType: Race\n"
+                             + "   ResultsPositions:\n"
+                             + "   - CarIdx: 0\n"
+                             + "     FastestTime: 135.0\n"
+                             + "   - CarIdx: 1\n"
+                             + "     FastestTime: 137.5\n"
+                             + "DriverInfo:\n"
+                             + " DriverCarIdx: 1\n"
+                             + " Drivers:\n"
+                             + " - CarIdx: 0\n"
+                             + "   UserName: Pace Car\n"
+                             + " - CarIdx: 1\n"
+                             + "   UserName: Joffrey Bonifay\n"
+                             + "   CarScreenName: Porsche 911 GT3 R\n"
+                             + "   CarClassShortName: " + carClass + "\n"
+                             + "...\n";
+        return writeIbt(tempDir.resolve(name), sessionInfo, 5, (row, values) -> { }, floatVar("Speed", 1));
+    }
+
+}
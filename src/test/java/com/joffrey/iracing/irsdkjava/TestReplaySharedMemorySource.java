@@ -0,0 +1,114 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.memory.ReplaySharedMemorySource;
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestReplaySharedMemorySource {
+
+    private static final String SESSION_INFO = "---\nWeekendInfo:\n TrackName: spa\n...\n";
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("waitForTick() - Each row is published as a new tick through the SdkStarter, then the sim disconnects")
+    @Test
+    void Given_IbtFile_When_Replay_Then_RowsAreTicks() throws Exception {
+        ReplaySharedMemorySource source = new ReplaySharedMemorySource(createFile(4), ReplaySharedMemorySource.AS_FAST_AS_POSSIBLE,
+                                                                       false);
+        source.putSessionInfo(2, SESSION_INFO.replace("spa", "monza"));
+        SdkStarter sdkStarter = new SdkStarter(source);
+        FloatVar speed = sdkStarter.floatVar("Speed");
+
+        // Nothing published before the first row
+        assertThat(sdkStarter.poll()).isEqualTo(ConnectionState.MAPPING);
+        for (int row = 0; row < 4; row++) {
+            assertThat(source.waitForTick(100)).isTrue();
+            assertThat(sdkStarter.poll()).isEqualTo(ConnectionState.CONNECTED);
+            assertThat(sdkStarter.getTelemetryFrame().getTickCount()).isEqualTo(row + 1);
+            assertThat(sdkStarter.getVarFloat(speed)).isEqualTo(row * 10.0F);
+            assertThat(sessionInfo(sdkStarter)).contains(row < 2 ? "spa" : "monza");
+        }
+        assertThat(sdkStarter.getHeaderSnapshot().getSessionInfoUpdate()).isEqualTo(2);
+
+        assertThat(source.waitForTick(10)).isFalse();
+        assertThat(source.isFinished()).isTrue();
+        assertThat(sdkStarter.poll()).isEqualTo(ConnectionState.MAPPING);
+        assertThat(source.getRowsPlayed()).isEqualTo(4);
+    }
+
+    @DisplayName("waitForTick() - Rows are paced on their session time divided by the speed")
+    @Test
+    void Given_Speed_When_Replay_Then_RowsArePaced() throws Exception {
+        // 5 rows 50ms apart
+        Path file = createFile(5);
+        long atRecordedPace = replay(new ReplaySharedMemorySource(file, 1.0, false));
+        long twiceFaster = replay(new ReplaySharedMemorySource(file, 2.0, false));
+
+        assertThat(atRecordedPace).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(190));
+        assertThat(twiceFaster).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(95)).isLessThan(atRecordedPace);
+    }
+
+    /**
+     * @return time to play every row
+     */
+    private static long replay(ReplaySharedMemorySource source) throws InterruptedException {
+        assertThat(source.open()).isTrue();
+        long start = System.nanoTime();
+        while (!source.isFinished()) {
+            source.waitForTick(1000);
+        }
+        long elapsed = System.nanoTime() - start;
+        source.close();
+        return elapsed;
+    }
+
+    private static String sessionInfo(SdkStarter sdkStarter) {
+        return new String(sdkStarter.getHeader().getSessionInfoByteBuffer().array(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Rows 50ms apart with a speed of 10 times the row index
+     */
+    private Path createFile(int rows) throws IOException {
+        return writeIbt(tempDir.resolve("session.ibt"), SESSION_INFO, rows,
+                        (row, values) -> values.putDouble("SessionTime", 100.0 + (row * 0.05)).putFloat("Speed", row * 10.0F),
+                        doubleVar("SessionTime", 1), floatVar("Speed", 1));
+    }
+
+}
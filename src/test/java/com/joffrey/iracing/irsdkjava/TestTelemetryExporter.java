@@ -0,0 +1,126 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.doubleVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.writeIbt;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.export.TelemetryExporter;
+import com.joffrey.iracing.irsdkjava.export.TelemetryExporter.Format;
+import com.joffrey.iracing.irsdkjava.ibt.IbtFile;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class TestTelemetryExporter {
+
+    private static final List<String> VAR_NAMES = Arrays.asList("SessionTime", "Speed", "Throttle", "CarIdxLap", "RPM");
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("export() - A header then one CSV line per row, arrays are one column per entry and missing values empty")
+    @Test
+    void Given_IbtFile_When_ExportCsv_Then_OneLinePerRow() throws IOException {
+        assertThat(export(Format.CSV)).containsExactly("SessionTime,Speed,Throttle,CarIdxLap[0],CarIdxLap[1],RPM",
+                                                       "0,0,0,0,0,",
+                                                       "0.1,-1.5,0.05,1,2,",
+                                                       "0.2,,1234567.125,2,4,");
+    }
+
+    @DisplayName("export() - One JSON object per row, arrays are JSON arrays and missing values null")
+    @Test
+    void Given_IbtFile_When_ExportNdjson_Then_OneObjectPerRow() throws IOException {
+        assertThat(export(Format.NDJSON)).hasSize(3)
+                                         .element(1)
+                                         .isEqualTo("{\"SessionTime\":0.1,\"Speed\":-1.5,\"Throttle\":0.05,\"CarIdxLap\":[1,2],"
+                                                    + "\"RPM\":null}");
+    }
+
+    @DisplayName("export(Flux) - Live frames are written off the emitting thread, the stream is closed when the Flux completes")
+    @Test
+    void Given_FrameFlux_When_Export_Then_SameLinesAsFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (IbtFile ibtFile = IbtFile.open(createFile())) {
+            Flux<TelemetryFrame> frames = Flux.range(0, ibtFile.getRowCount()).map(ibtFile::getRow);
+
+            assertThat(TelemetryExporter.export(frames, out, Format.CSV, VAR_NAMES).block(Duration.ofSeconds(5))).isEqualTo(3);
+        }
+        List<String> lines = Arrays.asList(new String(out.toByteArray(), StandardCharsets.ISO_8859_1).split("\n"));
+        assertThat(lines).isEqualTo(export(Format.CSV));
+    }
+
+    @DisplayName("export(Flux) - A failed write ends the export with its error")
+    @Test
+    void Given_FailingStream_When_Export_Then_IOExceptionIsPropagated() throws IOException {
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        try (IbtFile ibtFile = IbtFile.open(createFile())) {
+            Flux<TelemetryFrame> frames = Flux.range(0, ibtFile.getRowCount()).map(ibtFile::getRow);
+
+            StepVerifier.create(TelemetryExporter.export(frames, out, Format.CSV, VAR_NAMES))
+                        .expectErrorMessage("Disk full")
+                        .verify(Duration.ofSeconds(5));
+        }
+    }
+
+    private List<String> export(Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (IbtFile ibtFile = IbtFile.open(createFile())) {
+            assertThat(TelemetryExporter.export(ibtFile, out, format, VAR_NAMES)).isEqualTo(3);
+        }
+        return Arrays.asList(new String(out.toByteArray(), StandardCharsets.ISO_8859_1).split("\n"));
+    }
+
+    /**
+     * Rows 0.1s apart, the speed and the throttle of row 2 are NaN and a large value
+     */
+    private Path createFile() throws IOException {
+        return writeIbt(tempDir.resolve("session.ibt"), 3,
+                        (row, values) -> values.putDouble("SessionTime", row * 0.1)
+                                               .putFloat("Speed", row < 2 ? row * -1.5F : Float.NaN)
+                                               .putFloat("Throttle", row == 1 ? 0.05F : row * 617283.5625F)
+                                               .putInt("CarIdxLap", 0, row)
+                                               .putInt("CarIdxLap", 1, row * 2),
+                        doubleVar("SessionTime", 1), floatVar("Speed", 1), floatVar("Throttle", 1), intVar("CarIdxLap", 2));
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getBufLen;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getVarBufOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestTelemetryFrame {
+
+    private static final int     NUM_BUF = 3;
+    private static final int     COUNT   = 64;
+    private static final VarHandle INTS  = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    @DisplayName("copyLatestFrame() - Should copy the var buffer with the highest tick count")
+    @Test
+    void Given_RotatingBuffers_When_CopyLatestFrame_Then_LatestTickIsCopied() {
+        ByteBuffer memory = createMemory(NUM_BUF, floatVar("CarIdxLapDistPct", COUNT));
+        writeBuffer(memory, 0, 5);
+        writeBuffer(memory, 1, 7);
+        writeBuffer(memory, 2, 6);
+
+        TelemetryFrame frame = new Header(memory).copyLatestFrame();
+
+        assertThat(frame).isNotNull();
+        assertThat(frame.getTickCount()).isEqualTo(7);
+        assertThat(frame.getBufLen()).isEqualTo(COUNT * Float.BYTES);
+        assertThat(frame.getByteBuffer().getFloat(0)).isEqualTo(7.0f);
+        assertThat(frame.getByteBuffer().getFloat((COUNT - 1) * Float.BYTES)).isEqualTo(7.0f);
+    }
+
+    @DisplayName("copyLatestFrame() - A frame is a copy, writing the shared memory afterwards doesn't change it")
+    @Test
+    void Given_CopiedFrame_When_BufferIsRewritten_Then_FrameKeepsItsValues() {
+        ByteBuffer memory = createMemory(NUM_BUF, floatVar("CarIdxLapDistPct", COUNT));
+        writeBuffer(memory, 0, 1);
+
+        TelemetryFrame frame = new Header(memory).copyLatestFrame();
+        writeBuffer(memory, 0, 4);
+
+        assertThat(frame.getTickCount()).isEqualTo(1);
+        assertThat(frame.getByteBuffer().getFloat(0)).isEqualTo(1.0f);
+    }
+
+    @DisplayName("getVar*() - An unbound handle reads the default value")
+    @Test
+    void Given_UnboundHandle_When_Read_Then_DefaultValue() {
+        ByteBuffer memory = createMemory(NUM_BUF, floatVar("CarIdxLapDistPct", COUNT));
+        writeBuffer(memory, 0, 3);
+
+        TelemetryFrame frame = new Header(memory).copyLatestFrame();
+
+        assertThat(frame.getVarFloat(new FloatVar("CarIdxLapDistPct"), 0)).isZero();
+        assertThat(TelemetryFrame.EMPTY.getVarFloat(new FloatVar("CarIdxLapDistPct"))).isZero();
+    }
+
+    @DisplayName("readFloats()/readInts() - A whole CarIdx array is copied at once, extra entries are cleared")
+    @Test
+    void Given_BoundArrays_When_BulkRead_Then_EveryEntryIsCopied() {
+        ByteBuffer memory = createMemory(1, floatVar("CarIdxLapDistPct", COUNT), intVar("CarIdxLap", COUNT));
+        int offset = getVarBufOffset(memory, 0);
+        for (int carIdx = 0; carIdx < COUNT; carIdx++) {
+            memory.putFloat(offset + (carIdx * Float.BYTES), carIdx / 100.0f);
+            memory.putInt(offset + (COUNT * Float.BYTES) + (carIdx * Integer.BYTES), carIdx + 1);
+        }
+        setTickCount(memory, 0, 1);
+        SdkStarter sdkStarter = new SdkStarter(new InMemorySource(memory));
+        FloatVar carIdxLapDistPct = sdkStarter.floatVar("CarIdxLapDistPct");
+        IntVar carIdxLap = sdkStarter.intVar("CarIdxLap");
+        assertThat(sdkStarter.isRunning()).isTrue();
+        TelemetryFrame frame = sdkStarter.getTelemetryFrame();
+
+        float[] lapDistPct = new float[COUNT + 2];
+        Arrays.fill(lapDistPct, -1.0f);
+        int[] laps = new int[10];
+
+        assertThat(frame.readFloats(carIdxLapDistPct, lapDistPct)).isEqualTo(COUNT);
+        assertThat(frame.readInts(carIdxLap, laps)).isEqualTo(10);
+        for (int carIdx = 0; carIdx < COUNT; carIdx++) {
+            assertThat(lapDistPct[carIdx]).isEqualTo(frame.getVarFloat(carIdxLapDistPct, carIdx)).isEqualTo(carIdx / 100.0f);
+        }
+        assertThat(lapDistPct[COUNT]).isZero();
+        assertThat(lapDistPct[COUNT + 1]).isZero();
+        assertThat(laps).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(frame.readInts(new IntVar("CarIdxF2Time"), laps)).isZero();
+        assertThat(laps).containsOnly(0);
+    }
+
+    @DisplayName("copyLatestFrame() - Buffers overwritten during the copy are detected, a frame never mixes two ticks")
+    @Test
+    void Given_BuffersWrittenConcurrently_When_CopyLatestFrame_Then_FrameIsNeverTorn() throws InterruptedException {
+        ByteBuffer memory = createMemory(NUM_BUF, floatVar("CarIdxLapDistPct", COUNT));
+        for (int i = 0; i < NUM_BUF; i++) {
+            writeBuffer(memory, i, i + 1);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            int tick = NUM_BUF;
+            while (running.get()) {
+                tick++;
+                writeBuffer(memory, tick % NUM_BUF, tick);
+            }
+        });
+        writer.start();
+
+        Header header = new Header(memory);
+        int frames = 0;
+        int torn = 0;
+        long end = System.nanoTime() + 300_000_000L;
+        try {
+            while (System.nanoTime() < end) {
+                TelemetryFrame frame = header.copyLatestFrame();
+                if (frame == null) {
+                    continue;
+                }
+                frames++;
+                ByteBuffer data = frame.getByteBuffer();
+                for (int i = 0; i < COUNT; i++) {
+                    if (data.getFloat(i * Float.BYTES) != (float) frame.getTickCount()) {
+                        torn++;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        assertThat(frames).isPositive();
+        assertThat(torn).isZero();
+    }
+
+    /**
+     * Write a var buffer the way a producer must for the tick count check to work: invalidate, write the values, publish the
+     * tick
+     */
+    private static void writeBuffer(ByteBuffer memory, int varBuf, int tick) {
+        int tickCountIndex = MemoryHelperTest.VAR_BUF_OFFSET + (varBuf * Header.VARBUF_SIZE);
+        INTS.setVolatile(memory, tickCountIndex, 0);
+        int offset = getVarBufOffset(memory, varBuf);
+        for (int i = 0; i < getBufLen(memory) / Float.BYTES; i++) {
+            memory.putFloat(offset + (i * Float.BYTES), (float) tick);
+        }
+        INTS.setVolatile(memory, tickCountIndex, tick);
+    }
+
+}
@@ -23,18 +23,24 @@
 
 package com.joffrey.iracing.irsdkjava;
 
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockTickSource;
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockVarHandles;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doReturn;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
 import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.IntVar;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
 import com.joffrey.iracing.irsdkjava.telemetry.TelemetryService;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.test.StepVerifier;
@@ -45,6 +51,10 @@ class TestTelemetryService {
     @MockBean
     private SdkStarter sdkStarter;
     @MockBean
+    private TickSource tickSource;
+    @MockBean
+    private TelemetryFrame telemetryFrame;
+    @MockBean
     private Header     header;
 
     // Class under test
@@ -52,74 +62,75 @@ class TestTelemetryService {
 
     @BeforeEach
     void init() {
-        telemetryService = new TelemetryService(new FluxProperties(), sdkStarter);
-        Mockito.when(sdkStarter.isRunning()).thenReturn(true);
+        mockVarHandles(sdkStarter);
+        mockTickSource(tickSource, telemetryFrame);
+        telemetryService = new TelemetryService(new FluxProperties(), sdkStarter, tickSource);
     }
 
     @DisplayName("loadTelemetryData() -> Test that all fetched vars are ok")
     @Test
     void Given_DataSimulatingMemMapFile_When_loadingDataPacket_ShouldReturnGoodValues() {
-        doReturn(100.0f).when(sdkStarter).getVarFloat("Throttle");
-        doReturn(50.0f).when(sdkStarter).getVarFloat("Brake");
-        doReturn(90.0f).when(sdkStarter).getVarFloat("Clutch");
-        doReturn(5).when(sdkStarter).getVarInt("Gear");
-        doReturn(50.0f).when(sdkStarter).getVarFloat("ShiftGrindRPM");
-        doReturn(4000.0f).when(sdkStarter).getVarFloat("RPM");
-        doReturn(260.0f).when(sdkStarter).getVarFloat("Speed");
-
-        doReturn(90.0f).when(sdkStarter).getVarFloat("FuelLevel");
-        doReturn(67.0f).when(sdkStarter).getVarFloat("FuelLevelPct");
-        doReturn(5.5f).when(sdkStarter).getVarFloat("FuelUsePerHour");
-        doReturn(3.0f).when(sdkStarter).getVarFloat("LatAccel");
-        doReturn(2.0f).when(sdkStarter).getVarFloat("LongAccel");
-        doReturn(90.0f).when(sdkStarter).getVarFloat("SteeringWheelAngle");
-
-        doReturn(60.0f).when(sdkStarter).getVarFloat("AirPressure");
-        doReturn(40.0f).when(sdkStarter).getVarFloat("AirTemp");
-        doReturn(10.0f).when(sdkStarter).getVarFloat("RelativeHumidity");
-        doReturn(1).when(sdkStarter).getVarInt("Skies");
-        doReturn(15.0f).when(sdkStarter).getVarFloat("TrackTemp");
-        doReturn(5.0f).when(sdkStarter).getVarFloat("WindDir");
-        doReturn(1.0f).when(sdkStarter).getVarFloat("WindVel");
-        doReturn(1).when(sdkStarter).getVarInt("WeatherType");
-
-        doReturn(54321d).when(sdkStarter).getVarDouble("SessionTime");
-        doReturn(9999d).when(sdkStarter).getVarDouble("SessionTimeRemain");
-        doReturn(10.50f).when(sdkStarter).getVarFloat("LapBestLapTime");
-        doReturn(11).when(sdkStarter).getVarInt("Lap");
-        doReturn(30.0f).when(sdkStarter).getVarFloat("LapCurrentLapTime");
-        doReturn(2).when(sdkStarter).getVarInt("LapBestLap");
-        doReturn(90.0f).when(sdkStarter).getVarFloat("LapDistPct");
+        doReturn(100.0f).when(telemetryFrame).getVarFloat(new FloatVar("Throttle"));
+        doReturn(50.0f).when(telemetryFrame).getVarFloat(new FloatVar("Brake"));
+        doReturn(90.0f).when(telemetryFrame).getVarFloat(new FloatVar("Clutch"));
+        doReturn(5).when(telemetryFrame).getVarInt(new IntVar("Gear"));
+        doReturn(50.0f).when(telemetryFrame).getVarFloat(new FloatVar("ShiftGrindRPM"));
+        doReturn(4000.0f).when(telemetryFrame).getVarFloat(new FloatVar("RPM"));
+        doReturn(260.0f).when(telemetryFrame).getVarFloat(new FloatVar("Speed"));
+
+        doReturn(90.0f).when(telemetryFrame).getVarFloat(new FloatVar("FuelLevel"));
+        doReturn(67.0f).when(telemetryFrame).getVarFloat(new FloatVar("FuelLevelPct"));
+        doReturn(5.5f).when(telemetryFrame).getVarFloat(new FloatVar("FuelUsePerHour"));
+        doReturn(3.0f).when(telemetryFrame).getVarFloat(new FloatVar("LatAccel"));
+        doReturn(2.0f).when(telemetryFrame).getVarFloat(new FloatVar("LongAccel"));
+        doReturn(90.0f).when(telemetryFrame).getVarFloat(new FloatVar("SteeringWheelAngle"));
+
+        doReturn(60.0f).when(telemetryFrame).getVarFloat(new FloatVar("AirPressure"));
+        doReturn(40.0f).when(telemetryFrame).getVarFloat(new FloatVar("AirTemp"));
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("RelativeHumidity"));
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("Skies"));
+        doReturn(15.0f).when(telemetryFrame).getVarFloat(new FloatVar("TrackTemp"));
+        doReturn(5.0f).when(telemetryFrame).getVarFloat(new FloatVar("WindDir"));
+        doReturn(1.0f).when(telemetryFrame).getVarFloat(new FloatVar("WindVel"));
+        doReturn(1).when(telemetryFrame).getVarInt(new IntVar("WeatherType"));
+
+        doReturn(54321d).when(telemetryFrame).getVarDouble(new DoubleVar("SessionTime"));
+        doReturn(9999d).when(telemetryFrame).getVarDouble(new DoubleVar("SessionTimeRemain"));
+        doReturn(10.50f).when(telemetryFrame).getVarFloat(new FloatVar("LapBestLapTime"));
+        doReturn(11).when(telemetryFrame).getVarInt(new IntVar("Lap"));
+        doReturn(30.0f).when(telemetryFrame).getVarFloat(new FloatVar("LapCurrentLapTime"));
+        doReturn(2).when(telemetryFrame).getVarInt(new IntVar("LapBestLap"));
+        doReturn(90.0f).when(telemetryFrame).getVarFloat(new FloatVar("LapDistPct"));
 
         StepVerifier.create(telemetryService.getTelemetryDataFlux()).assertNext(telemetryData -> {
-            assertThat(telemetryData.getThrottle()).isEqualTo(100.0f);
-            assertThat(telemetryData.getBrake()).isEqualTo(50.0f);
-            assertThat(telemetryData.getClutch()).isEqualTo(90.0f);
-            assertThat(telemetryData.getGear()).isEqualTo(5);
-            assertThat(telemetryData.getShiftGrindRPM()).isEqualTo(50.0f);
-            assertThat(telemetryData.getRPM()).isEqualTo(4000.0f);
-            assertThat(telemetryData.getSpeed()).isEqualTo(260.0f);
-            assertThat(telemetryData.getFuelLevel()).isEqualTo(90.0f);
-            assertThat(telemetryData.getFuelLevelPct()).isEqualTo(67.0f);
-            assertThat(telemetryData.getFuelUsePerHour()).isEqualTo(5.5f);
-            assertThat(telemetryData.getLatAccel()).isEqualTo(3.0f);
-            assertThat(telemetryData.getLongAccel()).isEqualTo(2.0f);
-            assertThat(telemetryData.getSteeringWheelAngle()).isEqualTo(90.0f);
-            assertThat(telemetryData.getAirPressure()).isEqualTo(60.0f);
-            assertThat(telemetryData.getAirTemp()).isEqualTo(40.0f);
-            assertThat(telemetryData.getRelativeHumidity()).isEqualTo(10.0f);
-            assertThat(telemetryData.getSkies()).isEqualTo("Cloudy");
-            assertThat(telemetryData.getTrackTemp()).isEqualTo(15.0f);
-            assertThat(telemetryData.getWindDir()).isEqualTo(5.0f);
-            assertThat(telemetryData.getWindVel()).isEqualTo(1.0f);
-            assertThat(telemetryData.getWeatherType()).isEqualTo("Dynamic");
-            assertThat(telemetryData.getSessionTime()).isEqualTo(54321d);
-            assertThat(telemetryData.getSessionTimeRemain()).isEqualTo(9999d);
-            assertThat(telemetryData.getLapBestLapTime()).isEqualTo(10.50f);
-            assertThat(telemetryData.getLap()).isEqualTo(11);
-            assertThat(telemetryData.getLapCurrentLapTime()).isEqualTo(30.0f);
-            assertThat(telemetryData.getLapBestLap()).isEqualTo(2);
-            assertThat(telemetryData.getLapDistPct()).isEqualTo(90.0f);
+            assertThat(telemetryData.getPedalsAndSpeed().getThrottle()).isEqualTo(100.0f);
+            assertThat(telemetryData.getPedalsAndSpeed().getBrake()).isEqualTo(50.0f);
+            assertThat(telemetryData.getPedalsAndSpeed().getClutch()).isEqualTo(90.0f);
+            assertThat(telemetryData.getPedalsAndSpeed().getGear()).isEqualTo(5);
+            assertThat(telemetryData.getPedalsAndSpeed().getShiftGrindRPM()).isEqualTo(50.0f);
+            assertThat(telemetryData.getPedalsAndSpeed().getRPM()).isEqualTo(4000.0f);
+            assertThat(telemetryData.getPedalsAndSpeed().getSpeed()).isEqualTo(260.0f);
+            assertThat(telemetryData.getFuelAndAngles().getFuelLevel()).isEqualTo(90.0f);
+            assertThat(telemetryData.getFuelAndAngles().getFuelLevelPct()).isEqualTo(67.0f);
+            assertThat(telemetryData.getFuelAndAngles().getFuelUsePerHour()).isEqualTo(5.5f);
+            assertThat(telemetryData.getFuelAndAngles().getLatAccel()).isEqualTo(3.0f);
+            assertThat(telemetryData.getFuelAndAngles().getLongAccel()).isEqualTo(2.0f);
+            assertThat(telemetryData.getFuelAndAngles().getSteeringWheelAngle()).isEqualTo(90.0f);
+            assertThat(telemetryData.getWeather().getAirPressure()).isEqualTo(60.0f);
+            assertThat(telemetryData.getWeather().getAirTemp()).isEqualTo(40.0f);
+            assertThat(telemetryData.getWeather().getRelativeHumidity()).isEqualTo(10.0f);
+            assertThat(telemetryData.getWeather().getSkies()).isEqualTo("Cloudy");
+            assertThat(telemetryData.getWeather().getTrackTemp()).isEqualTo(15.0f);
+            assertThat(telemetryData.getWeather().getWindDir()).isEqualTo(5.0f);
+            assertThat(telemetryData.getWeather().getWindVel()).isEqualTo(1.0f);
+            assertThat(telemetryData.getWeather().getWeatherType()).isEqualTo("Dynamic");
+            assertThat(telemetryData.getSession().getSessionTime()).isEqualTo(54321d);
+            assertThat(telemetryData.getSession().getSessionTimeRemain()).isEqualTo(9999d);
+            assertThat(telemetryData.getSession().getLapBestLapTime()).isEqualTo(10.50f);
+            assertThat(telemetryData.getSession().getLap()).isEqualTo(11);
+            assertThat(telemetryData.getSession().getLapCurrentLapTime()).isEqualTo(30.0f);
+            assertThat(telemetryData.getSession().getLapBestLap()).isEqualTo(2);
+            assertThat(telemetryData.getSession().getLapDistPct()).isEqualTo(90.0f);
         }).thenCancel().verifyThenAssertThat().hasNotDroppedElements().hasNotDiscardedElements().hasNotDroppedErrors();
 
 
@@ -0,0 +1,163 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.joffrey.iracing.irsdkjava.history.FrameHistory;
+import com.joffrey.iracing.irsdkjava.model.DoubleVar;
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.tick.ReconnectBackoff;
+import com.joffrey.iracing.irsdkjava.tick.SignalWaitStrategy;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+class TestTickSource {
+
+    private final AtomicReference<TelemetryFrame> currentFrame = new AtomicReference<>(TelemetryFrame.EMPTY);
+    private final AtomicBoolean                   running      = new AtomicBoolean(true);
+    private final SignalWaitStrategy              signal       = new SignalWaitStrategy();
+
+    // Class under test
+    private TickSource tickSource;
+
+    @BeforeEach
+    void init() {
+        SdkStarter sdkStarter = mock(SdkStarter.class);
+        doAnswer(invocation -> running.get() ? ConnectionState.CONNECTED : ConnectionState.MAPPING).when(sdkStarter).poll();
+        doAnswer(invocation -> currentFrame.get()).when(sdkStarter).getTelemetryFrame();
+        tickSource = new TickSource(sdkStarter, signal, new ReconnectBackoff(10L, 100L, 2.0),
+                                    new FrameHistory(0, new DoubleVar("SessionTime")));
+    }
+
+    @AfterEach
+    void destroy() throws InterruptedException {
+        tickSource.destroy();
+    }
+
+    @DisplayName("getFrameFlux() - Each new tick is published once, a signal without a new tick publishes nothing")
+    @Test
+    void Given_SignaledTicks_When_SubscribingToFlux_Then_OneFramePerTick() {
+        StepVerifier.create(tickSource.getFrameFlux())
+                    .then(() -> tick(1))
+                    .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(1))
+                    .then(signal::signal)
+                    .then(() -> tick(2))
+                    .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(2))
+                    .then(signal::signal)
+                    .expectNoEvent(Duration.ofMillis(300))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+    @DisplayName("getFrameFlux() - Nothing is published while iRacing is not running")
+    @Test
+    void Given_SimNotRunning_When_Signaled_Then_NoFrameUntilRunning() {
+        running.set(false);
+
+        StepVerifier.create(tickSource.getFrameFlux())
+                    .then(() -> tick(1))
+                    .expectNoEvent(Duration.ofMillis(300))
+                    .then(() -> running.set(true))
+                    .then(signal::signal)
+                    .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(1))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+    @DisplayName("getFrameFlux(period) - Ticks arriving before the end of the period are skipped")
+    @Test
+    void Given_Period_When_TicksArriveFaster_Then_OnlyFirstFrameOfPeriod() {
+        StepVerifier.create(tickSource.getFrameFlux(Duration.ofHours(1)))
+                    .then(() -> tick(1))
+                    .assertNext(frame -> assertThat(frame.getTickCount()).isEqualTo(1))
+                    .then(() -> tick(2))
+                    .then(() -> tick(3))
+                    .expectNoEvent(Duration.ofMillis(300))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+    @DisplayName("getFrameFlux() - A blocked subscriber doesn't stall the reader, the other subscribers still get each tick")
+    @Test
+    void Given_BlockedSubscriber_When_Ticking_Then_OtherSubscriberStillGetsFrames() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        Disposable slow = tickSource.getFrameFlux().subscribe(frame -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Disposable fast = tickSource.getFrameFlux().subscribe(frame -> received.add(frame.getTickCount()));
+        try {
+            tick(1);
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+            awaitReceived(received, 1);
+            tick(2);
+            awaitReceived(received, 2);
+            tick(3);
+            awaitReceived(received, 3);
+
+            assertThat(received).containsExactly(1, 2, 3);
+            assertThat(release.getCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            slow.dispose();
+            fast.dispose();
+        }
+    }
+
+    private void awaitReceived(List<Integer> received, int tickCount) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!received.contains(tickCount) && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+    }
+
+    private void tick(int tickCount) {
+        currentFrame.set(new TelemetryFrame(tickCount, ByteBuffer.allocate(0)));
+        signal.signal();
+    }
+
+}
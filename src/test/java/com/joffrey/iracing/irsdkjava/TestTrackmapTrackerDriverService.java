@@ -23,14 +23,20 @@
 
 package com.joffrey.iracing.irsdkjava;
 
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockArrayReads;
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockTickSource;
+import static com.joffrey.iracing.irsdkjava.SdkStarterHelperTest.mockVarHandles;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.createByteBufferYamlFile;
 import static com.joffrey.iracing.irsdkjava.YamlHelperTest.loadYamlObject;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doReturn;
 
 import com.joffrey.iracing.irsdkjava.config.FluxProperties;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
 import com.joffrey.iracing.irsdkjava.model.Header;
 import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
 import com.joffrey.iracing.irsdkjava.trackmaptracker.TrackmapTrackerService;
 import com.joffrey.iracing.irsdkjava.yaml.YamlService;
 import com.joffrey.iracing.irsdkjava.yaml.irsdkyaml.YamlFile;
@@ -52,6 +58,10 @@ class TestTrackmapTrackerDriverService {
     @MockBean
     private SdkStarter  sdkStarter;
     @MockBean
+    private TickSource tickSource;
+    @MockBean
+    private TelemetryFrame telemetryFrame;
+    @MockBean
     private Header      header;
     @MockBean
     private YamlService yamlService;
@@ -65,13 +75,15 @@ class TestTrackmapTrackerDriverService {
 
     @BeforeEach
     void init() {
-        trackmapTrackerService = new TrackmapTrackerService(new FluxProperties(), sdkStarter, yamlService);
+        mockVarHandles(sdkStarter);
+        mockTickSource(tickSource, telemetryFrame);
+        mockArrayReads(telemetryFrame);
+        trackmapTrackerService = new TrackmapTrackerService(new FluxProperties(), sdkStarter, tickSource, yamlService);
         byteBufferYamlFile = createByteBufferYamlFile("trackmaptracker/trackmaptracker.yml");
         YamlFile yamlFile = loadYamlObject(byteBufferYamlFile);
 
-        Mockito.when(sdkStarter.getHeader()).thenReturn(header);
-        Mockito.when(sdkStarter.getHeader().getSessionInfoByteBuffer()).thenReturn(byteBufferYamlFile);
-        Mockito.when(sdkStarter.isRunning()).thenReturn(true);
+        doReturn(header).when(sdkStarter).getHeader();
+        doReturn(byteBufferYamlFile).when(header).getSessionInfoByteBuffer();
         Mockito.when(yamlService.getYamlFile()).thenReturn(yamlFile);
     }
 
@@ -79,10 +91,10 @@ class TestTrackmapTrackerDriverService {
     @Test
     void Given_ValidDataFromYamlAndMemMapFile_When_CallingFlux_Then_SHouldReturnGoodDataInFlux() {
 
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 63);
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 12);
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 23);
-        doReturn(0.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 49);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 63);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 12);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 23);
+        doReturn(0.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 49);
 
         StepVerifier.create(trackmapTrackerService.getTrackmapTrackerListFlux()).assertNext(trackmapTrackers -> {
             assertThat(trackmapTrackers.get(0).getDriverIdx()).isEqualTo(63);
@@ -113,10 +125,10 @@ class TestTrackmapTrackerDriverService {
     @Test
     void Given_OthersValidDataFromYamlAndMemMapFile_When_CallingFlux_Then_SHouldReturnGoodDataInFlux() {
 
-        doReturn(10.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 63);
-        doReturn(20.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 12);
-        doReturn(30.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 23);
-        doReturn(40.0f).when(sdkStarter).getVarFloat("CarIdxLapDistPct", 49);
+        doReturn(10.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 63);
+        doReturn(20.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 12);
+        doReturn(30.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 23);
+        doReturn(40.0f).when(telemetryFrame).getVarFloat(new FloatVar("CarIdxLapDistPct"), 49);
 
         StepVerifier.create(trackmapTrackerService.getTrackmapTrackerListFlux()).assertNext(trackmapTrackers -> {
 
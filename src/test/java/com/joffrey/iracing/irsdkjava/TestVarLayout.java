@@ -0,0 +1,111 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.getVarBufOffset;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.intVar;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.setTickCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.InMemorySource;
+import com.joffrey.iracing.irsdkjava.model.FloatVar;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.model.VarLayout;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class TestVarLayout {
+
+    @DisplayName("isRunning() - A var layout change while connected swaps the var table and notifies, a frame of the previous "
+                 + "layout is still read with its own table")
+    @Test
+    void Given_LayoutChanged_When_Running_Then_VarTableIsRebuilt() {
+        // Large enough for both layouts
+        InMemorySource source = new InMemorySource(createMemory(1, floatVar("Speed", 1), floatVar("RPM", 1)), 2);
+        SdkStarter sdkStarter = new SdkStarter(source);
+        FloatVar rpm = sdkStarter.floatVar("RPM");
+        AtomicReference<TelemetryFrame> previous = new AtomicReference<>();
+
+        StepVerifier.create(sdkStarter.getVarTableFlux())
+                    .then(() -> tick(sdkStarter, source.getMemory(), 1, 4000.0f))
+                    .assertNext(varTable -> assertThat(varTable.indexOf("RPM")).isEqualTo(1))
+                    .then(() -> {
+                        // Same tick count, no change
+                        assertThat(sdkStarter.isRunning()).isTrue();
+                        assertThat(sdkStarter.getVarFloat(rpm)).isEqualTo(4000.0f);
+                        previous.set(sdkStarter.getTelemetryFrame());
+                        // New car, RPM is now first with another var in front of the speed
+                        ByteBuffer changed = createMemory(1, floatVar("RPM", 1), intVar("Gear", 1), floatVar("Speed", 1));
+                        source.getMemory().clear();
+                        source.getMemory().put(changed.duplicate().clear()).clear();
+                        tick(sdkStarter, source.getMemory(), 2, 5000.0f);
+                    })
+                    .assertNext(varTable -> {
+                        assertThat(varTable.indexOf("RPM")).isZero();
+                        assertThat(varTable.get("Gear")).isNotNull();
+                        assertThat(sdkStarter.getVarTable()).isSameAs(varTable);
+                    })
+                    .then(() -> {
+                        assertThat(sdkStarter.getVarFloat(rpm)).isEqualTo(5000.0f);
+                        assertThat(sdkStarter.getVarFloat("RPM")).isEqualTo(5000.0f);
+                        assertThat(previous.get().getVarFloat(rpm)).isEqualTo(4000.0f);
+                    })
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+    @DisplayName("matches() - Same header fields and same var headers match, a renamed var doesn't")
+    @Test
+    void Given_Layout_When_VarHeaderChanged_Then_NoMatch() {
+        ByteBuffer memory = createMemory(1, floatVar("Speed", 1), floatVar("RPM", 1));
+        VarTable varTable = VarTable.parse(memory, new HeaderSnapshot(memory));
+        VarLayout layout = varTable.getLayout();
+
+        assertThat(layout).isEqualTo(VarLayout.of(memory, new HeaderSnapshot(memory)));
+        assertThat(layout.matches(memory, new HeaderSnapshot(memory))).isTrue();
+
+        ByteBuffer renamed = createMemory(1, floatVar("Speed", 1), floatVar("Rpm", 1));
+        assertThat(layout.matches(renamed, new HeaderSnapshot(renamed))).isFalse();
+        assertThat(VarLayout.NONE.matches(memory, new HeaderSnapshot(memory))).isFalse();
+    }
+
+    /**
+     * Write the first var buffer with the RPM wherever the current layout puts it, then publish the tick
+     */
+    private static void tick(SdkStarter sdkStarter, ByteBuffer memory, int tickCount, float rpm) {
+        int rpmOffset = VarTable.parse(memory, new HeaderSnapshot(memory)).get("RPM").getOffset();
+        memory.putFloat(getVarBufOffset(memory, 0) + rpmOffset, rpm);
+        setTickCount(memory, 0, tickCount);
+        assertThat(sdkStarter.isRunning()).isTrue();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.createMemory;
+import static com.joffrey.iracing.irsdkjava.MemoryHelperTest.floatVar;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.joffrey.iracing.irsdkjava.MemoryHelperTest.Var;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.VarHeader;
+import com.joffrey.iracing.irsdkjava.model.VarTable;
+import com.joffrey.iracing.irsdkjava.model.defines.Constant;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestVarTable {
+
+    @DisplayName("parse() - Every var of the table is found by name, unknown names are not")
+    @Test
+    void Given_ManyVars_When_Parsed_Then_EveryNameIsFound() {
+        Var[] vars = new Var[300];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = floatVar("Var" + i, 1 + (i % 3));
+        }
+        ByteBuffer memory = createMemory(3, vars);
+
+        VarTable varTable = VarTable.parse(memory, Header.HEADER_SIZE, vars.length);
+
+        assertThat(varTable.size()).isEqualTo(vars.length);
+        int offset = 0;
+        for (int i = 0; i < vars.length; i++) {
+            VarHeader varHeader = varTable.get("Var" + i);
+            assertThat(varTable.indexOf("Var" + i)).isEqualTo(i);
+            assertThat(varHeader.getName()).isEqualTo("Var" + i);
+            assertThat(varHeader.getCount()).isEqualTo(1 + (i % 3));
+            assertThat(varHeader.getOffset()).isEqualTo(offset);
+            offset += Float.BYTES * varHeader.getCount();
+        }
+        assertThat(varTable.get("Var300")).isNull();
+        assertThat(varTable.indexOf("Unknown")).isEqualTo(-1);
+    }
+
+    @DisplayName("parse() - Description and unit are decoded on demand up to their NUL terminator")
+    @Test
+    void Given_DescAndUnit_When_Parsed_Then_DecodedOnDemand() {
+        ByteBuffer memory = createMemory(1, floatVar("Speed", 1), floatVar("RPM", 1));
+        int speedHeader = Header.HEADER_SIZE;
+        put(memory, speedHeader + 16 + Constant.IRSDK_MAX_STRING, "GPS vehicle speed");
+        put(memory, speedHeader + 16 + Constant.IRSDK_MAX_STRING + Constant.IRSDK_MAX_DESC, "m/s");
+
+        VarTable varTable = VarTable.parse(memory, Header.HEADER_SIZE, 2);
+
+        assertThat(varTable.get("Speed").getDesc()).isEqualTo("GPS vehicle speed");
+        assertThat(varTable.get("Speed").getUnit()).isEqualTo("m/s");
+        assertThat(varTable.get("RPM").getDesc()).isEmpty();
+        assertThat(varTable.get("RPM").getUnit()).isEmpty();
+        assertThat(new VarHeader(memory, speedHeader)).isEqualTo(varTable.get("Speed"));
+    }
+
+    @DisplayName("parse() - A table larger than the memory is truncated, an empty one has no var")
+    @Test
+    void Given_TruncatedTable_When_Parsed_Then_OnlyCompleteVarsAreKept() {
+        ByteBuffer memory = createMemory(1, floatVar("Speed", 1), floatVar("RPM", 1));
+        ByteBuffer truncated = memory.duplicate().limit(Header.HEADER_SIZE + VarHeader.VAR_HEADER_SIZE + 10);
+
+        assertThat(VarTable.parse(truncated, Header.HEADER_SIZE, 2).size()).isEqualTo(1);
+        assertThat(VarTable.parse(memory, Header.HEADER_SIZE, 0)).isSameAs(VarTable.EMPTY);
+        assertThat(VarTable.EMPTY.get("Speed")).isNull();
+    }
+
+    private static void put(ByteBuffer memory, int at, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            memory.put(at + i, bytes[i]);
+        }
+    }
+
+}
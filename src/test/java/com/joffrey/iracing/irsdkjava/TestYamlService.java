@@ -0,0 +1,133 @@
+/*
+ *
+ *    Copyright (C) 2020 Joffrey Bonifay
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package com.joffrey.iracing.irsdkjava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joffrey.iracing.irsdkjava.model.ConnectionState;
+import com.joffrey.iracing.irsdkjava.model.Header;
+import com.joffrey.iracing.irsdkjava.model.HeaderSnapshot;
+import com.joffrey.iracing.irsdkjava.model.SdkStarter;
+import com.joffrey.iracing.irsdkjava.model.TelemetryFrame;
+import com.joffrey.iracing.irsdkjava.tick.TickSource;
+import com.joffrey.iracing.irsdkjava.yaml.YamlService;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+class TestYamlService {
+
+    private final Sinks.Many<TelemetryFrame>  frames           = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<ConnectionState> connectionStates = Sinks.many().multicast().directBestEffort();
+    private final AtomicReference<ByteBuffer> memory           = new AtomicReference<>();
+    private final SdkStarter                  sdkStarter       = mock(SdkStarter.class);
+
+    // Class under test
+    private YamlService yamlService;
+
+    @BeforeEach
+    void init() {
+        TickSource tickSource = mock(TickSource.class);
+        when(tickSource.getFrameFlux()).thenReturn(frames.asFlux());
+        when(sdkStarter.getConnectionStateFlux()).thenReturn(connectionStates.asFlux());
+        doAnswer(invocation -> new Header(memory.get())).when(sdkStarter).getHeader();
+        doAnswer(invocation -> new HeaderSnapshot(memory.get())).when(sdkStarter).getHeaderSnapshot();
+        yamlService = new YamlService(sdkStarter, tickSource);
+    }
+
+    @DisplayName("getYamlFile() - The YAML is parsed when SessionInfoUpdate changes and on each connection, not on every tick")
+    @Test
+    void Given_Ticks_When_SessionInfoUpdateChanges_Then_YamlIsParsedAgain() {
+        sessionInfo(1, "spa");
+        tick(1);
+        tick(2);
+        tick(3);
+        verify(sdkStarter, timeout(1000).times(1)).getHeader();
+        assertTrackName("spa");
+
+        sessionInfo(2, "monza");
+        tick(4);
+        tick(5);
+        verify(sdkStarter, timeout(1000).times(2)).getHeader();
+        assertTrackName("monza");
+
+        // Same counter after a reconnection, the YAML may come from another session
+        connectionStates.tryEmitNext(ConnectionState.DISCONNECTED);
+        tick(1);
+        verify(sdkStarter, timeout(1000).times(3)).getHeader();
+    }
+
+    @DisplayName("getYamlFile() - Ticks are read from the creation of the service until it is destroyed")
+    @Test
+    void Given_Service_When_CreatedThenDestroyed_Then_SubscribedInBetween() {
+        assertThat(frames.currentSubscriberCount()).isEqualTo(1);
+        sessionInfo(1, "spa");
+        tick(1);
+        assertTrackName("spa");
+
+        yamlService.destroy();
+        assertThat(frames.currentSubscriberCount()).isZero();
+        assertThat(connectionStates.currentSubscriberCount()).isZero();
+    }
+
+    @DisplayName("getYamlFile() - The session info is decoded as ISO-8859-1")
+    @Test
+    void Given_Latin1SessionInfo_When_Parsed_Then_AccentsAreKept() {
+        sessionInfo(1, "N\u00fcrburgring");
+        tick(1);
+        assertTrackName("N\u00fcrburgring");
+    }
+
+    private void sessionInfo(int sessionInfoUpdate, String trackName) {
+        byte[] yaml = ("---\nWeekendInfo:\n TrackName: " + trackName + "\n...\n").getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocate(Header.HEADER_SIZE + yaml.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(12, sessionInfoUpdate);
+        buffer.putInt(16, yaml.length);
+        buffer.putInt(20, Header.HEADER_SIZE);
+        buffer.put(Header.HEADER_SIZE, yaml);
+        memory.set(buffer);
+    }
+
+    private void tick(int tickCount) {
+        frames.tryEmitNext(new TelemetryFrame(tickCount, ByteBuffer.allocate(0)));
+    }
+
+    private void assertTrackName(String trackName) {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (!trackName.equals(yamlService.getYamlFile().getWeekendInfo().getTrackName()) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(yamlService.getYamlFile().getWeekendInfo().getTrackName()).isEqualTo(trackName);
+    }
+
+}